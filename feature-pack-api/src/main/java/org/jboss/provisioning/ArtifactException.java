@@ -16,6 +16,10 @@
  */
 package org.jboss.provisioning;
 
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Map;
+
 /**
  *
  * @author Alexey Loubyansky
@@ -24,11 +28,35 @@ public class ArtifactException extends ProvisioningException {
 
     private static final long serialVersionUID = 1L;
 
+    private final Map<ArtifactCoords, Path> resolved;
+
     public ArtifactException(String message) {
-        super(message);
+        this(message, null, Collections.<ArtifactCoords, Path>emptyMap());
     }
 
     public ArtifactException(String message, Throwable cause) {
+        this(message, cause, Collections.<ArtifactCoords, Path>emptyMap());
+    }
+
+    /**
+     * Reports the failure to resolve a set of artifacts.
+     *
+     * @param message  the message
+     * @param cause  the cause
+     * @param resolved  the artifacts of the set that were resolved
+     */
+    public ArtifactException(String message, Throwable cause, Map<ArtifactCoords, Path> resolved) {
         super(message, cause);
+        this.resolved = resolved;
+    }
+
+    /**
+     * The artifacts that were resolved before the failure when a set of artifacts
+     * was being resolved.
+     *
+     * @return  locations of the resolved artifacts, never null
+     */
+    public Map<ArtifactCoords, Path> getResolved() {
+        return resolved;
     }
 }
@@ -17,6 +17,9 @@
 package org.jboss.provisioning;
 
 import java.nio.file.Path;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  *
@@ -25,6 +28,30 @@ import java.nio.file.Path;
 public interface ArtifactRepositoryManager {
 
     Path resolve(ArtifactCoords coords) throws ArtifactException;
+
+    /**
+     * Resolves the artifacts in one request. Implementations that can optimize
+     * the resolution of a set of artifacts (e.g. resolve them concurrently)
+     * are expected to override the default implementation which resolves
+     * the artifacts one by one.
+     *
+     * @param coords  coordinates of the artifacts to resolve
+     * @return  the locations of the resolved artifacts in the order of the coordinates
+     * @throws ArtifactException  in case any of the artifacts could not be resolved,
+     * the exception carries the artifacts that were resolved
+     */
+    default Map<ArtifactCoords, Path> resolveAll(Collection<ArtifactCoords> coords) throws ArtifactException {
+        final Map<ArtifactCoords, Path> result = new LinkedHashMap<>(coords.size());
+        for(ArtifactCoords artifact : coords) {
+            try {
+                result.put(artifact, resolve(artifact));
+            } catch(ArtifactException e) {
+                throw new ArtifactException(e.getMessage(), e, result);
+            }
+        }
+        return result;
+    }
+
     void install(ArtifactCoords coords, Path artifact) throws ArtifactException;
     void deploy(ArtifactCoords coords, Path artifact) throws ArtifactException;
 }
@@ -0,0 +1,298 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.provisioning;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jboss.provisioning.config.ProvisioningConfig;
+import org.jboss.provisioning.runtime.FeaturePackLayoutCache;
+import org.jboss.provisioning.util.IoUtils;
+
+/**
+ * Provisions a number of installations, each according to its own provisioning
+ * configuration, on a bounded pool of threads.
+ * <p>
+ * The installations share the artifact resolver and the unpacked feature-pack
+ * layouts and parsed feature-pack specs, so a feature-pack used by several
+ * installations is resolved, unpacked and parsed once. Unless a layout cache is set
+ * or configured with {@value FeaturePackLayoutCache#LAYOUT_CACHE} system property,
+ * the layouts are unpacked in a temporary directory that is removed once
+ * all the installations have been provisioned.
+ * <p>
+ * The artifact resolver and the provisioning plugins of the feature-packs
+ * must support concurrent use unless the number of threads is set to 1.
+ * The messages of each installation are prefixed with its location,
+ * since the messages of the installations provisioned concurrently are interleaved.
+ */
+public class BatchProvisioner {
+
+    public static class Builder {
+
+        private String encoding = "UTF-8";
+        private ArtifactRepositoryManager artifactResolver;
+        private MessageWriter messageWriter;
+        private FeaturePackLayoutCache layoutCache;
+        private int threads;
+        private Map<Path, ProvisioningConfig> targets = Collections.emptyMap();
+
+        private Builder() {
+        }
+
+        public Builder setEncoding(String encoding) {
+            this.encoding = encoding;
+            return this;
+        }
+
+        public Builder setArtifactResolver(ArtifactRepositoryManager artifactResolver) {
+            this.artifactResolver = artifactResolver;
+            return this;
+        }
+
+        public Builder setMessageWriter(MessageWriter messageWriter) {
+            this.messageWriter = messageWriter;
+            return this;
+        }
+
+        public Builder setLayoutCache(FeaturePackLayoutCache layoutCache) {
+            this.layoutCache = layoutCache;
+            return this;
+        }
+
+        /**
+         * @param threads  the maximum number of installations provisioned concurrently,
+         * if not positive, the number of available processors is used
+         * @return  this builder
+         */
+        public Builder setThreads(int threads) {
+            this.threads = threads;
+            return this;
+        }
+
+        public Builder addTarget(Path installationHome, ProvisioningConfig config) {
+            if(targets.isEmpty()) {
+                targets = new LinkedHashMap<>();
+            }
+            targets.put(installationHome, config);
+            return this;
+        }
+
+        public BatchProvisioner build() {
+            return new BatchProvisioner(this);
+        }
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Prefixes the messages of an installation with its location.
+     */
+    private static class TargetMessageWriter implements MessageWriter {
+
+        private final MessageWriter delegate;
+        private final String prefix;
+
+        TargetMessageWriter(MessageWriter delegate, Path installationHome) {
+            this.delegate = delegate;
+            this.prefix = "[" + installationHome + "] ";
+        }
+
+        @Override
+        public void verbose(Throwable cause, CharSequence message) {
+            delegate.verbose(cause, prefix(message));
+        }
+
+        @Override
+        public void print(Throwable cause, CharSequence message) {
+            delegate.print(cause, prefix(message));
+        }
+
+        @Override
+        public void error(Throwable cause, CharSequence message) {
+            delegate.error(cause, prefix(message));
+        }
+
+        @Override
+        public boolean isVerboseEnabled() {
+            return delegate.isVerboseEnabled();
+        }
+
+        @Override
+        public void close() throws Exception {
+            // the delegate is shared by the installations
+        }
+
+        private CharSequence prefix(CharSequence message) {
+            return message == null ? prefix : prefix + message;
+        }
+    }
+
+    /**
+     * The outcome of provisioning one installation.
+     */
+    public static class Result {
+
+        private final Path installationHome;
+        private final Throwable failure;
+        private final long time;
+
+        private Result(Path installationHome, Throwable failure, long time) {
+            this.installationHome = installationHome;
+            this.failure = failure;
+            this.time = time;
+        }
+
+        public Path getInstallationHome() {
+            return installationHome;
+        }
+
+        public boolean isSuccessful() {
+            return failure == null;
+        }
+
+        /**
+         * @return  the failure or null if the installation was provisioned successfully
+         */
+        public Throwable getFailure() {
+            return failure;
+        }
+
+        /**
+         * @return  the time it took to provision the installation in milliseconds
+         */
+        public long getTime() {
+            return time;
+        }
+    }
+
+    private final String encoding;
+    private final ArtifactRepositoryManager artifactResolver;
+    private final MessageWriter messageWriter;
+    private final FeaturePackLayoutCache layoutCache;
+    private final int threads;
+    private final Map<Path, ProvisioningConfig> targets;
+
+    private BatchProvisioner(Builder builder) {
+        this.encoding = builder.encoding;
+        this.artifactResolver = builder.artifactResolver;
+        this.messageWriter = builder.messageWriter == null ? DefaultMessageWriter.getDefaultInstance() : builder.messageWriter;
+        this.layoutCache = builder.layoutCache == null ? FeaturePackLayoutCache.getConfigured() : builder.layoutCache;
+        this.threads = builder.threads > 0 ? builder.threads : Runtime.getRuntime().availableProcessors();
+        this.targets = builder.targets;
+    }
+
+    /**
+     * Provisions the installations. A failure to provision one installation
+     * does not affect the others.
+     *
+     * @return  the results in the order the installations were added
+     * @throws ProvisioningException  in case the provisioning could not be performed
+     */
+    public List<Result> provision() throws ProvisioningException {
+        if(targets.isEmpty()) {
+            return Collections.emptyList();
+        }
+        if(artifactResolver == null) {
+            throw new ProvisioningException("Artifact resolver has not been provided.");
+        }
+        Path tmpLayouts = null;
+        FeaturePackLayoutCache layoutCache = this.layoutCache;
+        if(layoutCache == null) {
+            tmpLayouts = IoUtils.createRandomTmpDir();
+            layoutCache = FeaturePackLayoutCache.newInstance(tmpLayouts);
+        }
+        final ExecutorService executor = newThreadPool(Math.min(threads, targets.size()));
+        try {
+            final List<Future<Result>> futures = new ArrayList<>(targets.size());
+            for(Map.Entry<Path, ProvisioningConfig> target : targets.entrySet()) {
+                final ProvisioningManager pm = ProvisioningManager.builder()
+                        .setArtifactResolver(artifactResolver)
+                        .setEncoding(encoding)
+                        .setInstallationHome(target.getKey())
+                        .setMessageWriter(new TargetMessageWriter(messageWriter, target.getKey()))
+                        .setLayoutCache(layoutCache)
+                        .build();
+                final ProvisioningConfig config = target.getValue();
+                futures.add(executor.submit(new Callable<Result>() {
+                    @Override
+                    public Result call() {
+                        final long startTime = System.currentTimeMillis();
+                        Throwable failure = null;
+                        try {
+                            pm.provision(config);
+                        } catch(ProvisioningException | RuntimeException e) {
+                            failure = e;
+                        }
+                        return new Result(pm.getInstallationHome(), failure, System.currentTimeMillis() - startTime);
+                    }
+                }));
+            }
+            final List<Result> results = new ArrayList<>(futures.size());
+            for(Future<Result> future : futures) {
+                try {
+                    results.add(future.get());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new ProvisioningException("Interrupted while provisioning the installations", e);
+                } catch (ExecutionException e) {
+                    final Throwable cause = e.getCause();
+                    if(cause instanceof Error) {
+                        throw (Error) cause;
+                    }
+                    throw new ProvisioningException("Failed to provision the installations", cause);
+                }
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+            if(tmpLayouts != null) {
+                IoUtils.recursiveDelete(tmpLayouts);
+            }
+        }
+    }
+
+    /**
+     * Creates a fixed pool of named daemon threads which inherit the context classloader
+     * of the calling thread, so that an abandoned installation does not keep the JVM running.
+     */
+    private static ExecutorService newThreadPool(int threads) {
+        final ClassLoader tccl = Thread.currentThread().getContextClassLoader();
+        return Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            private final AtomicInteger counter = new AtomicInteger();
+            @Override
+            public Thread newThread(Runnable r) {
+                final Thread t = new Thread(r, "pm-batch-" + counter.incrementAndGet());
+                t.setContextClassLoader(tccl);
+                t.setDaemon(true);
+                return t;
+            }
+        });
+    }
+}
@@ -33,6 +33,7 @@ public interface Constants {
     String FEATURES = "features";
     String FEATURE_PACK_XML = "feature-pack.xml";
     String MODULES_XML = "module.xml";
+    String PACKAGE_CLOSURE_TXT = "closure.txt";
     String PACKAGE_XML = "package.xml";
     String PACKAGES = "packages";
     String PLUGINS = "plugins";
@@ -43,6 +44,7 @@ public interface Constants {
 
     String PROVISIONED_STATE_DIR = ".pm";
     String PROVISIONED_STATE_XML = "provisioned.xml";
+    String LINKED_ARTIFACTS_TXT = "linked-artifacts.txt";
 
     String PM_UNDEFINED = "PM_UNDEFINED";
 
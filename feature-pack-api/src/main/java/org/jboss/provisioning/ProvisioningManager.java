@@ -29,12 +29,15 @@ import javax.xml.stream.XMLStreamException;
 
 import org.jboss.provisioning.config.FeaturePackConfig;
 import org.jboss.provisioning.config.ProvisioningConfig;
+import org.jboss.provisioning.runtime.FeaturePackLayoutCache;
+import org.jboss.provisioning.runtime.ProvisioningPlan;
 import org.jboss.provisioning.runtime.ProvisioningRuntime;
 import org.jboss.provisioning.runtime.ProvisioningRuntimeBuilder;
 import org.jboss.provisioning.state.ProvisionedFeaturePack;
 import org.jboss.provisioning.state.ProvisionedState;
 import org.jboss.provisioning.util.IoUtils;
 import org.jboss.provisioning.util.PathsUtils;
+import org.jboss.provisioning.util.WorkDirCleaner;
 import org.jboss.provisioning.xml.XmlParsers;
 
 /**
@@ -49,6 +52,7 @@ public class ProvisioningManager {
         private Path installationHome;
         private ArtifactRepositoryManager artifactResolver;
         private MessageWriter messageWriter;
+        private FeaturePackLayoutCache layoutCache;
 
         private Builder() {
         }
@@ -73,6 +77,19 @@ public class ProvisioningManager {
             return this;
         }
 
+        /**
+         * Sets the cache of the unpacked feature-pack archives. If not set,
+         * the cache configured with {@value FeaturePackLayoutCache#LAYOUT_CACHE}
+         * system property is used, if any.
+         *
+         * @param layoutCache  feature-pack layout cache
+         * @return  this builder
+         */
+        public Builder setLayoutCache(FeaturePackLayoutCache layoutCache) {
+            this.layoutCache = layoutCache;
+            return this;
+        }
+
         public ProvisioningManager build() {
             return new ProvisioningManager(this);
         }
@@ -86,6 +103,8 @@ public class ProvisioningManager {
     private final Path installationHome;
     private final ArtifactRepositoryManager artifactResolver;
     private final MessageWriter messageWriter;
+    private final FeaturePackLayoutCache layoutCache;
+    private final ReferenceInstallationCache referenceCache = ReferenceInstallationCache.getConfigured();
 
     private ProvisioningConfig provisioningConfig;
 
@@ -94,6 +113,7 @@ public class ProvisioningManager {
         this.installationHome = builder.installationHome;
         this.artifactResolver = builder.artifactResolver;
         this.messageWriter = builder.messageWriter == null ? DefaultMessageWriter.getDefaultInstance() : builder.messageWriter;
+        this.layoutCache = builder.layoutCache;
     }
 
     /**
@@ -292,6 +312,9 @@ public class ProvisioningManager {
                 .setConfig(provisioningConfig)
                 .setEncoding(encoding)
                 .setInstallDir(installationHome);
+        if(layoutCache != null) {
+            builder.setLayoutCache(layoutCache);
+        }
         if(uninstallGa != null) {
             builder.uninstall(uninstallGa);
         }
@@ -308,6 +331,35 @@ public class ProvisioningManager {
         provision(readProvisioningConfig(provisioningXml));
     }
 
+    /**
+     * Resolves the desired installation specification and describes what
+     * provisioning it would install without copying any content or executing
+     * the provisioning plugins. The installation is not modified.
+     *
+     * @param provisioningConfig  the desired installation specification
+     * @return  provisioning plan
+     * @throws ProvisioningException  in case the specification could not be resolved
+     */
+    public ProvisioningPlan plan(ProvisioningConfig provisioningConfig) throws ProvisioningException {
+        if(artifactResolver == null) {
+            throw new ProvisioningException("Artifact resolver has not been provided.");
+        }
+        try(ProvisioningRuntime runtime = getRuntime(provisioningConfig, null)) {
+            return ProvisioningPlan.of(runtime);
+        }
+    }
+
+    /**
+     * Describes what provisioning of the state described in the specified XML file would install.
+     *
+     * @param provisioningXml  file describing the desired provisioned state
+     * @return  provisioning plan
+     * @throws ProvisioningException  in case the specification could not be resolved
+     */
+    public ProvisioningPlan plan(Path provisioningXml) throws ProvisioningException {
+        return plan(readProvisioningConfig(provisioningXml));
+    }
+
     /**
      * Exports the current provisioning configuration of the installation to
      * the specified file.
@@ -343,37 +395,7 @@ public class ProvisioningManager {
         }
         Path tempInstallationDir = IoUtils.createRandomTmpDir();
         try {
-            ProvisioningManager reference = new ProvisioningManager(ProvisioningManager.builder()
-                    .setArtifactResolver(this.getArtifactResolver())
-                    .setEncoding(this.getEncoding())
-                    .setInstallationHome(tempInstallationDir)
-                    .setMessageWriter(new MessageWriter() {
-                        @Override
-                        public void verbose(Throwable cause, CharSequence message) {
-                            return;
-                        }
-
-                        @Override
-                        public void print(Throwable cause, CharSequence message) {
-                            messageWriter.print(cause, message);
-                        }
-
-                        @Override
-                        public void error(Throwable cause, CharSequence message) {
-                            messageWriter.error(cause, message);
-                        }
-
-                        @Override
-                        public boolean isVerboseEnabled() {
-                            return false;
-                        }
-
-                        @Override
-                        public void close() throws Exception {
-                            return;
-                        }
-                    }));
-            reference.provision(configuration);
+            provisionReference(configuration, tempInstallationDir);
             try (ProvisioningRuntime runtime = ProvisioningRuntimeBuilder.newInstance(messageWriter)
                     .setArtifactResolver(this.getArtifactResolver())
                     .setConfig(configuration)
@@ -392,7 +414,7 @@ public class ProvisioningManager {
                 messageWriter.error(e, e.getMessage());
             }
         } finally {
-            IoUtils.recursiveDelete(tempInstallationDir);
+            WorkDirCleaner.getInstance().delete(tempInstallationDir, messageWriter);
         }
     }
 
@@ -401,69 +423,8 @@ public class ProvisioningManager {
         Path tempInstallationDir = IoUtils.createRandomTmpDir();
         Path stagedDir = IoUtils.createRandomTmpDir();
         try {
-            ProvisioningManager reference = new ProvisioningManager(ProvisioningManager.builder()
-                    .setArtifactResolver(this.getArtifactResolver())
-                    .setEncoding(this.getEncoding())
-                    .setInstallationHome(tempInstallationDir)
-                    .setMessageWriter(new MessageWriter() {
-                        @Override
-                        public void verbose(Throwable cause, CharSequence message) {
-                            return;
-                        }
-
-                        @Override
-                        public void print(Throwable cause, CharSequence message) {
-                            messageWriter.print(cause, message);
-                        }
-
-                        @Override
-                        public void error(Throwable cause, CharSequence message) {
-                            messageWriter.error(cause, message);
-                        }
-
-                        @Override
-                        public boolean isVerboseEnabled() {
-                            return false;
-                        }
-
-                        @Override
-                        public void close() throws Exception {
-                            return;
-                        }
-                    }));
-            reference.provision(configuration);
-            Files.createDirectories(stagedDir);
-            reference = new ProvisioningManager(ProvisioningManager.builder()
-                    .setArtifactResolver(this.getArtifactResolver())
-                    .setEncoding(this.getEncoding())
-                    .setInstallationHome(stagedDir)
-                    .setMessageWriter(new MessageWriter() {
-                        @Override
-                        public void verbose(Throwable cause, CharSequence message) {
-                            return;
-                        }
-
-                        @Override
-                        public void print(Throwable cause, CharSequence message) {
-                            messageWriter.print(cause, message);
-                        }
-
-                        @Override
-                        public void error(Throwable cause, CharSequence message) {
-                            messageWriter.error(cause, message);
-                        }
-
-                        @Override
-                        public boolean isVerboseEnabled() {
-                            return false;
-                        }
-
-                        @Override
-                        public void close() throws Exception {
-                            return;
-                        }
-                    }));
-            reference.provision(ProvisioningConfig.builder().addFeaturePackDep(FeaturePackConfig.forGav(fpGav)).build());
+            provisionReference(configuration, tempInstallationDir);
+            provisionReference(ProvisioningConfig.builder().addFeaturePackDep(FeaturePackConfig.forGav(fpGav)).build(), stagedDir);
             try (ProvisioningRuntime runtime = ProvisioningRuntimeBuilder.newInstance(messageWriter)
                     .setArtifactResolver(this.getArtifactResolver())
                     .setConfig(configuration)
@@ -479,7 +440,63 @@ public class ProvisioningManager {
                 ProvisioningRuntime.upgrade(runtime, installationHome);
             }
         } finally {
-            IoUtils.recursiveDelete(tempInstallationDir);
+            WorkDirCleaner.getInstance().delete(tempInstallationDir, messageWriter);
+            WorkDirCleaner.getInstance().delete(stagedDir, messageWriter);
+        }
+    }
+
+    /**
+     * Provisions a pristine installation of the configuration to compare
+     * the current installation against. If the reference installation cache
+     * is enabled, the installation is copied from the cache when possible
+     * and otherwise stored in the cache once provisioned.
+     *
+     * @param config  provisioning configuration
+     * @param home  the directory to provision the reference installation into
+     * @throws ProvisioningException  in case provisioning failed
+     */
+    private void provisionReference(ProvisioningConfig config, Path home) throws ProvisioningException {
+        String key = null;
+        if(referenceCache != null && config != null) {
+            key = referenceCache.key(config);
+            if(referenceCache.restore(key, home, artifactResolver, messageWriter)) {
+                return;
+            }
+        }
+        final ProvisioningManager reference = new ProvisioningManager(ProvisioningManager.builder()
+                .setArtifactResolver(this.getArtifactResolver())
+                .setEncoding(this.getEncoding())
+                .setInstallationHome(home)
+                .setLayoutCache(layoutCache)
+                .setMessageWriter(new MessageWriter() {
+                    @Override
+                    public void verbose(Throwable cause, CharSequence message) {
+                        return;
+                    }
+
+                    @Override
+                    public void print(Throwable cause, CharSequence message) {
+                        messageWriter.print(cause, message);
+                    }
+
+                    @Override
+                    public void error(Throwable cause, CharSequence message) {
+                        messageWriter.error(cause, message);
+                    }
+
+                    @Override
+                    public boolean isVerboseEnabled() {
+                        return false;
+                    }
+
+                    @Override
+                    public void close() throws Exception {
+                        return;
+                    }
+                }));
+        reference.provision(config);
+        if(key != null) {
+            referenceCache.store(key, home, reference.getProvisionedState(), artifactResolver, messageWriter);
         }
     }
 
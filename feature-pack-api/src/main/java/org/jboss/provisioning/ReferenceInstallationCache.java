@@ -0,0 +1,320 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.provisioning;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.jboss.provisioning.config.ProvisioningConfig;
+import org.jboss.provisioning.state.ProvisionedFeaturePack;
+import org.jboss.provisioning.state.ProvisionedState;
+import org.jboss.provisioning.util.HashUtils;
+import org.jboss.provisioning.util.IoUtils;
+import org.jboss.provisioning.util.LinkedArtifacts;
+import org.jboss.provisioning.xml.ProvisioningXmlWriter;
+
+/**
+ * Cache of the pristine installations provisioned as references to compare
+ * customized installations against when their changes are exported or when they
+ * are upgraded.
+ * <p>
+ * An entry is keyed by the hash of the XML form of the provisioning configuration
+ * and contains a copy of the installation provisioned from the configuration
+ * and {@value #ARTIFACTS_TXT} listing the GAVs of the provisioned feature-packs
+ * with the hashes of their archives. An entry is used only if none of the
+ * feature-pack archives has changed since the entry was stored (e.g. a new
+ * SNAPSHOT has been installed), otherwise it is replaced. The hashes of the archives
+ * are remembered for the lifetime of the process as long as the size and the last
+ * modification time of the archives do not change.
+ * <p>
+ * The cache is enabled by setting the {@value #REFERENCE_CACHE} system property
+ * to the directory the entries should be stored in.
+ * <p>
+ * The last modification time of an entry is updated, at most once a day, when the entry
+ * is restored. Each time an entry is stored, the entries that have not been restored for
+ * the number of days set in the {@value #REFERENCE_CACHE_MAX_AGE} system property,
+ * {@value #DEFAULT_MAX_AGE_DAYS} by default, are removed.
+ */
+class ReferenceInstallationCache {
+
+    static final String REFERENCE_CACHE = "pmReferenceCache";
+    static final String REFERENCE_CACHE_MAX_AGE = "pmReferenceCacheMaxAge";
+
+    private static final String ARTIFACTS_TXT = "artifacts.txt";
+    private static final String INSTALLATION = "installation";
+    private static final long DEFAULT_MAX_AGE_DAYS = 30;
+    private static final long TOUCH_INTERVAL = TimeUnit.DAYS.toMillis(1);
+    private static final String EVICTED = ".evicted.";
+
+    private static final Map<Path, ReferenceInstallationCache> caches = new HashMap<>();
+
+    /**
+     * Returns the cache configured with the {@value #REFERENCE_CACHE} system property
+     * or null if the property is not set.
+     *
+     * @return  configured cache or null
+     */
+    static ReferenceInstallationCache getConfigured() {
+        final String dir = System.getProperty(REFERENCE_CACHE);
+        if(dir == null || dir.isEmpty()) {
+            return null;
+        }
+        return getInstance(Paths.get(dir).toAbsolutePath().normalize());
+    }
+
+    private static synchronized ReferenceInstallationCache getInstance(Path cacheDir) {
+        ReferenceInstallationCache cache = caches.get(cacheDir);
+        if(cache == null) {
+            cache = new ReferenceInstallationCache(cacheDir);
+            caches.put(cacheDir, cache);
+        }
+        return cache;
+    }
+
+    private static class ArchiveHash {
+        final long size;
+        final long lastModified;
+        final String hash;
+
+        ArchiveHash(long size, long lastModified, String hash) {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.hash = hash;
+        }
+    }
+
+    private final Path cacheDir;
+    private final long maxAge;
+    private final Map<Path, ArchiveHash> hashes = new HashMap<>();
+
+    ReferenceInstallationCache(Path cacheDir) {
+        this.cacheDir = cacheDir;
+        long maxAgeDays = DEFAULT_MAX_AGE_DAYS;
+        final String maxAgeProp = System.getProperty(REFERENCE_CACHE_MAX_AGE);
+        if(maxAgeProp != null) {
+            try {
+                maxAgeDays = Long.parseLong(maxAgeProp);
+            } catch(NumberFormatException e) {
+                // the default applies
+            }
+        }
+        this.maxAge = TimeUnit.DAYS.toMillis(maxAgeDays);
+    }
+
+    /**
+     * Computes the key of the installation provisioned from the configuration.
+     *
+     * @param config  provisioning configuration
+     * @return  the key
+     * @throws ProvisioningException  in case the configuration could not be serialized
+     */
+    String key(ProvisioningConfig config) throws ProvisioningException {
+        final StringWriter writer = new StringWriter();
+        try {
+            ProvisioningXmlWriter.getInstance().write(config, writer);
+            return HashUtils.hash(writer.toString());
+        } catch (XMLStreamException | IOException e) {
+            throw new ProvisioningException("Failed to compute the key of the provisioning configuration", e);
+        }
+    }
+
+    /**
+     * Copies the cached installation into the target directory.
+     *
+     * @param key  installation key
+     * @param target  target directory
+     * @param artifactResolver  artifact resolver
+     * @param messageWriter  message writer
+     * @return  true if a valid entry was found and copied, otherwise false
+     */
+    boolean restore(String key, Path target, ArtifactRepositoryManager artifactResolver, MessageWriter messageWriter) {
+        final Path entry = cacheDir.resolve(key);
+        if(!Files.isDirectory(entry)) {
+            return false;
+        }
+        try {
+            if(!isValid(entry, artifactResolver)) {
+                messageWriter.verbose("Reference installation %s is out of date", key);
+                IoUtils.recursiveDelete(entry);
+                return false;
+            }
+            touch(entry);
+            final Path installation = entry.resolve(INSTALLATION);
+            copy(installation, target);
+            messageWriter.verbose("Restored reference installation %s", key);
+            return true;
+        } catch (IOException | ProvisioningException e) {
+            messageWriter.verbose("Failed to restore reference installation %s: %s", key, e.getLocalizedMessage());
+            IoUtils.recursiveDelete(target);
+            return false;
+        }
+    }
+
+    /**
+     * Stores a copy of the installation under the key. A failure to store
+     * the installation is not fatal and is reported as a verbose message.
+     *
+     * @param key  installation key
+     * @param installation  the installation provisioned from the configuration
+     * @param state  provisioned state of the installation
+     * @param artifactResolver  artifact resolver
+     * @param messageWriter  message writer
+     */
+    void store(String key, Path installation, ProvisionedState state, ArtifactRepositoryManager artifactResolver, MessageWriter messageWriter) {
+        final Path entry = cacheDir.resolve(key);
+        final Path tmp = cacheDir.resolve(key + "." + UUID.randomUUID());
+        try {
+            if(state == null) {
+                return;
+            }
+            Files.createDirectories(tmp);
+            try(BufferedWriter writer = Files.newBufferedWriter(tmp.resolve(ARTIFACTS_TXT))) {
+                for(ProvisionedFeaturePack fp : state.getFeaturePacks()) {
+                    final ArtifactCoords.Gav gav = fp.getGav();
+                    writer.write(gav.getGroupId());
+                    writer.write('|');
+                    writer.write(gav.getArtifactId());
+                    writer.write('|');
+                    writer.write(gav.getVersion());
+                    writer.write('|');
+                    writer.write(hash(artifactResolver.resolve(gav.toArtifactCoords())));
+                    writer.newLine();
+                }
+            }
+            copy(installation, tmp.resolve(INSTALLATION));
+            if(Files.exists(entry)) {
+                // an out of date entry
+                IoUtils.recursiveDelete(entry);
+            }
+            Files.move(tmp, entry, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException | DirectoryNotEmptyException e) {
+            // stored concurrently
+        } catch (IOException | ProvisioningException e) {
+            // depending on the file system, moving onto a non-empty directory
+            // may fail with a generic exception
+            if(!Files.isDirectory(entry)) {
+                messageWriter.verbose("Failed to cache reference installation %s: %s", key, e.getLocalizedMessage());
+            }
+        } finally {
+            IoUtils.recursiveDelete(tmp);
+        }
+        evictExpired();
+    }
+
+    private static void touch(Path entry) {
+        try {
+            final long now = System.currentTimeMillis();
+            if(now - Files.getLastModifiedTime(entry).toMillis() > TOUCH_INTERVAL) {
+                Files.setLastModifiedTime(entry, FileTime.fromMillis(now));
+            }
+        } catch (IOException e) {
+            // the entry may be evicted earlier than necessary
+        }
+    }
+
+    /**
+     * Removes the entries, and the leftovers of interrupted stores, that have not
+     * been restored for longer than the max age. An entry is renamed before it is deleted,
+     * so that other processes never restore a partially deleted entry.
+     */
+    private void evictExpired() {
+        final long expired = System.currentTimeMillis() - maxAge;
+        try(DirectoryStream<Path> stream = Files.newDirectoryStream(cacheDir)) {
+            for(Path p : stream) {
+                try {
+                    if(Files.getLastModifiedTime(p).toMillis() >= expired) {
+                        continue;
+                    }
+                    Path evicted = p;
+                    if(!p.getFileName().toString().contains(EVICTED)) {
+                        evicted = cacheDir.resolve(p.getFileName() + EVICTED + UUID.randomUUID());
+                        Files.move(p, evicted, StandardCopyOption.ATOMIC_MOVE);
+                    }
+                    IoUtils.recursiveDelete(evicted);
+                } catch (IOException e) {
+                    // removed or restored concurrently
+                }
+            }
+        } catch (IOException e) {
+            // the entries will be evicted next time
+        }
+    }
+
+    private synchronized String hash(Path archive) throws IOException {
+        final BasicFileAttributes attrs = Files.readAttributes(archive, BasicFileAttributes.class);
+        ArchiveHash hash = hashes.get(archive);
+        if(hash != null && hash.size == attrs.size() && hash.lastModified == attrs.lastModifiedTime().toMillis()) {
+            return hash.hash;
+        }
+        hash = new ArchiveHash(attrs.size(), attrs.lastModifiedTime().toMillis(), HashUtils.hashFile(archive));
+        hashes.put(archive, hash);
+        return hash.hash;
+    }
+
+    private boolean isValid(Path entry, ArtifactRepositoryManager artifactResolver) throws IOException, ProvisioningException {
+        final Path txt = entry.resolve(ARTIFACTS_TXT);
+        if(!Files.exists(txt) || !Files.isDirectory(entry.resolve(INSTALLATION))) {
+            return false;
+        }
+        try(BufferedReader reader = Files.newBufferedReader(txt)) {
+            String line = reader.readLine();
+            while(line != null) {
+                final String[] parts = line.split("\\|");
+                if(parts.length != 4) {
+                    return false;
+                }
+                final Path artifact = artifactResolver.resolve(ArtifactCoords.newGav(parts[0], parts[1], parts[2]).toArtifactCoords());
+                if(!parts[3].equals(hash(artifact))) {
+                    return false;
+                }
+                line = reader.readLine();
+            }
+        }
+        return true;
+    }
+
+    private static void copy(Path source, Path target) throws IOException, ProvisioningException {
+        if(Files.exists(target)) {
+            IoUtils.recursiveDelete(target);
+        }
+        // preserve the links of the installation
+        final LinkedArtifacts linkedArtifacts = LinkedArtifacts.read(source);
+        if(linkedArtifacts.isEmpty()) {
+            IoUtils.copy(source, target);
+        } else {
+            linkedArtifacts.copyInstallation(source, target);
+            linkedArtifacts.write(target);
+        }
+    }
+}
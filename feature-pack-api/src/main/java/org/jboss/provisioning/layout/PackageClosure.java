@@ -0,0 +1,203 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.provisioning.layout;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.jboss.provisioning.Constants;
+import org.jboss.provisioning.Errors;
+import org.jboss.provisioning.spec.PackageDependencySpec;
+import org.jboss.provisioning.spec.PackageSpec;
+
+/**
+ * Transitive closure of the dependencies of a package on other packages
+ * of the same feature-pack, computed when the feature-pack is built.
+ * <p>
+ * The closure lists the packages in the order the dependencies are walked
+ * when the package is resolved (depth first, each package visited once)
+ * and, for each of them, the index in the list following the dependencies
+ * first reached through it. This allows to skip the dependencies of a package
+ * that has already been resolved and to add the packages in the order
+ * they would be added by the walk.
+ * <p>
+ * A closure is recorded only if all the transitive dependencies of the package,
+ * including the optional ones, are available in the feature-pack and none
+ * of them depends on packages of other feature-packs. The closure is stored
+ * in {@value Constants#PACKAGE_CLOSURE_TXT} in the package directory,
+ * one dependency per line as the name followed by '|' and the index.
+ */
+public class PackageClosure {
+
+    /**
+     * Computes the closures of the packages and stores them in the package directories.
+     *
+     * @param packages  all the packages of the feature-pack
+     * @param packagesDir  packages directory of the feature-pack
+     * @throws IOException  in case a closure could not be stored
+     */
+    public static void store(Collection<PackageSpec> packages, Path packagesDir) throws IOException {
+        final Map<String, PackageSpec> specs = new HashMap<>(packages.size());
+        for(PackageSpec spec : packages) {
+            specs.put(spec.getName(), spec);
+        }
+        for(PackageSpec spec : packages) {
+            final Path txt = packagesDir.resolve(spec.getName()).resolve(Constants.PACKAGE_CLOSURE_TXT);
+            final PackageClosure closure = compute(spec, specs);
+            if(closure == null || closure.size() == 0) {
+                // a package directory may be left from a previous build
+                Files.deleteIfExists(txt);
+                continue;
+            }
+            try(BufferedWriter writer = Files.newBufferedWriter(txt)) {
+                for(int i = 0; i < closure.names.length; ++i) {
+                    writer.write(closure.names[i]);
+                    writer.write('|');
+                    writer.write(String.valueOf(closure.ends[i]));
+                    writer.newLine();
+                }
+            } catch (IOException e) {
+                throw new IOException(Errors.writeFile(txt), e);
+            }
+        }
+    }
+
+    /**
+     * Reads the closure of the package.
+     *
+     * @param pkgDir  package directory
+     * @return  the closure of the package or null if it was not recorded
+     * @throws IOException  in case the closure could not be read
+     */
+    public static PackageClosure read(Path pkgDir) throws IOException {
+        final Path txt = pkgDir.resolve(Constants.PACKAGE_CLOSURE_TXT);
+        if(!Files.exists(txt)) {
+            return null;
+        }
+        final List<String> lines = new ArrayList<>();
+        try(BufferedReader reader = Files.newBufferedReader(txt)) {
+            String line = reader.readLine();
+            while(line != null) {
+                if(!line.isEmpty()) {
+                    lines.add(line);
+                }
+                line = reader.readLine();
+            }
+        }
+        final String[] names = new String[lines.size()];
+        final int[] ends = new int[names.length];
+        for(int i = 0; i < names.length; ++i) {
+            final String line = lines.get(i);
+            final int sep = line.lastIndexOf('|');
+            if(sep <= 0) {
+                throw new IOException("Unexpected line format in " + txt + ": " + line);
+            }
+            names[i] = line.substring(0, sep);
+            try {
+                ends[i] = Integer.parseInt(line.substring(sep + 1));
+            } catch(NumberFormatException e) {
+                throw new IOException("Unexpected line format in " + txt + ": " + line, e);
+            }
+            if(ends[i] <= i || ends[i] > names.length) {
+                throw new IOException("Unexpected line format in " + txt + ": " + line);
+            }
+        }
+        return new PackageClosure(names, ends);
+    }
+
+    private static PackageClosure compute(PackageSpec root, Map<String, PackageSpec> specs) {
+        final List<String> names = new ArrayList<>();
+        final List<Integer> ends = new ArrayList<>();
+        final Set<String> visited = new HashSet<>();
+        visited.add(root.getName());
+        if(!walk(root, specs, visited, names, ends)) {
+            return null;
+        }
+        final int[] endsArr = new int[ends.size()];
+        for(int i = 0; i < endsArr.length; ++i) {
+            endsArr[i] = ends.get(i);
+        }
+        return new PackageClosure(names.toArray(new String[names.size()]), endsArr);
+    }
+
+    private static boolean walk(PackageSpec spec, Map<String, PackageSpec> specs, Set<String> visited, List<String> names, List<Integer> ends) {
+        if(spec.hasExternalPackageDeps()) {
+            return false;
+        }
+        if(!spec.hasLocalPackageDeps()) {
+            return true;
+        }
+        for(PackageDependencySpec dep : spec.getLocalPackageDeps()) {
+            final PackageSpec depSpec = specs.get(dep.getName());
+            if(depSpec == null) {
+                return false;
+            }
+            if(!visited.add(dep.getName())) {
+                continue;
+            }
+            final int i = names.size();
+            names.add(dep.getName());
+            ends.add(-1);
+            if(!walk(depSpec, specs, visited, names, ends)) {
+                return false;
+            }
+            ends.set(i, names.size());
+        }
+        return true;
+    }
+
+    private final String[] names;
+    private final int[] ends;
+
+    private PackageClosure(String[] names, int[] ends) {
+        this.names = names;
+        this.ends = ends;
+    }
+
+    /**
+     * @return  the number of the packages in the closure, not including the package itself
+     */
+    public int size() {
+        return names.length;
+    }
+
+    /**
+     * @param i  index of the dependency
+     * @return  the name of the dependency
+     */
+    public String getName(int i) {
+        return names[i];
+    }
+
+    /**
+     * @param i  index of the dependency
+     * @return  the index following the dependencies first reached through the dependency
+     */
+    public int getEnd(int i) {
+        return ends[i];
+    }
+}
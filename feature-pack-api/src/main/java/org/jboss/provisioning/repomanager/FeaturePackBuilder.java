@@ -23,6 +23,7 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -37,12 +38,14 @@ import org.jboss.provisioning.ProvisioningDescriptionException;
 import org.jboss.provisioning.config.FeaturePackConfig;
 import org.jboss.provisioning.config.ConfigModel;
 import org.jboss.provisioning.config.FeatureGroup;
+import org.jboss.provisioning.layout.PackageClosure;
 import org.jboss.provisioning.plugin.ProvisioningPlugin;
 import org.jboss.provisioning.repomanager.fs.FsTaskContext;
 import org.jboss.provisioning.repomanager.fs.FsTaskList;
 import org.jboss.provisioning.spec.FeaturePackSpec;
 import org.jboss.provisioning.spec.FeatureSpec;
 import org.jboss.provisioning.spec.PackageSpec;
+import org.jboss.provisioning.util.ArchiveSink;
 import org.jboss.provisioning.util.IoUtils;
 import org.jboss.provisioning.util.PmCollections;
 import org.jboss.provisioning.util.ZipUtils;
@@ -74,6 +77,7 @@ public class FeaturePackBuilder {
     private Map<String, FeatureSpec> specs = Collections.emptyMap();
     private Map<String, FeatureGroup> featureGroups = Collections.emptyMap();
     private FsTaskList tasks;
+    private Path layoutDir;
 
 
     protected FeaturePackBuilder(FeaturePackInstaller repo) {
@@ -233,59 +237,79 @@ public class FeaturePackBuilder {
         return this;
     }
 
+    /**
+     * Lays out the content of the feature-pack in the directory before archiving it,
+     * which is useful for debugging. By default the content is written into the archive as it is produced.
+     *
+     * @param layoutDir  the directory to lay out the content in
+     * @return  this builder
+     */
+    public FeaturePackBuilder setLayoutDir(Path layoutDir) {
+        this.layoutDir = layoutDir;
+        return this;
+    }
+
     public FeaturePackSpec build(ArtifactRepositoryManager manager) throws ProvisioningDescriptionException {
-        final Path fpWorkDir = IoUtils.createRandomTmpDir();
+        final Path tmpDir = IoUtils.createRandomTmpDir();
         final FeaturePackSpec fpSpec;
         try {
-            for (PackageBuilder pkg : pkgs) {
-                final PackageSpec pkgDescr = pkg.build(fpWorkDir);
-                if(pkg.isDefault()) {
-                    fpBuilder.addDefaultPackage(pkgDescr.getName());
+            final Path archive = tmpDir.resolve("feature-pack.zip");
+            try (ArchiveSink sink = layoutDir == null ? ArchiveSink.newArchive(archive) : ArchiveSink.newExploded(layoutDir, archive)) {
+                final Path fpWorkDir = sink.getRoot();
+                final List<PackageSpec> pkgSpecs = new ArrayList<>(pkgs.size());
+                for (PackageBuilder pkg : pkgs) {
+                    final PackageSpec pkgDescr = pkg.build(fpWorkDir);
+                    if(pkg.isDefault()) {
+                        fpBuilder.addDefaultPackage(pkgDescr.getName());
+                    }
+                    pkgSpecs.add(pkgDescr);
                 }
-            }
-
-            if(!specs.isEmpty()) {
-                final Path featuresDir = fpWorkDir.resolve(Constants.FEATURES);
-                final FeatureSpecXmlWriter specWriter = FeatureSpecXmlWriter.getInstance();
-                for(FeatureSpec spec : specs.values()) {
-                    final Path featureDir = featuresDir.resolve(spec.getName());
-                    ensureDir(featureDir);
-                    specWriter.write(spec, featureDir.resolve(Constants.SPEC_XML));
+                PackageClosure.store(pkgSpecs, fpWorkDir.resolve(Constants.PACKAGES));
+
+                if(!specs.isEmpty()) {
+                    final Path featuresDir = fpWorkDir.resolve(Constants.FEATURES);
+                    final FeatureSpecXmlWriter specWriter = FeatureSpecXmlWriter.getInstance();
+                    for(FeatureSpec spec : specs.values()) {
+                        final Path featureDir = featuresDir.resolve(spec.getName());
+                        ensureDir(featureDir);
+                        specWriter.write(spec, featureDir.resolve(Constants.SPEC_XML));
+                    }
                 }
-            }
 
-            if(!featureGroups.isEmpty()) {
-                final Path fgsDir = fpWorkDir.resolve(Constants.FEATURE_GROUPS);
-                ensureDir(fgsDir);
-                final FeatureGroupXmlWriter fgWriter = FeatureGroupXmlWriter.getInstance();
-                for(FeatureGroup fg : featureGroups.values()) {
-                    fgWriter.write(fg, fgsDir.resolve(fg.getName() + ".xml"));
+                if(!featureGroups.isEmpty()) {
+                    final Path fgsDir = fpWorkDir.resolve(Constants.FEATURE_GROUPS);
+                    ensureDir(fgsDir);
+                    final FeatureGroupXmlWriter fgWriter = FeatureGroupXmlWriter.getInstance();
+                    for(FeatureGroup fg : featureGroups.values()) {
+                        fgWriter.write(fg, fgsDir.resolve(fg.getName() + ".xml"));
+                    }
                 }
-            }
 
-            if(!classes.isEmpty() || !plugins.isEmpty()) {
-                addPlugins(fpWorkDir);
-            }
-            fpSpec = fpBuilder.build();
-            final FeaturePackXmlWriter writer = FeaturePackXmlWriter.getInstance();
-            writer.write(fpSpec, fpWorkDir.resolve(Constants.FEATURE_PACK_XML));
+                if(!classes.isEmpty() || !plugins.isEmpty()) {
+                    addPlugins(fpWorkDir);
+                }
+                fpSpec = fpBuilder.build();
+                final FeaturePackXmlWriter writer = FeaturePackXmlWriter.getInstance();
+                writer.write(fpSpec, fpWorkDir.resolve(Constants.FEATURE_PACK_XML));
 
-            if(tasks != null && !tasks.isEmpty()) {
-                tasks.execute(FsTaskContext.builder().setTargetRoot(fpWorkDir.resolve(Constants.RESOURCES)).build());
+                if(tasks != null && !tasks.isEmpty()) {
+                    tasks.execute(FsTaskContext.builder().setTargetRoot(fpWorkDir.resolve(Constants.RESOURCES)).build());
+                }
             }
-            manager.install(fpSpec.getGav().toArtifactCoords(), fpWorkDir);
+            manager.install(fpSpec.getGav().toArtifactCoords(), archive);
             return fpSpec;
         } catch(ProvisioningDescriptionException e) {
             throw e;
         } catch (Exception e) {
             throw new IllegalStateException(e);
         } finally {
-            IoUtils.recursiveDelete(fpWorkDir);
+            IoUtils.recursiveDelete(tmpDir);
         }
     }
 
     private void addPlugins(Path fpDir) throws IOException {
         final Path tmpDir = IoUtils.createRandomTmpDir();
+        final Path pluginJarDir = IoUtils.createRandomTmpDir();
         try {
             byte[] bytes = new byte[65536];
             for(Class<?> cls : classes) {
@@ -332,14 +356,18 @@ public class FeaturePackBuilder {
 
             final Path pluginsDir = fpDir.resolve(Constants.PLUGINS);
             ensureDir(pluginsDir);
-            ZipUtils.zip(tmpDir, pluginsDir.resolve(pluginFileName));
+            // the plugin jar is created outside of the feature-pack since the feature-pack may be an archive itself
+            final Path pluginJar = pluginJarDir.resolve(pluginFileName);
+            ZipUtils.zip(tmpDir, pluginJar);
+            Files.copy(pluginJar, pluginsDir.resolve(pluginFileName));
             if(!plugins.isEmpty()) {
                 for(Path plugin : plugins) {
-                    Files.copy(plugin, pluginsDir.resolve(plugin.getFileName()));
+                    Files.copy(plugin, pluginsDir.resolve(plugin.getFileName().toString()));
                 }
             }
         } finally {
             IoUtils.recursiveDelete(tmpDir);
+            IoUtils.recursiveDelete(pluginJarDir);
         }
     }
 
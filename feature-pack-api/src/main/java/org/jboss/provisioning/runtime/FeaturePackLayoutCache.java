@@ -0,0 +1,266 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.provisioning.runtime;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.jboss.provisioning.Constants;
+import org.jboss.provisioning.Errors;
+import org.jboss.provisioning.ProvisioningDescriptionException;
+import org.jboss.provisioning.ProvisioningException;
+import org.jboss.provisioning.spec.FeaturePackSpec;
+import org.jboss.provisioning.util.HashUtils;
+import org.jboss.provisioning.util.IoUtils;
+import org.jboss.provisioning.util.ZipUtils;
+import org.jboss.provisioning.xml.FeaturePackXmlParser;
+
+/**
+ * Cache of unpacked feature-pack archives.
+ * <p>
+ * An archive is unpacked once into a directory named after the hash of its content
+ * and the directory is then used as the layout of the feature-pack by every provisioning
+ * operation instead of unpacking the archive into the work directory of the operation.
+ * The layouts are only read during provisioning, the resources and plugins of the
+ * feature-packs are copied into the work directory.
+ * <p>
+ * In addition, the cache remembers, for the lifetime of the process, the hashes
+ * of the archives (as long as their size and last modification time do not change)
+ * and the parsed feature-pack specs, which avoids re-reading the archives
+ * when the same process performs several provisioning operations.
+ * <p>
+ * The cache is enabled by setting the {@value #LAYOUT_CACHE} system property
+ * to the directory the layouts should be stored in.
+ * <p>
+ * The last modification time of a layout directory is updated, at most once a day,
+ * when the layout is used. Each time an archive is unpacked, the layouts that have
+ * not been used for the number of days set in the {@value #LAYOUT_CACHE_MAX_AGE}
+ * system property, {@value #DEFAULT_MAX_AGE_DAYS} by default, are removed.
+ */
+public class FeaturePackLayoutCache {
+
+    public static final String LAYOUT_CACHE = "pmLayoutCache";
+    public static final String LAYOUT_CACHE_MAX_AGE = "pmLayoutCacheMaxAge";
+
+    private static final int MAX_SPECS = 64;
+    private static final long DEFAULT_MAX_AGE_DAYS = 30;
+    private static final long TOUCH_INTERVAL = TimeUnit.DAYS.toMillis(1);
+    private static final String EVICTED = ".evicted.";
+
+    private static final Map<Path, FeaturePackLayoutCache> caches = new HashMap<>();
+
+    /**
+     * Returns the cache configured with the {@value #LAYOUT_CACHE} system property
+     * or null if the property is not set.
+     *
+     * @return  configured cache or null
+     */
+    public static FeaturePackLayoutCache getConfigured() {
+        final String dir = System.getProperty(LAYOUT_CACHE);
+        if(dir == null || dir.isEmpty()) {
+            return null;
+        }
+        return getInstance(Paths.get(dir).toAbsolutePath().normalize());
+    }
+
+    /**
+     * Creates a new cache that is not shared with the other users of the directory
+     * in this process. The caller is responsible for removing the directory.
+     *
+     * @param cacheDir  the directory to store the layouts in
+     * @return  new cache
+     */
+    public static FeaturePackLayoutCache newInstance(Path cacheDir) {
+        return new FeaturePackLayoutCache(cacheDir);
+    }
+
+    private static synchronized FeaturePackLayoutCache getInstance(Path cacheDir) {
+        FeaturePackLayoutCache cache = caches.get(cacheDir);
+        if(cache == null) {
+            cache = new FeaturePackLayoutCache(cacheDir);
+            caches.put(cacheDir, cache);
+        }
+        return cache;
+    }
+
+    private static class ArchiveHash {
+        final long size;
+        final long lastModified;
+        final String hash;
+
+        ArchiveHash(long size, long lastModified, String hash) {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.hash = hash;
+        }
+    }
+
+    private final Path cacheDir;
+    private final long maxAge;
+    private final Map<Path, ArchiveHash> hashes = new HashMap<>();
+    private final Map<String, FeaturePackSpec> specs = new LinkedHashMap<String, FeaturePackSpec>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, FeaturePackSpec> eldest) {
+            return size() > MAX_SPECS;
+        }
+    };
+
+    private FeaturePackLayoutCache(Path cacheDir) {
+        this.cacheDir = cacheDir;
+        long maxAgeDays = DEFAULT_MAX_AGE_DAYS;
+        final String maxAgeProp = System.getProperty(LAYOUT_CACHE_MAX_AGE);
+        if(maxAgeProp != null) {
+            try {
+                maxAgeDays = Long.parseLong(maxAgeProp);
+            } catch(NumberFormatException e) {
+                // the default applies
+            }
+        }
+        this.maxAge = TimeUnit.DAYS.toMillis(maxAgeDays);
+    }
+
+    /**
+     * Returns the directory the archive is unpacked in, unpacking it
+     * if it has not been unpacked yet.
+     *
+     * @param fpZip  feature-pack archive
+     * @return  the layout of the feature-pack
+     * @throws ProvisioningException  in case the archive could not be unpacked
+     */
+    Path getLayout(Path fpZip) throws ProvisioningException {
+        final Path layout = cacheDir.resolve(hash(fpZip));
+        if(Files.exists(layout)) {
+            touch(layout);
+            return layout;
+        }
+        final Path tmp = cacheDir.resolve(layout.getFileName() + "." + UUID.randomUUID());
+        try {
+            Files.createDirectories(cacheDir);
+            ZipUtils.unzip(fpZip, tmp);
+            Files.move(tmp, layout, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException | DirectoryNotEmptyException e) {
+            // unpacked concurrently
+        } catch (IOException e) {
+            // depending on the file system, moving onto a non-empty directory
+            // may fail with a generic exception
+            if(!Files.isDirectory(layout)) {
+                throw new ProvisioningException("Failed to unzip " + fpZip + " to " + layout, e);
+            }
+        } finally {
+            IoUtils.recursiveDelete(tmp);
+        }
+        evictExpired();
+        return layout;
+    }
+
+    private static void touch(Path layout) {
+        try {
+            final long now = System.currentTimeMillis();
+            if(now - Files.getLastModifiedTime(layout).toMillis() > TOUCH_INTERVAL) {
+                Files.setLastModifiedTime(layout, FileTime.fromMillis(now));
+            }
+        } catch (IOException e) {
+            // the layout may be evicted earlier than necessary
+        }
+    }
+
+    /**
+     * Removes the layouts, and the leftovers of interrupted unpacking, that have not
+     * been used for longer than the max age. A layout is renamed before it is deleted,
+     * so that other processes never see a partially deleted layout.
+     */
+    private void evictExpired() {
+        final long expired = System.currentTimeMillis() - maxAge;
+        try(DirectoryStream<Path> stream = Files.newDirectoryStream(cacheDir)) {
+            for(Path p : stream) {
+                try {
+                    if(Files.getLastModifiedTime(p).toMillis() >= expired) {
+                        continue;
+                    }
+                    Path evicted = p;
+                    if(!p.getFileName().toString().contains(EVICTED)) {
+                        evicted = cacheDir.resolve(p.getFileName() + EVICTED + UUID.randomUUID());
+                        Files.move(p, evicted, StandardCopyOption.ATOMIC_MOVE);
+                    }
+                    IoUtils.recursiveDelete(evicted);
+                } catch (IOException e) {
+                    // removed or used concurrently
+                }
+            }
+        } catch (IOException e) {
+            // the layouts will be evicted next time
+        }
+    }
+
+    /**
+     * Returns the spec of the feature-pack unpacked by {@link #getLayout(Path)}.
+     *
+     * @param layout  the layout of the feature-pack
+     * @return  feature-pack spec
+     * @throws ProvisioningException  in case the spec could not be parsed
+     */
+    synchronized FeaturePackSpec getSpec(Path layout) throws ProvisioningException {
+        final String hash = layout.getFileName().toString();
+        FeaturePackSpec spec = specs.get(hash);
+        if(spec != null) {
+            return spec;
+        }
+        final Path fpXml = layout.resolve(Constants.FEATURE_PACK_XML);
+        if (!Files.exists(fpXml)) {
+            throw new ProvisioningDescriptionException(Errors.pathDoesNotExist(fpXml));
+        }
+        try (BufferedReader reader = Files.newBufferedReader(fpXml)) {
+            spec = FeaturePackXmlParser.getInstance().parse(reader);
+        } catch (IOException | XMLStreamException e) {
+            throw new ProvisioningException(Errors.parseXml(fpXml), e);
+        }
+        specs.put(hash, spec);
+        return spec;
+    }
+
+    private synchronized String hash(Path fpZip) throws ProvisioningException {
+        try {
+            final BasicFileAttributes attrs = Files.readAttributes(fpZip, BasicFileAttributes.class);
+            ArchiveHash hash = hashes.get(fpZip);
+            if(hash != null && hash.size == attrs.size() && hash.lastModified == attrs.lastModifiedTime().toMillis()) {
+                return hash.hash;
+            }
+            hash = new ArchiveHash(attrs.size(), attrs.lastModifiedTime().toMillis(), HashUtils.hashFile(fpZip));
+            hashes.put(fpZip, hash);
+            return hash.hash;
+        } catch (IOException e) {
+            throw new ProvisioningException(Errors.hashCalculation(fpZip), e);
+        }
+    }
+}
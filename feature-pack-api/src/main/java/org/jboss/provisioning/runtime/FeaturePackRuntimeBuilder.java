@@ -48,6 +48,10 @@ class FeaturePackRuntimeBuilder {
     final Path dir;
     final FeaturePackSpec spec;
     boolean ordered;
+    /**
+     * Whether a package of the feature-pack has been resolved without some of its optional dependencies
+     */
+    boolean partiallyResolved;
     Map<String, ResolvedFeatureSpec> featureSpecs = null;
     private Map<String, FeatureGroup> fgSpecs = null;
 
@@ -17,12 +17,19 @@
 
 package org.jboss.provisioning.runtime;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 
+import javax.xml.stream.XMLStreamException;
+
 import org.jboss.provisioning.Constants;
+import org.jboss.provisioning.Errors;
 import org.jboss.provisioning.ProvisioningDescriptionException;
 import org.jboss.provisioning.spec.PackageSpec;
 import org.jboss.provisioning.state.ProvisionedPackage;
+import org.jboss.provisioning.xml.PackageXmlParser;
 
 /**
  *
@@ -31,10 +38,12 @@ import org.jboss.provisioning.state.ProvisionedPackage;
 public class PackageRuntime implements ProvisionedPackage {
 
     static class Builder {
+        final String name;
         final Path dir;
         PackageSpec spec;
 
         private Builder(String name, Path dir) {
+            this.name = name;
             this.dir = dir;
         }
 
@@ -47,21 +56,39 @@ public class PackageRuntime implements ProvisionedPackage {
         return new Builder(name, dir);
     }
 
-    private final PackageSpec spec;
+    private final String name;
+    private volatile PackageSpec spec;
     private final Path layoutDir;
 
     private PackageRuntime(Builder builder) {
+        this.name = builder.name;
         this.spec = builder.spec;
         this.layoutDir = builder.dir;
     }
 
+    /**
+     * Returns the spec of the package. The spec of a package resolved from the dependency
+     * closure recorded in the feature-pack is parsed on the first call.
+     *
+     * @return  package spec
+     */
     public PackageSpec getSpec() {
+        PackageSpec spec = this.spec;
+        if(spec == null) {
+            final Path pkgXml = layoutDir.resolve(Constants.PACKAGE_XML);
+            try(BufferedReader reader = Files.newBufferedReader(pkgXml)) {
+                spec = PackageXmlParser.getInstance().parse(reader);
+            } catch (IOException | XMLStreamException e) {
+                throw new IllegalStateException(Errors.parseXml(pkgXml), e);
+            }
+            this.spec = spec;
+        }
         return spec;
     }
 
     @Override
     public String getName() {
-        return spec.getName();
+        return name;
     }
 
     /**
@@ -0,0 +1,235 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.provisioning.runtime;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.jboss.provisioning.ArtifactCoords;
+import org.jboss.provisioning.Errors;
+import org.jboss.provisioning.ProvisioningException;
+import org.jboss.provisioning.plugin.ProvisionedConfigHandler;
+import org.jboss.provisioning.state.ProvisionedConfig;
+import org.jboss.provisioning.state.ProvisionedFeature;
+
+/**
+ * Describes what provisioning of a configuration would install: the feature-packs
+ * that have to be resolved, the packages of each feature-pack with the number
+ * of files and bytes of their content and the number of features of each config.
+ * <p>
+ * The plan is computed from a resolved provisioning runtime, i.e. without copying
+ * the content of the packages or executing the provisioning plugins. The numbers
+ * do not include the content generated by the plugins and the files of different
+ * packages installed at the same path are counted for each package.
+ * <p>
+ * Only the feature-pack artifacts are listed. The artifacts the plugins resolve
+ * and install while provisioning, e.g. the JBoss Modules artifacts the WildFly plugin
+ * resolves from the module.xml templates of the packages, are not known before
+ * the plugins are executed, so neither they nor their size are part of the plan.
+ * The XML form of the plan states this in a comment.
+ */
+public class ProvisioningPlan {
+
+    /**
+     * Computes the plan of the resolved provisioning runtime.
+     *
+     * @param runtime  resolved provisioning runtime
+     * @return  provisioning plan
+     * @throws ProvisioningException  in case the content of a package could not be read
+     */
+    public static ProvisioningPlan of(ProvisioningRuntime runtime) throws ProvisioningException {
+        final List<FeaturePackPlan> fps = new ArrayList<>(runtime.getFeaturePacks().size());
+        for(FeaturePackRuntime fp : runtime.getFeaturePacks()) {
+            final List<PackagePlan> packages = new ArrayList<>(fp.getPackages().size());
+            for(PackageRuntime pkg : fp.getPackages()) {
+                final long[] content = new long[2];
+                final Path contentDir = pkg.getContentDir();
+                if(Files.exists(contentDir)) {
+                    try {
+                        Files.walkFileTree(contentDir, new SimpleFileVisitor<Path>() {
+                            @Override
+                            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                                ++content[0];
+                                content[1] += attrs.size();
+                                return FileVisitResult.CONTINUE;
+                            }
+                        });
+                    } catch (IOException e) {
+                        throw new ProvisioningException(Errors.readDirectory(contentDir), e);
+                    }
+                }
+                packages.add(new PackagePlan(pkg.getName(), content[0], content[1]));
+            }
+            fps.add(new FeaturePackPlan(fp.getGav(), packages));
+        }
+
+        final List<ConfigPlan> configs;
+        if(runtime.hasConfigs()) {
+            configs = new ArrayList<>(runtime.getConfigs().size());
+            for(ProvisionedConfig config : runtime.getConfigs()) {
+                final int[] features = new int[1];
+                config.handle(new ProvisionedConfigHandler() {
+                    @Override
+                    public void nextFeature(ProvisionedFeature feature) {
+                        ++features[0];
+                    }
+                });
+                configs.add(new ConfigPlan(config.getModel(), config.getName(), features[0]));
+            }
+        } else {
+            configs = Collections.emptyList();
+        }
+        return new ProvisioningPlan(fps, configs);
+    }
+
+    public static class PackagePlan {
+
+        private final String name;
+        private final long files;
+        private final long bytes;
+
+        private PackagePlan(String name, long files, long bytes) {
+            this.name = name;
+            this.files = files;
+            this.bytes = bytes;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getFiles() {
+            return files;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+    }
+
+    public static class FeaturePackPlan {
+
+        private final ArtifactCoords.Gav gav;
+        private final List<PackagePlan> packages;
+        private final long files;
+        private final long bytes;
+
+        private FeaturePackPlan(ArtifactCoords.Gav gav, List<PackagePlan> packages) {
+            this.gav = gav;
+            this.packages = Collections.unmodifiableList(packages);
+            long files = 0;
+            long bytes = 0;
+            for(PackagePlan pkg : packages) {
+                files += pkg.files;
+                bytes += pkg.bytes;
+            }
+            this.files = files;
+            this.bytes = bytes;
+        }
+
+        public ArtifactCoords.Gav getGav() {
+            return gav;
+        }
+
+        public List<PackagePlan> getPackages() {
+            return packages;
+        }
+
+        public long getFiles() {
+            return files;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+    }
+
+    public static class ConfigPlan {
+
+        private final String model;
+        private final String name;
+        private final int features;
+
+        private ConfigPlan(String model, String name, int features) {
+            this.model = model;
+            this.name = name;
+            this.features = features;
+        }
+
+        public String getModel() {
+            return model;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getFeatures() {
+            return features;
+        }
+    }
+
+    private final List<FeaturePackPlan> featurePacks;
+    private final List<ConfigPlan> configs;
+    private final long files;
+    private final long bytes;
+
+    private ProvisioningPlan(List<FeaturePackPlan> featurePacks, List<ConfigPlan> configs) {
+        this.featurePacks = Collections.unmodifiableList(featurePacks);
+        this.configs = Collections.unmodifiableList(configs);
+        long files = 0;
+        long bytes = 0;
+        for(FeaturePackPlan fp : featurePacks) {
+            files += fp.files;
+            bytes += fp.bytes;
+        }
+        this.files = files;
+        this.bytes = bytes;
+    }
+
+    /**
+     * @return  the feature-packs to be installed in the order they are installed
+     */
+    public List<FeaturePackPlan> getFeaturePacks() {
+        return featurePacks;
+    }
+
+    public List<ConfigPlan> getConfigs() {
+        return configs;
+    }
+
+    /**
+     * @return  the total number of the files of the packages
+     */
+    public long getFiles() {
+        return files;
+    }
+
+    /**
+     * @return  the total size of the files of the packages
+     */
+    public long getBytes() {
+        return bytes;
+    }
+}
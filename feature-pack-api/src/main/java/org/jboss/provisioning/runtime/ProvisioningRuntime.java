@@ -28,6 +28,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.ServiceLoader;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Stream;
 
 import javax.xml.stream.XMLStreamException;
@@ -53,7 +54,9 @@ import org.jboss.provisioning.state.FeaturePackSet;
 import org.jboss.provisioning.state.ProvisionedConfig;
 import org.jboss.provisioning.util.FeaturePackInstallException;
 import org.jboss.provisioning.util.IoUtils;
+import org.jboss.provisioning.util.LinkedArtifacts;
 import org.jboss.provisioning.util.PathsUtils;
+import org.jboss.provisioning.util.WorkDirCleaner;
 import org.jboss.provisioning.xml.ProvisionedStateXmlWriter;
 import org.jboss.provisioning.xml.ProvisioningXmlWriter;
 
@@ -83,6 +86,9 @@ public class ProvisioningRuntime implements FeaturePackSet<FeaturePackRuntime>,
         // execute the plug-ins
         runtime.executePlugins();
 
+        // record the artifacts installed as links
+        runtime.linkedArtifacts.write(runtime.stagedDir);
+
         // save the config
         try {
             ProvisioningXmlWriter.getInstance().write(runtime.config, PathsUtils.getProvisioningXml(runtime.stagedDir));
@@ -102,7 +108,12 @@ public class ProvisioningRuntime implements FeaturePackSet<FeaturePackRuntime>,
             IoUtils.recursiveDelete(runtime.installDir);
         }
         try {
-            IoUtils.copy(runtime.stagedDir, runtime.installDir);
+            if(runtime.linkedArtifacts.isEmpty()) {
+                IoUtils.copy(runtime.stagedDir, runtime.installDir);
+            } else {
+                runtime.linkedArtifacts.copyInstallation(runtime.stagedDir, runtime.installDir);
+                runtime.linkedArtifacts.write(runtime.installDir);
+            }
         } catch (IOException e) {
             throw new ProvisioningException(Errors.copyFile(runtime.stagedDir, runtime.installDir));
         }
@@ -141,8 +152,15 @@ public class ProvisioningRuntime implements FeaturePackSet<FeaturePackRuntime>,
          if (Files.exists(customizedInstallation)) {
             IoUtils.recursiveDelete(customizedInstallation);
         }
+        // preserve the links of the upgraded installation
+        final LinkedArtifacts linkedArtifacts = LinkedArtifacts.read(runtime.installDir);
         try {
-            IoUtils.copy(runtime.installDir, customizedInstallation);
+            if(linkedArtifacts.isEmpty()) {
+                IoUtils.copy(runtime.installDir, customizedInstallation);
+            } else {
+                linkedArtifacts.copyInstallation(runtime.installDir, customizedInstallation);
+                linkedArtifacts.write(customizedInstallation);
+            }
         } catch (IOException e) {
             throw new ProvisioningException(Errors.copyFile(runtime.installDir, customizedInstallation));
         }
@@ -150,6 +168,8 @@ public class ProvisioningRuntime implements FeaturePackSet<FeaturePackRuntime>,
 
     private final long startTime;
     private final ArtifactRepositoryManager artifactResolver;
+    private final Map<ArtifactCoords, Path> resolvedArtifacts = new ConcurrentHashMap<>();
+    private final LinkedArtifacts linkedArtifacts = new LinkedArtifacts();
     private ProvisioningConfig config;
     private Path installDir;
     private final Path stagedDir;
@@ -370,9 +390,47 @@ public class ProvisioningRuntime implements FeaturePackSet<FeaturePackRuntime>,
      * resolved for any reason
      */
     public Path resolveArtifact(ArtifactCoords coords) throws ArtifactException {
+        final Path resolved = resolvedArtifacts.get(coords);
+        if(resolved != null) {
+            return resolved;
+        }
         return artifactResolver.resolve(coords);
     }
 
+    /**
+     * Artifacts installed by the plug-ins as links to their location in the repository.
+     * Plug-ins record here the artifacts they installed with {@link LinkedArtifacts#install(Path, Path, LinkedArtifacts.Mode)}
+     * so that the links are preserved when the staged installation is moved to the installation directory.
+     *
+     * @return  linked artifacts of the installation
+     */
+    public LinkedArtifacts getLinkedArtifacts() {
+        return linkedArtifacts;
+    }
+
+    /**
+     * Resolves the artifacts with a single request to the artifact resolver
+     * and remembers their locations, so that the subsequent calls to
+     * {@link #resolveArtifact(ArtifactCoords)} for these artifacts don't
+     * reach the resolver.
+     *
+     * @param coords  coordinates of the artifacts to resolve
+     * @return  locations of the artifacts in the order of the coordinates
+     * @throws ArtifactException  in case any of the artifacts could not be resolved,
+     * the artifacts that were resolved are still remembered
+     */
+    public Map<ArtifactCoords, Path> resolveArtifacts(Collection<ArtifactCoords> coords) throws ArtifactException {
+        final Map<ArtifactCoords, Path> resolved;
+        try {
+            resolved = artifactResolver.resolveAll(coords);
+        } catch(ArtifactException e) {
+            resolvedArtifacts.putAll(e.getResolved());
+            throw e;
+        }
+        resolvedArtifacts.putAll(resolved);
+        return resolved;
+    }
+
     @Override
     public boolean hasConfigs() {
         return !configs.isEmpty();
@@ -407,7 +465,7 @@ public class ProvisioningRuntime implements FeaturePackSet<FeaturePackRuntime>,
 
     @Override
     public void close() {
-        IoUtils.recursiveDelete(workDir);
+        WorkDirCleaner.getInstance().delete(workDir, messageWriter);
         if (messageWriter.isVerboseEnabled()) {
             final long time = System.currentTimeMillis() - startTime;
             final long seconds = time / 1000;
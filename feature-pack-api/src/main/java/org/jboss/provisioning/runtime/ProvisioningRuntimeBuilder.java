@@ -55,6 +55,7 @@ import org.jboss.provisioning.config.ProvisioningConfig;
 import org.jboss.provisioning.config.ConfigModel;
 import org.jboss.provisioning.config.FeatureGroup;
 import org.jboss.provisioning.config.FeatureGroupSupport;
+import org.jboss.provisioning.layout.PackageClosure;
 import org.jboss.provisioning.spec.FeatureDependencySpec;
 import org.jboss.provisioning.spec.FeatureId;
 import org.jboss.provisioning.spec.FeatureReferenceSpec;
@@ -65,6 +66,7 @@ import org.jboss.provisioning.state.ProvisionedConfig;
 import org.jboss.provisioning.util.IoUtils;
 import org.jboss.provisioning.util.LayoutUtils;
 import org.jboss.provisioning.util.PmCollections;
+import org.jboss.provisioning.util.WorkDirCleaner;
 import org.jboss.provisioning.util.ZipUtils;
 import org.jboss.provisioning.xml.FeaturePackXmlParser;
 import org.jboss.provisioning.xml.PackageXmlParser;
@@ -104,6 +106,7 @@ public class ProvisioningRuntimeBuilder {
     Path pluginsDir = null;
     Map<String, String> rtParams = Collections.emptyMap();
     private final MessageWriter messageWriter;
+    private FeaturePackLayoutCache layoutCache = FeaturePackLayoutCache.getConfigured();
 
     private final Map<ArtifactCoords.Ga, FeaturePackRuntimeBuilder> fpRtBuilders = new HashMap<>();
     private List<FeaturePackRuntimeBuilder> fpRtBuildersOrdered = new ArrayList<>();
@@ -160,6 +163,11 @@ public class ProvisioningRuntimeBuilder {
         return this;
     }
 
+    public ProvisioningRuntimeBuilder setLayoutCache(FeaturePackLayoutCache layoutCache) {
+        this.layoutCache = layoutCache;
+        return this;
+    }
+
     public ProvisioningRuntimeBuilder setOperation(String operation) {
         this.operation = operation;
         return this;
@@ -169,7 +177,7 @@ public class ProvisioningRuntimeBuilder {
         try {
             return doBuild();
         } catch(ProvisioningException | RuntimeException | Error e) {
-            IoUtils.recursiveDelete(workDir);
+            WorkDirCleaner.getInstance().delete(workDir, messageWriter);
             throw e;
         }
     }
@@ -237,7 +245,7 @@ public class ProvisioningRuntimeBuilder {
 
             if(!config.hasFeaturePackDeps()) {
                 emptyHomeDir();
-                IoUtils.recursiveDelete(workDir);
+                WorkDirCleaner.getInstance().delete(workDir, messageWriter);
                 return null;
             }
         }
@@ -821,10 +829,16 @@ public class ProvisioningRuntimeBuilder {
     }
 
     FeaturePackRuntimeBuilder loadFpBuilder(ArtifactCoords.Gav gav) throws ProvisioningException {
+        final Path artifactPath = artifactResolver.resolve(gav.toArtifactCoords());
+        if(layoutCache != null) {
+            final Path fpDir = layoutCache.getLayout(artifactPath);
+            final FeaturePackRuntimeBuilder fp = FeaturePackRuntime.builder(layoutCache.getSpec(fpDir), fpDir);
+            fpRtBuilders.put(gav.toGa(), fp);
+            return fp;
+        }
+
         final Path fpDir = LayoutUtils.getFeaturePackDir(layoutDir, gav, false);
         mkdirs(fpDir);
-
-        final Path artifactPath = artifactResolver.resolve(gav.toArtifactCoords());
         try {
             ZipUtils.unzip(artifactPath, fpDir);
         } catch (IOException e) {
@@ -853,7 +867,11 @@ public class ProvisioningRuntimeBuilder {
             return;
         }
 
-        final PackageRuntime.Builder pkg = currentOrigin.newPackage(pkgName, LayoutUtils.getPackageDir(currentOrigin.dir, pkgName, false));
+        final Path pkgDir = LayoutUtils.getPackageDir(currentOrigin.dir, pkgName, false);
+        if(!currentOrigin.partiallyResolved && resolvePackageClosure(pkgName, pkgDir)) {
+            return;
+        }
+        final PackageRuntime.Builder pkg = currentOrigin.newPackage(pkgName, pkgDir);
         if(!Files.exists(pkg.dir)) {
             throw new ProvisioningDescriptionException(Errors.packageNotFound(currentOrigin.gav, pkgName));
         }
@@ -877,6 +895,62 @@ public class ProvisioningRuntimeBuilder {
         currentOrigin.addPackage(pkgName);
     }
 
+    /**
+     * Resolves the package and its dependencies using the closure recorded when the feature-pack was built.
+     * The closure is used only if none of the packages in it is excluded and the packages of the feature-pack
+     * resolved so far were resolved along with all their dependencies, in which case the result is the same
+     * as the result of walking the dependencies.
+     *
+     * @param pkgName  package name
+     * @param pkgDir  package directory
+     * @return  true if the package has been resolved, false if its dependencies have to be walked
+     * @throws ProvisioningException  in case the closure could not be read
+     */
+    private boolean resolvePackageClosure(String pkgName, Path pkgDir) throws ProvisioningException {
+        final PackageClosure closure;
+        try {
+            closure = PackageClosure.read(pkgDir);
+        } catch (IOException e) {
+            throw new ProvisioningException(Errors.readFile(pkgDir.resolve(Constants.PACKAGE_CLOSURE_TXT)), e);
+        }
+        if(closure == null) {
+            return false;
+        }
+        final Ga ga = currentOrigin.gav.toGa();
+        for(int i = 0; i < closure.size(); ++i) {
+            if(fpConfigStack.isPackageExcluded(ga, closure.getName(i))) {
+                return false;
+            }
+        }
+
+        currentOrigin.newPackage(pkgName, pkgDir);
+        // packages whose dependencies are being added
+        final int[] pending = new int[closure.size()];
+        int depth = 0;
+        int i = 0;
+        while(i < closure.size()) {
+            while(depth > 0 && closure.getEnd(pending[depth - 1]) <= i) {
+                currentOrigin.addPackage(closure.getName(pending[--depth]));
+            }
+            final String depName = closure.getName(i);
+            if(currentOrigin.pkgBuilders.containsKey(depName)) {
+                // resolved along with its dependencies
+                i = closure.getEnd(i);
+                continue;
+            }
+            currentOrigin.newPackage(depName, LayoutUtils.getPackageDir(currentOrigin.dir, depName, false));
+            pending[depth++] = i++;
+        }
+        while(depth > 0) {
+            currentOrigin.addPackage(closure.getName(pending[--depth]));
+        }
+        if(!currentOrigin.ordered) {
+            orderFpRtBuilder(currentOrigin);
+        }
+        currentOrigin.addPackage(pkgName);
+        return true;
+    }
+
     private void processPackageDeps(final PackageDepsSpec pkgDeps)
             throws ProvisioningException {
         boolean resolvedPackages = false;
@@ -886,6 +960,7 @@ public class ProvisioningRuntimeBuilder {
                     if(!dep.isOptional()) {
                         throw new ProvisioningDescriptionException(Errors.unsatisfiedPackageDependency(currentOrigin.gav, dep.getName()));
                     }
+                    currentOrigin.partiallyResolved = true;
                     continue;
                 }
                 try {
@@ -893,6 +968,7 @@ public class ProvisioningRuntimeBuilder {
                     resolvedPackages = true;
                 } catch(ProvisioningDescriptionException e) {
                     if(dep.isOptional()) {
+                        currentOrigin.partiallyResolved = true;
                         continue;
                     } else {
                         throw e;
@@ -915,6 +991,7 @@ public class ProvisioningRuntimeBuilder {
                             throw new ProvisioningDescriptionException(
                                     Errors.unsatisfiedPackageDependency(currentOrigin.gav, pkgDep.getName()));
                         }
+                        currentOrigin.partiallyResolved = true;
                         continue;
                     }
                     try {
@@ -922,6 +999,7 @@ public class ProvisioningRuntimeBuilder {
                         resolvedPackages = true;
                     } catch (ProvisioningDescriptionException e) {
                         if (pkgDep.isOptional()) {
+                            currentOrigin.partiallyResolved = true;
                             continue;
                         } else {
                             throw e;
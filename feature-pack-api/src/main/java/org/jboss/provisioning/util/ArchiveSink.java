@@ -0,0 +1,149 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.provisioning.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Destination of the content of an archive being built.
+ * <p>
+ * The content is written to the paths resolved against the {@link #getRoot() root}
+ * of the sink, which, depending on the implementation, is either the root of the archive
+ * itself or a directory the exploded content is laid out in and which is archived when
+ * the sink is closed. The exploded layout is meant for debugging.
+ * <p>
+ * The archive sink saves walking and re-reading a laid out directory but not the disk
+ * writes: the zip file system keeps the content of each entry in a temporary file,
+ * rather than in memory, and copies it into the archive when the sink is closed.
+ */
+public abstract class ArchiveSink implements Closeable {
+
+    /**
+     * Creates a sink writing the content into the archive, the entries are spooled
+     * to temporary files until the sink is closed.
+     *
+     * @param archive  the archive to create, an existing file will be replaced
+     * @return  archive sink
+     * @throws IOException  in case the archive could not be created
+     */
+    public static ArchiveSink newArchive(Path archive) throws IOException {
+        return new ZipSink(archive);
+    }
+
+    /**
+     * Creates a sink laying out the content in a directory and archiving the directory
+     * when the sink is closed.
+     *
+     * @param dir  the directory for the exploded content
+     * @param archive  the archive to create when the sink is closed or null if the content
+     * should not be archived
+     * @return  archive sink
+     * @throws IOException  in case the directory could not be created
+     */
+    public static ArchiveSink newExploded(Path dir, Path archive) throws IOException {
+        return new ExplodedSink(dir, archive);
+    }
+
+    /**
+     * The root the content should be written under. The paths should be resolved against it
+     * using their string form since the root may belong to a different file system.
+     *
+     * @return  root of the content
+     */
+    public abstract Path getRoot();
+
+    /**
+     * Whether the content is laid out in a directory.
+     *
+     * @return  true if the content is laid out in a directory, false if it is written into the archive
+     */
+    public abstract boolean isExploded();
+
+    /**
+     * Completes the archive.
+     */
+    @Override
+    public abstract void close() throws IOException;
+
+    private static class ZipSink extends ArchiveSink {
+
+        private final FileSystem zipfs;
+        private final Path root;
+
+        ZipSink(Path archive) throws IOException {
+            Files.deleteIfExists(archive);
+            if(archive.getParent() != null) {
+                Files.createDirectories(archive.getParent());
+            }
+            zipfs = ZipUtils.newZipFileSystem(archive, true);
+            root = zipfs.getPath("/");
+        }
+
+        @Override
+        public Path getRoot() {
+            return root;
+        }
+
+        @Override
+        public boolean isExploded() {
+            return false;
+        }
+
+        @Override
+        public void close() throws IOException {
+            zipfs.close();
+        }
+    }
+
+    private static class ExplodedSink extends ArchiveSink {
+
+        private final Path dir;
+        private final Path archive;
+
+        ExplodedSink(Path dir, Path archive) throws IOException {
+            this.dir = dir;
+            this.archive = archive;
+            Files.createDirectories(dir);
+        }
+
+        @Override
+        public Path getRoot() {
+            return dir;
+        }
+
+        @Override
+        public boolean isExploded() {
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if(archive == null) {
+                return;
+            }
+            Files.deleteIfExists(archive);
+            if(archive.getParent() != null) {
+                Files.createDirectories(archive.getParent());
+            }
+            ZipUtils.zip(dir, archive);
+        }
+    }
+}
@@ -25,15 +25,19 @@ import java.nio.file.FileVisitOption;
 import java.nio.file.FileVisitResult;
 import java.nio.file.FileVisitor;
 import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.SimpleFileVisitor;
 import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import java.util.function.Consumer;
@@ -60,32 +64,73 @@ public class IoUtils {
         return createTmpDir(UUID.randomUUID().toString());
     }
 
+    public static Path getTmpDir() {
+        return TMP_DIR;
+    }
+
     public static void recursiveDelete(Path root) {
-        if (root == null || !Files.exists(root)) {
+        try {
+            deleteRecursively(root);
+        } catch (IOException e) {
+        }
+    }
+
+    /**
+     * Deletes the path and, in case it is a directory, its content.
+     * Unlike {@link #recursiveDelete(Path)}, the deletion proceeds past the paths
+     * that could not be deleted and the failures are reported at the end
+     * as a single exception.
+     *
+     * @param root  path to delete
+     * @throws IOException  in case some of the paths could not be deleted
+     */
+    public static void deleteRecursively(Path root) throws IOException {
+        if (root == null || !Files.exists(root, LinkOption.NOFOLLOW_LINKS)) {
             return;
         }
-        try {
-            Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
-                @Override
-                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs)
-                    throws IOException {
-                    Files.delete(file);
+        final List<IOException> failures = new ArrayList<>(0);
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException e) {
+                    failures.add(e);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException e) {
+                if (!(e instanceof NoSuchFileException)) {
+                    failures.add(e);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException e) {
+                if (e != null && !(e instanceof NoSuchFileException)) {
+                    // directory iteration failed
+                    failures.add(e);
                     return FileVisitResult.CONTINUE;
                 }
-                @Override
-                public FileVisitResult postVisitDirectory(Path dir, IOException e)
-                    throws IOException {
-                    if (e == null) {
-                        Files.delete(dir);
-                        return FileVisitResult.CONTINUE;
-                    } else {
-                        // directory iteration failed
-                        throw e;
-                    }
+                try {
+                    Files.deleteIfExists(dir);
+                } catch (IOException ioe) {
+                    failures.add(ioe);
                 }
-            });
-        } catch (IOException e) {
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        if (failures.isEmpty()) {
+            return;
+        }
+        final IOException e = new IOException("Failed to delete " + failures.size() + " path(s) under " + root, failures.get(0));
+        for (int i = 1; i < failures.size(); ++i) {
+            e.addSuppressed(failures.get(i));
         }
+        throw e;
     }
 
     public static void copy(Path source, Path target) throws IOException {
@@ -99,7 +144,8 @@ public class IoUtils {
                     @Override
                     public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs)
                         throws IOException {
-                        final Path targetDir = target.resolve(source.relativize(dir));
+                        // resolving the string allows the target to belong to another file system, e.g. a zip
+                        final Path targetDir = target.resolve(source.relativize(dir).toString());
                         try {
                             Files.copy(dir, targetDir);
                         } catch (FileAlreadyExistsException e) {
@@ -112,7 +158,7 @@ public class IoUtils {
                     @Override
                     public FileVisitResult visitFile(Path file, BasicFileAttributes attrs)
                         throws IOException {
-                        Files.copy(file, target.resolve(source.relativize(file)), StandardCopyOption.REPLACE_EXISTING);
+                        Files.copy(file, target.resolve(source.relativize(file).toString()), StandardCopyOption.REPLACE_EXISTING);
                         return FileVisitResult.CONTINUE;
                     }
                 });
@@ -151,10 +197,11 @@ public class IoUtils {
         Files.walkFileTree(root, new FileVisitor<Path>() {
             @Override
             public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
-                if (filter.accept(root.relativize(dir))) {
+                final Path relativePath = root.relativize(dir);
+                if (filter.accept(relativePath, true)) {
                     String[] files = dir.toFile().list();
                     if (files == null || files.length == 0) {
-                        contents.put(root.relativize(dir), HashUtils.hash(root.relativize(dir).toString()));
+                        contents.put(relativePath, HashUtils.hash(relativePath.toString()));
                     }
                     return FileVisitResult.CONTINUE;
                 }
@@ -163,8 +210,9 @@ public class IoUtils {
 
             @Override
             public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
-                if(filter.accept(root.relativize(file))) {
-                    contents.put(root.relativize(file), HashUtils.hashFile(file));
+                final Path relativePath = root.relativize(file);
+                if(filter.accept(relativePath, attrs.isDirectory())) {
+                    contents.put(relativePath, HashUtils.hashFile(file));
                 }
                 return FileVisitResult.CONTINUE;
             }
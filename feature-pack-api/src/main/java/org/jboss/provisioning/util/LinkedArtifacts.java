@@ -0,0 +1,251 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.provisioning.util;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.jboss.provisioning.Constants;
+import org.jboss.provisioning.Errors;
+import org.jboss.provisioning.ProvisioningException;
+
+/**
+ * Artifacts installed as links to their location in the artifact repository
+ * instead of copies.
+ * <p>
+ * The installation mode is selected with the {@value #MODE_PROP} system property,
+ * which accepts {@code copy} (the default), {@code hardlink} and {@code symlink}.
+ * A link that cannot be created (e.g. a hard link across file systems) falls back
+ * to a copy.
+ * <p>
+ * The linked artifacts are recorded in {@value Constants#LINKED_ARTIFACTS_TXT}
+ * in the provisioned state directory of the installation, one per line, as the mode,
+ * the path relative to the installation and the location of the artifact separated by '|'.
+ */
+public class LinkedArtifacts {
+
+    public static final String MODE_PROP = "pm.artifacts.link-mode";
+
+    public enum Mode {
+        COPY,
+        HARDLINK,
+        SYMLINK;
+
+        public static Mode fromString(String str) {
+            if(str == null || str.isEmpty()) {
+                return COPY;
+            }
+            for(Mode mode : values()) {
+                if(mode.name().equalsIgnoreCase(str)) {
+                    return mode;
+                }
+            }
+            throw new IllegalArgumentException("Unsupported " + MODE_PROP + " value " + str);
+        }
+    }
+
+    public static Mode getConfiguredMode() {
+        return Mode.fromString(PropertyUtils.getSystemProperty(MODE_PROP));
+    }
+
+    /**
+     * Installs the artifact at the target location using the mode
+     * or copies it if the link could not be created.
+     *
+     * @param artifact  the artifact in the repository
+     * @param target  target location
+     * @param mode  installation mode
+     * @return  the mode the artifact was actually installed with
+     * @throws IOException  in case the artifact could not be copied
+     */
+    public static Mode install(Path artifact, Path target, Mode mode) throws IOException {
+        if(mode != Mode.COPY) {
+            try {
+                Files.deleteIfExists(target);
+                if(mode == Mode.HARDLINK) {
+                    Files.createLink(target, artifact);
+                } else {
+                    Files.createSymbolicLink(target, artifact.toAbsolutePath());
+                }
+                return mode;
+            } catch (IOException | UnsupportedOperationException | SecurityException e) {
+                // fallback to copy
+            }
+        }
+        Files.copy(artifact, target, StandardCopyOption.REPLACE_EXISTING);
+        return Mode.COPY;
+    }
+
+    /**
+     * Reads the linked artifacts recorded in the installation.
+     *
+     * @param installDir  installation directory
+     * @return  linked artifacts of the installation
+     * @throws ProvisioningException  in case the record could not be read
+     */
+    public static LinkedArtifacts read(Path installDir) throws ProvisioningException {
+        final LinkedArtifacts links = new LinkedArtifacts();
+        final Path txt = PathsUtils.getLinkedArtifactsTxt(installDir);
+        if(!Files.exists(txt)) {
+            return links;
+        }
+        try(BufferedReader reader = Files.newBufferedReader(txt)) {
+            String line = reader.readLine();
+            while(line != null) {
+                final int i = line.indexOf('|');
+                final int j = line.indexOf('|', i + 1);
+                if(i <= 0 || j < 0) {
+                    throw new ProvisioningException("Unexpected line format in " + txt + ": " + line);
+                }
+                links.entries.put(line.substring(i + 1, j), new Entry(Mode.fromString(line.substring(0, i)), Paths.get(line.substring(j + 1))));
+                line = reader.readLine();
+            }
+        } catch (IOException e) {
+            throw new ProvisioningException(Errors.readFile(txt), e);
+        }
+        return links;
+    }
+
+    private static class Entry {
+        final Mode mode;
+        final Path artifact;
+
+        Entry(Mode mode, Path artifact) {
+            this.mode = mode;
+            this.artifact = artifact;
+        }
+    }
+
+    private final Map<String, Entry> entries = new TreeMap<>();
+
+    public synchronized boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    /**
+     * Checks whether the path is recorded as a link to an artifact.
+     *
+     * @param relativePath  path relative to the installation directory
+     * @return  true if the path is a recorded link, otherwise false
+     */
+    public synchronized boolean isLinked(String relativePath) {
+        return entries.containsKey(relativePath);
+    }
+
+    /**
+     * Records an artifact installed as a link.
+     *
+     * @param installDir  installation directory
+     * @param target  the installed link
+     * @param artifact  the artifact the link points to
+     * @param mode  the mode the artifact was installed with
+     */
+    public synchronized void add(Path installDir, Path target, Path artifact, Mode mode) {
+        final String relative = installDir.relativize(target).toString();
+        if(mode == Mode.COPY) {
+            entries.remove(relative);
+        } else {
+            entries.put(relative, new Entry(mode, artifact.toAbsolutePath()));
+        }
+    }
+
+    /**
+     * Writes the record of the linked artifacts into the provisioned state of the installation.
+     *
+     * @param installDir  installation directory
+     * @throws ProvisioningException  in case the record could not be written
+     */
+    public synchronized void write(Path installDir) throws ProvisioningException {
+        final Path txt = PathsUtils.getLinkedArtifactsTxt(installDir);
+        try {
+            if(entries.isEmpty()) {
+                Files.deleteIfExists(txt);
+                return;
+            }
+            Files.createDirectories(txt.getParent());
+            try(BufferedWriter writer = Files.newBufferedWriter(txt)) {
+                for(Map.Entry<String, Entry> entry : entries.entrySet()) {
+                    writer.write(entry.getValue().mode.name().toLowerCase());
+                    writer.write('|');
+                    writer.write(entry.getKey());
+                    writer.write('|');
+                    writer.write(entry.getValue().artifact.toString());
+                    writer.newLine();
+                }
+            }
+        } catch (IOException e) {
+            throw new ProvisioningException(Errors.writeFile(txt), e);
+        }
+    }
+
+    /**
+     * Copies the content of the source installation into the target directory,
+     * re-creating the recorded links instead of copying their content.
+     * Recorded links that can no longer be created are copied and removed from the record.
+     *
+     * @param source  source installation
+     * @param target  target directory
+     * @throws IOException  in case of a failure
+     */
+    public synchronized void copyInstallation(Path source, Path target) throws IOException {
+        Files.createDirectories(target);
+        Files.walkFileTree(source, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                final Path targetDir = target.resolve(source.relativize(dir).toString());
+                try {
+                    Files.copy(dir, targetDir);
+                } catch (FileAlreadyExistsException e) {
+                    if (!Files.isDirectory(targetDir)) {
+                        throw e;
+                    }
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                final String relative = source.relativize(file).toString();
+                final Path targetFile = target.resolve(relative);
+                final Entry entry = entries.get(relative);
+                if(entry != null && Files.exists(entry.artifact)) {
+                    final Mode mode = install(entry.artifact, targetFile, entry.mode);
+                    if(mode == Mode.COPY) {
+                        entries.remove(relative);
+                    }
+                } else {
+                    if(entry != null) {
+                        entries.remove(relative);
+                    }
+                    Files.copy(file, targetFile, StandardCopyOption.REPLACE_EXISTING);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+}
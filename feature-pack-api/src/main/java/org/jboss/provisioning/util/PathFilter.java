@@ -20,7 +20,6 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.function.Predicate;
 import java.util.regex.Pattern;
 
 /**
@@ -40,48 +39,65 @@ public interface PathFilter {
      */
     boolean accept(Path path);
 
+    /**
+     * Tests whether or not the specified path should be
+     * included in a path list when the caller already knows whether
+     * the path denotes a directory, e.g. from the {@link java.nio.file.attribute.BasicFileAttributes}
+     * received while walking a file tree.
+     *
+     * @param  path  The path to be tested
+     * @param  directory  whether the path denotes a directory
+     * @return  <code>true</code> if and only if <code>path</code>
+     *          should be included
+     */
+    default boolean accept(Path path, boolean directory) {
+        return accept(path);
+    }
+
     PathFilter DEFAULT = new PathFilter() {
         @Override
         public boolean accept(Path path) {
             return true;
+        }
+
+        @Override
+        public boolean accept(Path path, boolean directory) {
+            return true;
         }};
 
     class PathFilterImpl implements PathFilter {
 
-        private final List<Pattern> directories;
-        private final List<Pattern> files;
+        private final WildcardMatcher directories;
+        private final WildcardMatcher files;
 
-        private PathFilterImpl(List<Pattern> directories, List<Pattern> files) {
+        private PathFilterImpl(WildcardMatcher directories, WildcardMatcher files) {
             this.directories = directories;
             this.files = files;
         }
 
         @Override
         public boolean accept(Path path) {
+            return accept(path, Files.isDirectory(path));
+        }
+
+        @Override
+        public boolean accept(Path path, boolean directory) {
             final String current = path.toString();
-            boolean acceptDirectory = !this.directories.stream().anyMatch(new Predicate<Pattern>() {
-                @Override
-                public boolean test(Pattern pattern) {
-                    return pattern.matcher(current).matches();
-                }
-            });
-            if(Files.isDirectory(path)) {
-                return acceptDirectory;
+            if(directories.matches(current)) {
+                return false;
+            }
+            if(directory || files.isEmpty()) {
+                return true;
             }
-            final String fileName = path.getFileName().toString();
-            return acceptDirectory && !this.files.stream().anyMatch(new Predicate<Pattern>() {
-                @Override
-                public boolean test(Pattern pattern) {
-                    return pattern.matcher(fileName).matches();
-                }
-            });
+            final int nameOffset = current.lastIndexOf(path.getFileSystem().getSeparator()) + 1;
+            return !files.matches(current, nameOffset);
         }
     }
 
    class Builder {
 
-        private final List<Pattern> directories = new ArrayList<>();
-        private final List<Pattern> files = new ArrayList<>();
+        private final List<String> directories = new ArrayList<>();
+        private final List<String> files = new ArrayList<>();
 
         private Builder() {
         }
@@ -93,14 +109,14 @@ public interface PathFilter {
 
         public Builder addDirectories(String... directoryNames) {
             for (String directory : directoryNames) {
-                this.directories.add(wildcardToJavaRegexp(directory));
+                this.directories.add(directory);
             }
             return this;
         }
 
         public Builder addFiles(String... fileNames) {
             for (String file : fileNames) {
-                this.files.add(wildcardToJavaRegexp(file));
+                this.files.add(file);
             }
             return this;
         }
@@ -116,7 +132,7 @@ public interface PathFilter {
         }
 
         public PathFilter build() {
-            return new PathFilterImpl(directories, files);
+            return new PathFilterImpl(WildcardMatcher.compile(directories), WildcardMatcher.compile(files));
         }
     }
 }
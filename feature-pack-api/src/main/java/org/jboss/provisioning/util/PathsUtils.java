@@ -41,6 +41,10 @@ public class PathsUtils {
         return getProvisionedStateDir(installationDir).resolve(Constants.PROVISIONED_STATE_XML);
     }
 
+    public static Path getLinkedArtifactsTxt(Path installationDir) {
+        return getProvisionedStateDir(installationDir).resolve(Constants.LINKED_ARTIFACTS_TXT);
+    }
+
     public static Path getFeaturePackXml(Path installationDir, ArtifactCoords.Gav fpGav) {
         return getProvisionedStateDir(installationDir)
                 .resolve(Constants.FEATURE_PACKS)
@@ -0,0 +1,178 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.provisioning.util;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * A set of wildcard expressions compiled into a single trie.
+ * <p>
+ * The supported wildcards are the ones supported by
+ * {@link ParsingUtils#wildcardToJavaRegexp(String)}: '*' matches any sequence
+ * of characters (including an empty one) and '?' matches any single character.
+ * Every other character is matched literally.
+ * <p>
+ * Expressions sharing a prefix share the nodes of the trie, so a value is
+ * matched against all the expressions in one pass, without creating any
+ * objects.
+ */
+public final class WildcardMatcher {
+
+    private static final char[] NO_CHARS = new char[0];
+    private static final Node[] NO_NODES = new Node[0];
+
+    public static final WildcardMatcher NONE = new WildcardMatcher(new Node(), 0);
+
+    public static WildcardMatcher compile(String... exprs) {
+        return compile(Arrays.asList(exprs));
+    }
+
+    public static WildcardMatcher compile(Collection<String> exprs) {
+        if(exprs.isEmpty()) {
+            return NONE;
+        }
+        final Node root = new Node();
+        for(String expr : exprs) {
+            if(expr == null) {
+                throw new IllegalArgumentException("expr is null");
+            }
+            Node node = root;
+            for(int i = 0; i < expr.length(); ++i) {
+                final char c = expr.charAt(i);
+                switch(c) {
+                    case '*':
+                        if(node.star == null) {
+                            node.star = new Node();
+                        }
+                        node = node.star;
+                        while(i + 1 < expr.length() && expr.charAt(i + 1) == '*') {
+                            ++i;
+                        }
+                        break;
+                    case '?':
+                        if(node.any == null) {
+                            node.any = new Node();
+                        }
+                        node = node.any;
+                        break;
+                    default:
+                        node = node.addChild(c);
+                }
+            }
+            node.terminal = true;
+        }
+        return new WildcardMatcher(root, exprs.size());
+    }
+
+    private final Node root;
+    private final int size;
+
+    private WildcardMatcher(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Checks whether the value matches at least one of the expressions.
+     *
+     * @param value  value to match
+     * @return  true if at least one of the expressions matches the whole value
+     */
+    public boolean matches(CharSequence value) {
+        return matches(value, 0);
+    }
+
+    /**
+     * Checks whether the part of the value starting at the offset matches
+     * at least one of the expressions.
+     *
+     * @param value  value to match
+     * @param offset  index of the first character to match
+     * @return  true if at least one of the expressions matches the value from the offset to its end
+     */
+    public boolean matches(CharSequence value, int offset) {
+        if(size == 0) {
+            return false;
+        }
+        return matches(root, value, offset, value.length());
+    }
+
+    private static boolean matches(Node node, CharSequence value, int i, int end) {
+        while(true) {
+            if(node.star != null && matchesStar(node.star, value, i, end)) {
+                return true;
+            }
+            if(i == end) {
+                return node.terminal;
+            }
+            if(node.any != null && matches(node.any, value, i + 1, end)) {
+                return true;
+            }
+            node = node.getChild(value.charAt(i++));
+            if(node == null) {
+                return false;
+            }
+        }
+    }
+
+    private static boolean matchesStar(Node star, CharSequence value, int i, int end) {
+        if(star.terminal) {
+            return true;
+        }
+        while(i < end) {
+            if(matches(star, value, i++, end)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static final class Node {
+        char[] chars = NO_CHARS;
+        Node[] children = NO_NODES;
+        Node any;
+        Node star;
+        boolean terminal;
+
+        Node getChild(char c) {
+            for(int i = 0; i < chars.length; ++i) {
+                if(chars[i] == c) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+
+        Node addChild(char c) {
+            Node child = getChild(c);
+            if(child != null) {
+                return child;
+            }
+            child = new Node();
+            chars = Arrays.copyOf(chars, chars.length + 1);
+            chars[chars.length - 1] = c;
+            children = Arrays.copyOf(children, children.length + 1);
+            children[children.length - 1] = child;
+            return child;
+        }
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.provisioning.util;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jboss.provisioning.Errors;
+import org.jboss.provisioning.MessageWriter;
+
+/**
+ * Deletes provisioning work directories in the background.
+ * <p>
+ * A directory scheduled for deletion is first atomically renamed to a tombstone
+ * next to it, so that its original location is immediately free, and then
+ * deleted on a background thread. Tombstones that were not deleted because the JVM
+ * exited first are deleted the next time the cleaner is used.
+ * <p>
+ * The number of directories waiting to be deleted in the background is limited
+ * by the {@value #MAX_PENDING_PROP} system property (default {@value #DEFAULT_MAX_PENDING}).
+ * When the limit is reached, directories are deleted by the calling thread.
+ * The limit is a number of directories rather than of bytes: the size of a directory
+ * is only known after walking it, which is most of the cost of deleting it, so the disk
+ * space held by the pending directories is bounded only by the size of the largest
+ * work directories times the limit.
+ */
+public class WorkDirCleaner {
+
+    public static final String TOMBSTONE_PREFIX = "pm-tombstone-";
+    public static final String MAX_PENDING_PROP = "pm.cleanup.max-pending";
+    public static final int DEFAULT_MAX_PENDING = 4;
+
+    private static class Holder {
+        static final WorkDirCleaner INSTANCE = new WorkDirCleaner(IoUtils.getTmpDir(), getMaxPending());
+
+        private static int getMaxPending() {
+            final String value = PropertyUtils.getSystemProperty(MAX_PENDING_PROP);
+            if(value == null) {
+                return DEFAULT_MAX_PENDING;
+            }
+            try {
+                return Integer.parseInt(value);
+            } catch(NumberFormatException e) {
+                throw new IllegalStateException("Failed to parse the value of " + MAX_PENDING_PROP + ": " + value, e);
+            }
+        }
+    }
+
+    public static WorkDirCleaner getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    private final Path tmpDir;
+    private final int maxPending;
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicBoolean swept = new AtomicBoolean();
+    private final ExecutorService executor;
+
+    WorkDirCleaner(Path tmpDir, int maxPending) {
+        this.tmpDir = tmpDir;
+        this.maxPending = maxPending;
+        this.executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                final Thread t = new Thread(r, "pm-work-dir-cleaner");
+                t.setDaemon(true);
+                return t;
+            }
+        });
+    }
+
+    /**
+     * Schedules the directory for deletion.
+     *
+     * @param dir  directory to delete
+     * @param messageWriter  writer the deletion failures will be reported to
+     */
+    public void delete(Path dir, MessageWriter messageWriter) {
+        if(swept.compareAndSet(false, true)) {
+            sweep(messageWriter);
+        }
+        if(dir == null || !Files.exists(dir)) {
+            return;
+        }
+        final Path tombstone = dir.resolveSibling(TOMBSTONE_PREFIX + UUID.randomUUID());
+        try {
+            Files.move(dir, tombstone, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | UnsupportedOperationException e) {
+            messageWriter.verbose(e, Errors.moveFile(dir, tombstone));
+            deleteNow(dir, messageWriter);
+            return;
+        }
+        schedule(tombstone, messageWriter);
+    }
+
+    /**
+     * Waits for the directories scheduled for deletion so far to be deleted.
+     *
+     * @param timeout  the maximum time to wait
+     * @param unit  the time unit of the timeout
+     * @return  true if all the scheduled directories were deleted before the timeout elapsed
+     * @throws InterruptedException  if the waiting thread was interrupted
+     */
+    public boolean awaitCompletion(long timeout, TimeUnit unit) throws InterruptedException {
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while(pending.get() > 0) {
+            if(System.nanoTime() >= deadline) {
+                return false;
+            }
+            Thread.sleep(10);
+        }
+        return true;
+    }
+
+    private void sweep(MessageWriter messageWriter) {
+        if(!Files.isDirectory(tmpDir)) {
+            return;
+        }
+        try(DirectoryStream<Path> stream = Files.newDirectoryStream(tmpDir, TOMBSTONE_PREFIX + '*')) {
+            for(Path tombstone : stream) {
+                schedule(tombstone, messageWriter);
+            }
+        } catch (IOException e) {
+            messageWriter.error(e, Errors.readDirectory(tmpDir));
+        }
+    }
+
+    private void schedule(Path tombstone, MessageWriter messageWriter) {
+        if(pending.incrementAndGet() > maxPending) {
+            try {
+                deleteNow(tombstone, messageWriter);
+            } finally {
+                pending.decrementAndGet();
+            }
+            return;
+        }
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    deleteNow(tombstone, messageWriter);
+                } finally {
+                    pending.decrementAndGet();
+                }
+            }
+        });
+    }
+
+    private static void deleteNow(Path dir, MessageWriter messageWriter) {
+        try {
+            IoUtils.deleteRecursively(dir);
+        } catch (IOException e) {
+            messageWriter.error(e, Errors.deletePath(dir));
+        }
+    }
+}
@@ -31,6 +31,7 @@ import java.nio.file.StandardCopyOption;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.Collections;
 import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.Map;
 
 /**
@@ -41,6 +42,13 @@ public class ZipUtils {
 
     private static final String JAR_FILE_PREFIX = "jar:file:";
     private static final Map<String, String> CREATE_ENV = Collections.singletonMap("create", "true");
+    private static final Map<String, String> CREATE_TEMP_FILE_ENV;
+    static {
+        final Map<String, String> env = new HashMap<>(2);
+        env.put("create", "true");
+        env.put("useTempFile", "true");
+        CREATE_TEMP_FILE_ENV = Collections.unmodifiableMap(env);
+    }
 
     public static void unzip(Path zipFile, Path targetDir) throws IOException {
         if(!Files.exists(targetDir)) {
@@ -77,9 +85,34 @@ public class ZipUtils {
                 });
     }
 
+    /**
+     * Creates a file system for a new zip file. The content of the entries is kept in memory
+     * until the file system is closed.
+     *
+     * @param zipFile  the zip file to create
+     * @return  the file system, the zip file is written when the file system is closed
+     * @throws IOException  in case of a failure
+     */
+    public static FileSystem newZipFileSystem(Path zipFile) throws IOException {
+        return newZipFileSystem(zipFile, false);
+    }
+
+    /**
+     * Creates a file system for a new zip file.
+     *
+     * @param zipFile  the zip file to create
+     * @param useTempFile  whether the content of each entry should be kept in a temporary file
+     * instead of memory until the file system is closed, which is what large archives need
+     * @return  the file system, the zip file is written when the file system is closed
+     * @throws IOException  in case of a failure
+     */
+    public static FileSystem newZipFileSystem(Path zipFile, boolean useTempFile) throws IOException {
+        return FileSystems.newFileSystem(URI.create(JAR_FILE_PREFIX + zipFile.toAbsolutePath().toString()),
+                useTempFile ? CREATE_TEMP_FILE_ENV : CREATE_ENV);
+    }
+
     public static void zip(Path src, Path zipFile) throws IOException {
-        final URI uri = URI.create(JAR_FILE_PREFIX + zipFile.toAbsolutePath().toString());
-        try (FileSystem zipfs = FileSystems.newFileSystem(uri, CREATE_ENV)) {
+        try (FileSystem zipfs = newZipFileSystem(zipFile)) {
             if(Files.isDirectory(src)) {
                 try (DirectoryStream<Path> stream = Files.newDirectoryStream(src)) {
                     for(Path srcPath : stream) {
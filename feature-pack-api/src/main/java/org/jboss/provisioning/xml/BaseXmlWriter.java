@@ -16,7 +16,9 @@
  */
 package org.jboss.provisioning.xml;
 
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.Writer;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
@@ -63,8 +65,19 @@ abstract class BaseXmlWriter<T> {
     public void write(T t, Path outputFile) throws XMLStreamException, IOException {
         final ElementNode root = toElement(t);
         ensureParentDir(outputFile);
-        try (FormattingXmlStreamWriter writer = new FormattingXmlStreamWriter(XMLOutputFactory.newInstance()
-                .createXMLStreamWriter(Files.newBufferedWriter(outputFile, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)))) {
+        // closing the stream writer does not close the underlying writer
+        try (BufferedWriter out = Files.newBufferedWriter(outputFile, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+                FormattingXmlStreamWriter writer = new FormattingXmlStreamWriter(XMLOutputFactory.newInstance().createXMLStreamWriter(out))) {
+            writer.writeStartDocument();
+            root.marshall(writer);
+            writer.writeEndDocument();
+        }
+    }
+
+    public void write(T t, Writer out) throws XMLStreamException {
+        final ElementNode root = toElement(t);
+        // closing the stream writer does not close the underlying writer
+        try (FormattingXmlStreamWriter writer = new FormattingXmlStreamWriter(XMLOutputFactory.newInstance().createXMLStreamWriter(out))) {
             writer.writeStartDocument();
             root.marshall(writer);
             writer.writeEndDocument();
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.provisioning.xml;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.jboss.provisioning.runtime.ProvisioningPlan;
+import org.jboss.provisioning.runtime.ProvisioningPlan.ConfigPlan;
+import org.jboss.provisioning.runtime.ProvisioningPlan.FeaturePackPlan;
+import org.jboss.provisioning.runtime.ProvisioningPlan.PackagePlan;
+import org.jboss.provisioning.xml.util.CommentNode;
+import org.jboss.provisioning.xml.util.ElementNode;
+
+public class ProvisioningPlanXmlWriter extends BaseXmlWriter<ProvisioningPlan> {
+
+    public static final String NAMESPACE_1_0 = "urn:wildfly:pm-provisioning-plan:1.0";
+
+    private static final String ARTIFACT_ID = "artifactId";
+    private static final String BYTES = "bytes";
+    private static final String CONFIG = "config";
+    private static final String CONFIGS = "configs";
+    private static final String FEATURE_PACK = "feature-pack";
+    private static final String FEATURES = "features";
+    private static final String FILES = "files";
+    private static final String GROUP_ID = "groupId";
+    private static final String MODEL = "model";
+    private static final String NAME = "name";
+    private static final String PACKAGE = "package";
+    private static final String PLAN = "provisioning-plan";
+    private static final String VERSION = "version";
+
+    private static final String SCOPE_NOTE = " The files and bytes count the content of the packages only."
+            + " The artifacts resolved by the provisioning plugins (e.g. the JBoss Modules artifacts referenced"
+            + " from module.xml files) and the other content generated by the plugins are not included. ";
+
+    private static final ProvisioningPlanXmlWriter INSTANCE = new ProvisioningPlanXmlWriter();
+
+    public static ProvisioningPlanXmlWriter getInstance() {
+        return INSTANCE;
+    }
+
+    private ProvisioningPlanXmlWriter() {
+    }
+
+    @Override
+    protected ElementNode toElement(ProvisioningPlan plan) throws XMLStreamException {
+        final ElementNode planE = addElement(null, PLAN, NAMESPACE_1_0);
+        addAttribute(planE, FILES, String.valueOf(plan.getFiles()));
+        addAttribute(planE, BYTES, String.valueOf(plan.getBytes()));
+        planE.addChild(new CommentNode(SCOPE_NOTE));
+
+        for(FeaturePackPlan fp : plan.getFeaturePacks()) {
+            final ElementNode fpE = addElement(planE, FEATURE_PACK, NAMESPACE_1_0);
+            addAttribute(fpE, GROUP_ID, fp.getGav().getGroupId());
+            addAttribute(fpE, ARTIFACT_ID, fp.getGav().getArtifactId());
+            if(fp.getGav().getVersion() != null) {
+                addAttribute(fpE, VERSION, fp.getGav().getVersion());
+            }
+            addAttribute(fpE, FILES, String.valueOf(fp.getFiles()));
+            addAttribute(fpE, BYTES, String.valueOf(fp.getBytes()));
+            for(PackagePlan pkg : fp.getPackages()) {
+                final ElementNode pkgE = addElement(fpE, PACKAGE, NAMESPACE_1_0);
+                addAttribute(pkgE, NAME, pkg.getName());
+                addAttribute(pkgE, FILES, String.valueOf(pkg.getFiles()));
+                addAttribute(pkgE, BYTES, String.valueOf(pkg.getBytes()));
+            }
+        }
+
+        if(!plan.getConfigs().isEmpty()) {
+            final ElementNode configsE = addElement(planE, CONFIGS, NAMESPACE_1_0);
+            for(ConfigPlan config : plan.getConfigs()) {
+                final ElementNode configE = addElement(configsE, CONFIG, NAMESPACE_1_0);
+                if(config.getModel() != null) {
+                    addAttribute(configE, MODEL, config.getModel());
+                }
+                if(config.getName() != null) {
+                    addAttribute(configE, NAME, config.getName());
+                }
+                addAttribute(configE, FEATURES, String.valueOf(config.getFeatures()));
+            }
+        }
+        return planE;
+    }
+}
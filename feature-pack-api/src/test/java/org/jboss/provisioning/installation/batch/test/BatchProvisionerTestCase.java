@@ -0,0 +1,99 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.provisioning.installation.batch.test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.jboss.provisioning.ArtifactCoords;
+import org.jboss.provisioning.ArtifactCoords.Gav;
+import org.jboss.provisioning.BatchProvisioner;
+import org.jboss.provisioning.Constants;
+import org.jboss.provisioning.Errors;
+import org.jboss.provisioning.config.ProvisioningConfig;
+import org.jboss.provisioning.test.FeaturePackRepoTestBase;
+import org.jboss.provisioning.test.util.TestUtils;
+import org.jboss.provisioning.test.util.fs.state.DirState;
+import org.jboss.provisioning.util.IoUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class BatchProvisionerTestCase extends FeaturePackRepoTestBase {
+
+    private static final Gav FP1_GAV = ArtifactCoords.newGav("org.jboss.pm.test", "fp1", "1.0.0.Final");
+    private static final Gav FP2_GAV = ArtifactCoords.newGav("org.jboss.pm.test", "fp2", "1.0.0.Final");
+    private static final Gav FP3_GAV = ArtifactCoords.newGav("org.jboss.pm.test", "fp3", "1.0.0.Final");
+
+    @Override
+    protected void doBefore() throws Exception {
+        getRepoManager().installer()
+            .newFeaturePack(FP1_GAV)
+                .newPackage("p1", true)
+                    .writeContent("fp1/p1.txt", "fp1 p1")
+                    .getFeaturePack()
+                .getInstaller()
+            .newFeaturePack(FP2_GAV)
+                .addDependency(FP1_GAV)
+                .newPackage("p1", true)
+                    .writeContent("fp2/p1.txt", "fp2 p1")
+                    .getFeaturePack()
+                .getInstaller()
+            .install();
+    }
+
+    @Test
+    public void testBatch() throws Exception {
+        final Path home1 = installHome.resolve("home1");
+        final Path home2 = installHome.resolve("home2");
+        final Path home3 = installHome.resolve("home3");
+        final Path notUsable = TestUtils.mkRandomTmpDir();
+        try {
+            Files.createDirectory(notUsable.resolve("dir"));
+            final List<BatchProvisioner.Result> results = BatchProvisioner.builder()
+                    .setArtifactResolver(getRepoManager())
+                    .setThreads(2)
+                    .addTarget(home1, ProvisioningConfig.builder().addFeaturePackDep(FP1_GAV).build())
+                    .addTarget(notUsable, ProvisioningConfig.builder().addFeaturePackDep(FP1_GAV).build())
+                    .addTarget(home2, ProvisioningConfig.builder().addFeaturePackDep(FP2_GAV).build())
+                    .addTarget(home3, ProvisioningConfig.builder().addFeaturePackDep(FP3_GAV).build())
+                    .build()
+                    .provision();
+
+            Assert.assertEquals(4, results.size());
+            Assert.assertEquals(home1, results.get(0).getInstallationHome());
+            Assert.assertTrue(results.get(0).isSuccessful());
+            Assert.assertEquals(notUsable, results.get(1).getInstallationHome());
+            Assert.assertFalse(results.get(1).isSuccessful());
+            Assert.assertEquals(Errors.homeDirNotUsable(notUsable), results.get(1).getFailure().getLocalizedMessage());
+            Assert.assertEquals(home2, results.get(2).getInstallationHome());
+            Assert.assertTrue(results.get(2).isSuccessful());
+            Assert.assertEquals(home3, results.get(3).getInstallationHome());
+            Assert.assertFalse(results.get(3).isSuccessful());
+
+            DirState.rootBuilder().skip(Constants.PROVISIONED_STATE_DIR)
+                    .addFile("fp1/p1.txt", "fp1 p1")
+                    .build().assertState(home1);
+            DirState.rootBuilder().skip(Constants.PROVISIONED_STATE_DIR)
+                    .addFile("fp1/p1.txt", "fp1 p1")
+                    .addFile("fp2/p1.txt", "fp2 p1")
+                    .build().assertState(home2);
+        } finally {
+            IoUtils.recursiveDelete(notUsable);
+        }
+    }
+}
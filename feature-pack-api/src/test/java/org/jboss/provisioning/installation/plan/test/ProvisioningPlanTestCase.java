@@ -0,0 +1,113 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.provisioning.installation.plan.test;
+
+import java.io.StringWriter;
+
+import org.jboss.provisioning.ArtifactCoords;
+import org.jboss.provisioning.ArtifactCoords.Gav;
+import org.jboss.provisioning.config.ConfigModel;
+import org.jboss.provisioning.config.FeatureConfig;
+import org.jboss.provisioning.config.ProvisioningConfig;
+import org.jboss.provisioning.runtime.ProvisioningPlan;
+import org.jboss.provisioning.runtime.ProvisioningPlan.ConfigPlan;
+import org.jboss.provisioning.runtime.ProvisioningPlan.FeaturePackPlan;
+import org.jboss.provisioning.runtime.ProvisioningPlan.PackagePlan;
+import org.jboss.provisioning.spec.FeatureParameterSpec;
+import org.jboss.provisioning.spec.FeatureSpec;
+import org.jboss.provisioning.test.FeaturePackRepoTestBase;
+import org.jboss.provisioning.test.util.fs.state.DirState;
+import org.jboss.provisioning.xml.ProvisioningPlanXmlWriter;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ProvisioningPlanTestCase extends FeaturePackRepoTestBase {
+
+    private static final Gav FP1_GAV = ArtifactCoords.newGav("org.jboss.pm.test", "fp1", "1.0.0.Final");
+    private static final Gav FP2_GAV = ArtifactCoords.newGav("org.jboss.pm.test", "fp2", "1.0.0.Final");
+
+    @Override
+    protected void doBefore() throws Exception {
+        getRepoManager().installer()
+            .newFeaturePack(FP1_GAV)
+                .addSpec(FeatureSpec.builder("specA")
+                        .addParam(FeatureParameterSpec.createId("name"))
+                        .build())
+                .addConfig(ConfigModel.builder("model1", "config1")
+                        .addFeature(new FeatureConfig("specA").setParam("name", "a1"))
+                        .addFeature(new FeatureConfig("specA").setParam("name", "a2"))
+                        .build())
+                .newPackage("p1", true)
+                    .addDependency("p2")
+                    .writeContent("fp1/p1.txt", "p1")
+                    .writeContent("fp1/p1/p1.txt", "fp1 p1")
+                    .getFeaturePack()
+                .newPackage("p2")
+                    .writeContent("fp1/p2.txt", "fp1 p2 content")
+                    .getFeaturePack()
+                .getInstaller()
+            .newFeaturePack(FP2_GAV)
+                .addDependency(FP1_GAV)
+                .newPackage("p1", true)
+                    .getFeaturePack()
+                .getInstaller()
+            .install();
+    }
+
+    @Test
+    public void testPlan() throws Exception {
+        final ProvisioningPlan plan = getPm().plan(ProvisioningConfig.builder().addFeaturePackDep(FP2_GAV).build());
+
+        Assert.assertEquals(2, plan.getFeaturePacks().size());
+        final FeaturePackPlan fp1 = plan.getFeaturePacks().get(0);
+        Assert.assertEquals(FP1_GAV, fp1.getGav());
+        Assert.assertEquals(2, fp1.getPackages().size());
+        assertPackage(fp1.getPackages().get(0), "p2", 1, 14);
+        assertPackage(fp1.getPackages().get(1), "p1", 2, 8);
+        Assert.assertEquals(3, fp1.getFiles());
+        Assert.assertEquals(22, fp1.getBytes());
+
+        final FeaturePackPlan fp2 = plan.getFeaturePacks().get(1);
+        Assert.assertEquals(FP2_GAV, fp2.getGav());
+        Assert.assertEquals(1, fp2.getPackages().size());
+        assertPackage(fp2.getPackages().get(0), "p1", 0, 0);
+
+        Assert.assertEquals(3, plan.getFiles());
+        Assert.assertEquals(22, plan.getBytes());
+
+        Assert.assertEquals(1, plan.getConfigs().size());
+        final ConfigPlan config = plan.getConfigs().get(0);
+        Assert.assertEquals("model1", config.getModel());
+        Assert.assertEquals("config1", config.getName());
+        Assert.assertEquals(2, config.getFeatures());
+
+        final StringWriter writer = new StringWriter();
+        ProvisioningPlanXmlWriter.getInstance().write(plan, writer);
+        Assert.assertTrue(writer.toString().contains(ProvisioningPlanXmlWriter.NAMESPACE_1_0));
+        // the artifacts resolved by the plugins are not part of the plan
+        Assert.assertTrue(writer.toString().contains("<!-- The files and bytes count the content of the packages only."));
+
+        // nothing is installed
+        DirState.rootBuilder().build().assertState(installHome);
+    }
+
+    private static void assertPackage(PackagePlan pkg, String name, long files, long bytes) {
+        Assert.assertEquals(name, pkg.getName());
+        Assert.assertEquals(files, pkg.getFiles());
+        Assert.assertEquals(bytes, pkg.getBytes());
+    }
+}
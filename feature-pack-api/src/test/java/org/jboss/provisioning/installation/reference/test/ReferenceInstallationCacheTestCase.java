@@ -0,0 +1,147 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.provisioning.installation.reference.test;
+
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.provisioning.ArtifactCoords;
+import org.jboss.provisioning.ArtifactCoords.Gav;
+import org.jboss.provisioning.Constants;
+import org.jboss.provisioning.config.ProvisioningConfig;
+import org.jboss.provisioning.test.FeaturePackRepoTestBase;
+import org.jboss.provisioning.test.util.TestUtils;
+import org.jboss.provisioning.test.util.fs.state.DirState;
+import org.jboss.provisioning.util.IoUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ReferenceInstallationCacheTestCase extends FeaturePackRepoTestBase {
+
+    private static final String REFERENCE_CACHE = "pmReferenceCache";
+
+    private static final Gav FP1_100_GAV = ArtifactCoords.newGav("org.jboss.pm.test", "fp1", "1.0.0.Final");
+    private static final Gav FP1_200_GAV = ArtifactCoords.newGav("org.jboss.pm.test", "fp1", "2.0.0.Final");
+
+    private Path cacheDir;
+
+    @Override
+    protected void doBefore() throws Exception {
+        getRepoManager().installer()
+            .newFeaturePack(FP1_100_GAV)
+                .newPackage("p1", true)
+                    .writeContent("fp1/p1.txt", "fp1 1.0.0")
+                    .getFeaturePack()
+                .getInstaller()
+            .newFeaturePack(FP1_200_GAV)
+                .newPackage("p1", true)
+                    .writeContent("fp1/p1.txt", "fp1 2.0.0")
+                    .getFeaturePack()
+                .getInstaller()
+            .install();
+        cacheDir = TestUtils.mkRandomTmpDir();
+        System.setProperty(REFERENCE_CACHE, cacheDir.toString());
+    }
+
+    @Override
+    protected void doAfter() throws Exception {
+        System.clearProperty(REFERENCE_CACHE);
+        IoUtils.recursiveDelete(cacheDir);
+    }
+
+    @Test
+    public void testUpgradeReusesReferenceInstallations() throws Exception {
+        getPm().install(FP1_100_GAV);
+        getPm().upgrade(FP1_200_GAV, Collections.<String, String>emptyMap());
+        assertContent("fp1 2.0.0");
+        Assert.assertEquals(2, countEntries());
+
+        // the installation of the new version is copied from the cache
+        final Path cached = findCachedFile("fp1 2.0.0");
+        IoUtils.writeFile(cached, "cached fp1 2.0.0");
+        getPm().provision(ProvisioningConfig.builder().addFeaturePackDep(FP1_100_GAV).build());
+        getPm().upgrade(FP1_200_GAV, Collections.<String, String>emptyMap());
+        assertContent("cached fp1 2.0.0");
+        Assert.assertEquals(2, countEntries());
+    }
+
+    @Test
+    public void testChangedFeaturePackInvalidatesReferenceInstallation() throws Exception {
+        getPm().install(FP1_100_GAV);
+        getPm().upgrade(FP1_200_GAV, Collections.<String, String>emptyMap());
+        assertContent("fp1 2.0.0");
+
+        getRepoManager().installer()
+            .newFeaturePack(FP1_200_GAV)
+                .newPackage("p1", true)
+                    .writeContent("fp1/p1.txt", "fp1 2.0.0 rebuilt")
+                    .getFeaturePack()
+                .getInstaller()
+            .install();
+        getPm().provision(ProvisioningConfig.builder().addFeaturePackDep(FP1_100_GAV).build());
+        getPm().upgrade(FP1_200_GAV, Collections.<String, String>emptyMap());
+        assertContent("fp1 2.0.0 rebuilt");
+        Assert.assertEquals(2, countEntries());
+    }
+
+    @Test
+    public void testUnusedReferenceInstallationsAreEvicted() throws Exception {
+        final Path stale = cacheDir.resolve("stale");
+        Files.createDirectories(stale.resolve("installation"));
+        Files.setLastModifiedTime(stale, FileTime.fromMillis(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(31)));
+
+        getPm().install(FP1_100_GAV);
+        getPm().upgrade(FP1_200_GAV, Collections.<String, String>emptyMap());
+        assertContent("fp1 2.0.0");
+        Assert.assertFalse(Files.exists(stale));
+        Assert.assertEquals(2, countEntries());
+    }
+
+    private void assertContent(String content) throws Exception {
+        DirState.rootBuilder().skip(Constants.PROVISIONED_STATE_DIR)
+                .addFile("fp1/p1.txt", content)
+                .build().assertState(installHome);
+    }
+
+    private int countEntries() throws Exception {
+        int entries = 0;
+        try(DirectoryStream<Path> stream = Files.newDirectoryStream(cacheDir)) {
+            for(Path entry : stream) {
+                Assert.assertTrue(Files.isDirectory(entry));
+                ++entries;
+            }
+        }
+        return entries;
+    }
+
+    private Path findCachedFile(String content) throws Exception {
+        try(DirectoryStream<Path> stream = Files.newDirectoryStream(cacheDir)) {
+            for(Path entry : stream) {
+                final Path file = entry.resolve("installation").resolve("fp1").resolve("p1.txt");
+                if(Files.exists(file) && IoUtils.readFile(file).trim().equals(content)) {
+                    return file;
+                }
+            }
+        }
+        Assert.fail("Cached file with content '" + content + "' not found");
+        return null;
+    }
+}
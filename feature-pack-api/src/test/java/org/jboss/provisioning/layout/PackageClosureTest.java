@@ -0,0 +1,97 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.provisioning.layout;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.jboss.provisioning.spec.PackageSpec;
+import org.jboss.provisioning.util.IoUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PackageClosureTest {
+
+    private Path packagesDir;
+
+    @Before
+    public void before() throws Exception {
+        packagesDir = IoUtils.createRandomTmpDir();
+        for(String name : new String[] {"a", "b", "c", "d", "e", "ext", "missing"}) {
+            Files.createDirectories(packagesDir.resolve(name));
+        }
+        PackageClosure.store(Arrays.asList(
+                PackageSpec.builder("a").addPackageDep("b").addPackageDep("c").build(),
+                PackageSpec.builder("b").addPackageDep("d").build(),
+                PackageSpec.builder("c").addPackageDep("d").addPackageDep("e", true).addPackageDep("a").build(),
+                PackageSpec.builder("d").build(),
+                PackageSpec.builder("e").build(),
+                PackageSpec.builder("ext").addPackageDep("a").addPackageDep("fp", "other").build(),
+                PackageSpec.builder("missing").addPackageDep("b").addPackageDep("f", true).build()),
+                packagesDir);
+    }
+
+    @After
+    public void after() throws Exception {
+        IoUtils.recursiveDelete(packagesDir);
+    }
+
+    @Test
+    public void testClosure() throws Exception {
+        final PackageClosure closure = PackageClosure.read(packagesDir.resolve("a"));
+        Assert.assertNotNull(closure);
+        Assert.assertEquals(4, closure.size());
+        assertEntry(closure, 0, "b", 2);
+        assertEntry(closure, 1, "d", 2);
+        assertEntry(closure, 2, "c", 4);
+        assertEntry(closure, 3, "e", 4);
+    }
+
+    @Test
+    public void testCycle() throws Exception {
+        final PackageClosure closure = PackageClosure.read(packagesDir.resolve("c"));
+        Assert.assertNotNull(closure);
+        Assert.assertEquals(4, closure.size());
+        assertEntry(closure, 0, "d", 1);
+        assertEntry(closure, 1, "e", 2);
+        assertEntry(closure, 2, "a", 4);
+        assertEntry(closure, 3, "b", 4);
+    }
+
+    @Test
+    public void testNoDependencies() throws Exception {
+        Assert.assertNull(PackageClosure.read(packagesDir.resolve("d")));
+    }
+
+    @Test
+    public void testExternalDependency() throws Exception {
+        Assert.assertNull(PackageClosure.read(packagesDir.resolve("ext")));
+    }
+
+    @Test
+    public void testMissingDependency() throws Exception {
+        Assert.assertNull(PackageClosure.read(packagesDir.resolve("missing")));
+    }
+
+    private static void assertEntry(PackageClosure closure, int i, String name, int end) {
+        Assert.assertEquals(name, closure.getName(i));
+        Assert.assertEquals(end, closure.getEnd(i));
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.provisioning.util;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class LinkedArtifactsTest {
+
+    private Path tmpDir;
+    private Path artifact;
+    private Path staged;
+
+    @Before
+    public void before() throws Exception {
+        tmpDir = IoUtils.createRandomTmpDir();
+        artifact = tmpDir.resolve("repo").resolve("a.jar");
+        Files.createDirectories(artifact.getParent());
+        Files.write(artifact, "artifact".getBytes());
+        staged = tmpDir.resolve("staged");
+        Files.createDirectories(staged.resolve("modules"));
+        Files.write(staged.resolve("modules").resolve("module.xml"), "module".getBytes());
+    }
+
+    @After
+    public void after() throws Exception {
+        IoUtils.recursiveDelete(tmpDir);
+    }
+
+    private static String read(Path p) throws Exception {
+        return new String(Files.readAllBytes(p));
+    }
+
+    @Test
+    public void testCopyMode() throws Exception {
+        final Path target = staged.resolve("modules").resolve("a.jar");
+        Assert.assertEquals(LinkedArtifacts.Mode.COPY, LinkedArtifacts.install(artifact, target, LinkedArtifacts.Mode.COPY));
+        Assert.assertFalse(Files.isSameFile(artifact, target));
+        Assert.assertEquals("artifact", read(target));
+    }
+
+    @Test
+    public void testHardLinksArePreserved() throws Exception {
+        final Path target = staged.resolve("modules").resolve("a.jar");
+        final LinkedArtifacts.Mode mode = LinkedArtifacts.install(artifact, target, LinkedArtifacts.Mode.HARDLINK);
+        Assert.assertTrue(Files.isSameFile(artifact, target));
+        Assert.assertEquals(LinkedArtifacts.Mode.HARDLINK, mode);
+
+        final LinkedArtifacts links = new LinkedArtifacts();
+        links.add(staged, target, artifact, mode);
+        links.write(staged);
+
+        final Path installed = tmpDir.resolve("installed");
+        final LinkedArtifacts recorded = LinkedArtifacts.read(staged);
+        Assert.assertFalse(recorded.isEmpty());
+        recorded.copyInstallation(staged, installed);
+
+        Assert.assertTrue(Files.isSameFile(artifact, installed.resolve("modules").resolve("a.jar")));
+        Assert.assertEquals("module", read(installed.resolve("modules").resolve("module.xml")));
+        Assert.assertTrue(Files.exists(PathsUtils.getLinkedArtifactsTxt(installed)));
+    }
+
+    @Test
+    public void testMissingArtifactIsCopied() throws Exception {
+        final Path target = staged.resolve("modules").resolve("a.jar");
+        final LinkedArtifacts links = new LinkedArtifacts();
+        links.add(staged, target, artifact, LinkedArtifacts.install(artifact, target, LinkedArtifacts.Mode.HARDLINK));
+        Files.delete(artifact);
+
+        final Path installed = tmpDir.resolve("installed");
+        links.copyInstallation(staged, installed);
+        Assert.assertEquals("artifact", read(installed.resolve("modules").resolve("a.jar")));
+        Assert.assertTrue(links.isEmpty());
+    }
+}
@@ -69,4 +69,20 @@ public class PathFilterTest {
         result = filter.accept(Paths.get("standalone", "configuration", "standalone_xml_history", "test.properties"));
         assertEquals(true, result);
     }
+
+    @Test
+    public void testDirectoryFlag() {
+        final PathFilter filter = PathFilter.Builder.instance()
+            .addDirectories("*" + File.separatorChar + "tmp")
+            .addFiles("*.xml", "process-uuid")
+            .build();
+        assertEquals(true, filter.accept(Paths.get("standalone", "configuration", "standalone.xml"), true));
+        assertEquals(false, filter.accept(Paths.get("standalone", "configuration", "standalone.xml"), false));
+        assertEquals(false, filter.accept(Paths.get("standalone", "data", "process-uuid"), false));
+        assertEquals(true, filter.accept(Paths.get("standalone", "data", "process-uuid2"), false));
+        assertEquals(false, filter.accept(Paths.get("standalone", "tmp"), true));
+        assertEquals(false, filter.accept(Paths.get("standalone", "tmp"), false));
+        assertEquals(false, filter.accept(Paths.get("standalone.xml"), false));
+        assertEquals(true, filter.accept(Paths.get("xml"), false));
+    }
 }
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.provisioning.util;
+
+import java.util.Collections;
+import java.util.regex.Pattern;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class WildcardMatcherTest {
+
+    private static final String[] EXPRS = {"*/tmp", "*/log", "*_xml_history", "model_diff", "standalone.xml",
+            "*.x?l", "bin/*.sh", "a*b*c", "**z", "?"};
+
+    private static final String[] VALUES = {"", "tmp", "/tmp", "a/b/tmp", "a/b/tmpx", "standalone/log",
+            "standalone_xml_history", "standalone_xml_history2", "model_diff", "model_diff/x", "standalone.xml",
+            "standalone.xsl", "standalone.xsd", "bin/standalone.sh", "bin/standalone.bat", "abc", "aXbYc", "aXbY",
+            "acb", "z", "zz", "x", "xy", ".xml", "a.b(c)", "*"};
+
+    @Test
+    public void testEmpty() {
+        Assert.assertTrue(WildcardMatcher.NONE.isEmpty());
+        Assert.assertFalse(WildcardMatcher.NONE.matches(""));
+        Assert.assertFalse(WildcardMatcher.compile(Collections.emptyList()).matches("a"));
+        Assert.assertTrue(WildcardMatcher.compile("").matches(""));
+        Assert.assertFalse(WildcardMatcher.compile("").matches("a"));
+        Assert.assertTrue(WildcardMatcher.compile("*").matches(""));
+        Assert.assertTrue(WildcardMatcher.compile("*").matches("abc"));
+    }
+
+    @Test
+    public void testSameAsRegexp() {
+        final WildcardMatcher matcher = WildcardMatcher.compile(EXPRS);
+        for(String value : VALUES) {
+            boolean expected = false;
+            for(String expr : EXPRS) {
+                if(Pattern.compile(ParsingUtils.wildcardToJavaRegexp(expr)).matcher(value).matches()) {
+                    expected = true;
+                    break;
+                }
+            }
+            Assert.assertEquals(value, expected, matcher.matches(value));
+        }
+    }
+
+    @Test
+    public void testOffset() {
+        final WildcardMatcher matcher = WildcardMatcher.compile("*.xml", "process-uuid");
+        Assert.assertTrue(matcher.matches("standalone/configuration/standalone.xml", 25));
+        Assert.assertTrue(matcher.matches("standalone/data/process-uuid", 16));
+        Assert.assertFalse(matcher.matches("standalone/data/process-uuid", 15));
+        Assert.assertTrue(matcher.matches("standalone.xml", 10));
+        Assert.assertFalse(matcher.matches("standalone.xml", 14));
+    }
+}
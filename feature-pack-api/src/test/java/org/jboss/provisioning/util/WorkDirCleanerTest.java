@@ -0,0 +1,78 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.provisioning.util;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.jboss.provisioning.DefaultMessageWriter;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class WorkDirCleanerTest {
+
+    private Path tmpDir;
+
+    @Before
+    public void before() throws Exception {
+        tmpDir = IoUtils.createRandomTmpDir();
+    }
+
+    @After
+    public void after() throws Exception {
+        IoUtils.recursiveDelete(tmpDir);
+    }
+
+    @Test
+    public void testBackgroundDelete() throws Exception {
+        final Path workDir = newWorkDir("work");
+        final Path leftover = newWorkDir(WorkDirCleaner.TOMBSTONE_PREFIX + "leftover");
+
+        final WorkDirCleaner cleaner = new WorkDirCleaner(tmpDir, 4);
+        cleaner.delete(workDir, DefaultMessageWriter.getDefaultInstance());
+        Assert.assertFalse(Files.exists(workDir));
+        Assert.assertTrue(cleaner.awaitCompletion(10, TimeUnit.SECONDS));
+        Assert.assertFalse(Files.exists(leftover));
+        assertEmpty(tmpDir);
+    }
+
+    @Test
+    public void testMaxPending() throws Exception {
+        final Path workDir = newWorkDir("work");
+        final WorkDirCleaner cleaner = new WorkDirCleaner(tmpDir, 0);
+        cleaner.delete(workDir, DefaultMessageWriter.getDefaultInstance());
+        assertEmpty(tmpDir);
+    }
+
+    private static void assertEmpty(Path dir) throws Exception {
+        try(Stream<Path> stream = Files.list(dir)) {
+            Assert.assertFalse(stream.findAny().isPresent());
+        }
+    }
+
+    private Path newWorkDir(String name) throws Exception {
+        final Path dir = tmpDir.resolve(name);
+        Files.createDirectories(dir.resolve("a").resolve("b"));
+        Files.write(dir.resolve("a").resolve("file.txt"), "content".getBytes());
+        Files.write(dir.resolve("a").resolve("b").resolve("file.txt"), "content".getBytes());
+        return dir;
+    }
+}
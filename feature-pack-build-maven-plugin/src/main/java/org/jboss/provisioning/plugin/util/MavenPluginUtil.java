@@ -39,6 +39,19 @@ import org.jboss.provisioning.util.ZipUtils;
 public class MavenPluginUtil extends AbstractLogEnabled {
 
     public InstallRequest getInstallLayoutRequest(final Path layoutDir) throws IOException {
+        return getInstallLayoutRequest(layoutDir, false);
+    }
+
+    /**
+     * Creates a request to install the feature-packs found in the layout directory.
+     *
+     * @param layoutDir  layout directory
+     * @param reuseArchives  whether the archives created for the layout previously should be installed
+     * instead of creating new ones
+     * @return  install request
+     * @throws IOException  in case of a failure
+     */
+    public InstallRequest getInstallLayoutRequest(final Path layoutDir, boolean reuseArchives) throws IOException {
         final Logger logger = getLogger();
         final InstallRequest installReq = new InstallRequest();
         try (DirectoryStream<Path> wdStream = Files.newDirectoryStream(layoutDir, entry -> Files.isDirectory(entry))) {
@@ -49,13 +62,17 @@ public class MavenPluginUtil extends AbstractLogEnabled {
                         final String artifactId = artifactDir.getFileName().toString();
                         try (DirectoryStream<Path> artifactStream = Files.newDirectoryStream(artifactDir)) {
                             for (Path versionDir : artifactStream) {
-                                logger.info("Preparing feature-pack " + versionDir.toAbsolutePath());
                                 final Path zippedFP = layoutDir.resolve(
                                         groupId + '_' + artifactId + '_' + versionDir.getFileName().toString() + ".zip");
-                                if(Files.exists(zippedFP)) {
-                                    IoUtils.recursiveDelete(zippedFP);
+                                if(reuseArchives && Files.exists(zippedFP)) {
+                                    logger.info("Reusing feature-pack " + zippedFP.toAbsolutePath());
+                                } else {
+                                    logger.info("Preparing feature-pack " + versionDir.toAbsolutePath());
+                                    if(Files.exists(zippedFP)) {
+                                        IoUtils.recursiveDelete(zippedFP);
+                                    }
+                                    ZipUtils.zip(versionDir, zippedFP);
                                 }
-                                ZipUtils.zip(versionDir, zippedFP);
                                 final Artifact artifact = new DefaultArtifact(
                                         groupDir.getFileName().toString(),
                                         artifactDir.getFileName().toString(), null,
@@ -69,4 +86,20 @@ public class MavenPluginUtil extends AbstractLogEnabled {
         }
         return installReq;
     }
+
+    /**
+     * Creates a request to install a feature-pack archive.
+     *
+     * @param groupId  feature-pack groupId
+     * @param artifactId  feature-pack artifactId
+     * @param version  feature-pack version
+     * @param archive  feature-pack archive
+     * @return  install request
+     */
+    public InstallRequest getInstallArchiveRequest(String groupId, String artifactId, String version, Path archive) {
+        getLogger().info("Installing feature-pack " + archive.toAbsolutePath());
+        final InstallRequest installReq = new InstallRequest();
+        installReq.addArtifact(new DefaultArtifact(groupId, artifactId, null, "zip", version, null, archive.toFile()));
+        return installReq;
+    }
 }
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.provisioning.cli;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.jboss.aesh.cl.Arguments;
+import org.jboss.aesh.cl.CommandDefinition;
+import org.jboss.aesh.cl.Option;
+import org.jboss.aesh.cl.completer.FileOptionCompleter;
+import org.jboss.aesh.io.Resource;
+import org.jboss.aesh.terminal.Shell;
+import org.jboss.provisioning.BatchProvisioner;
+import org.jboss.provisioning.DefaultMessageWriter;
+import org.jboss.provisioning.ProvisioningException;
+import org.jboss.provisioning.config.ProvisioningConfig;
+import org.jboss.provisioning.xml.XmlParsers;
+
+/**
+ * Provisions the installations listed in a manifest file. Each non-empty line
+ * of the manifest that does not start with '#' is the installation directory
+ * and the provisioning XML file describing the installation separated by '='.
+ * Relative paths are resolved against the directory of the manifest.
+ */
+@CommandDefinition(name="provision-batch", description="Provisions the installations listed in the manifest file")
+public class BatchProvisionCommand extends PmSessionCommand {
+
+    @Arguments(completer=FileOptionCompleter.class, description="Manifest listing the installation directories and their provisioning XML files.")
+    private List<Resource> manifestArg;
+
+    @Option(name = "threads", required = false, defaultValue = "0",
+            description = "The maximum number of installations provisioned concurrently, the number of available processors by default.")
+    private int threads;
+
+    @Option(name = "verbose", shortName = 'v', hasValue = false,
+            description = "Whether or not the output should be verbose")
+    boolean verbose;
+
+    @Override
+    protected void runCommand(PmSession session) throws CommandExecutionException {
+        if(manifestArg == null || manifestArg.isEmpty()) {
+            throw new CommandExecutionException("Missing required file path argument.");
+        }
+        if(manifestArg.size() > 1) {
+            throw new CommandExecutionException("The command expects only one argument.");
+        }
+        final Resource manifestResource = manifestArg.get(0).resolve(session.getAeshContext().getCurrentWorkingDirectory()).get(0);
+        final Path manifest = Paths.get(manifestResource.getAbsolutePath());
+        if(!Files.exists(manifest)) {
+            throw new CommandExecutionException("Failed to locate manifest file " + manifest.toAbsolutePath());
+        }
+
+        final Shell shell = session.getShell();
+        final BatchProvisioner.Builder builder = BatchProvisioner.builder()
+                .setArtifactResolver(MavenArtifactRepositoryManager.getInstance())
+                .setMessageWriter(new DefaultMessageWriter(shell.out(), shell.out(), verbose))
+                .setThreads(threads);
+        readManifest(manifest, builder);
+
+        final List<BatchProvisioner.Result> results;
+        try {
+            results = builder.build().provision();
+        } catch (ProvisioningException e) {
+            throw new CommandExecutionException("Provisioning failed", e);
+        }
+        int failed = 0;
+        for(BatchProvisioner.Result result : results) {
+            if(result.isSuccessful()) {
+                session.println(result.getInstallationHome() + ": provisioned in " + result.getTime() + " ms");
+                continue;
+            }
+            ++failed;
+            final Throwable failure = result.getFailure();
+            session.println(result.getInstallationHome() + ": failed: "
+                    + (failure.getLocalizedMessage() == null ? failure.getClass().getName() : failure.getLocalizedMessage()));
+        }
+        if(failed > 0) {
+            throw new CommandExecutionException(failed + " of " + results.size() + " installations failed to provision");
+        }
+    }
+
+    private static void readManifest(Path manifest, BatchProvisioner.Builder builder) throws CommandExecutionException {
+        final Path baseDir = manifest.toAbsolutePath().getParent();
+        try(BufferedReader reader = Files.newBufferedReader(manifest)) {
+            String line = reader.readLine();
+            while(line != null) {
+                line = line.trim();
+                if(!line.isEmpty() && line.charAt(0) != '#') {
+                    final int i = line.indexOf('=');
+                    if(i <= 0 || i == line.length() - 1) {
+                        throw new CommandExecutionException("Unexpected line format in " + manifest + ": " + line);
+                    }
+                    final Path home = baseDir.resolve(line.substring(0, i).trim());
+                    builder.addTarget(home, readConfig(baseDir.resolve(line.substring(i + 1).trim())));
+                }
+                line = reader.readLine();
+            }
+        } catch (IOException e) {
+            throw new CommandExecutionException("Failed to read " + manifest, e);
+        }
+    }
+
+    private static ProvisioningConfig readConfig(Path xml) throws CommandExecutionException {
+        if(!Files.exists(xml)) {
+            throw new CommandExecutionException("Failed to locate provisioning file " + xml.toAbsolutePath());
+        }
+        try(BufferedReader reader = Files.newBufferedReader(xml)) {
+            final ProvisioningConfig.Builder builder = ProvisioningConfig.builder();
+            XmlParsers.parse(reader, builder);
+            return builder.build();
+        } catch (IOException | XMLStreamException e) {
+            throw new CommandExecutionException("Failed to parse " + xml.toAbsolutePath(), e);
+        }
+    }
+}
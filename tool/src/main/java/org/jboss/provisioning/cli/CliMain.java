@@ -36,7 +36,35 @@ import org.jboss.aesh.extensions.rm.Rm;
  */
 public class CliMain {
 
+    private static final String DAEMON = "--daemon";
+    private static final String HELP = "--help";
+
     public static void main(String[] args) throws Exception {
+        for(String arg : args) {
+            if(arg.equals(HELP) || arg.equals("-h")) {
+                // answered without initializing the console
+                System.out.println("Usage: pm [--daemon[=<port>]]");
+                System.out.println();
+                System.out.println("Without options, starts the interactive console. Type 'help' in the console to list the commands.");
+                System.out.println("  --daemon[=<port>]  executes the commands sent to the port on the loopback interface,");
+                System.out.println("                     " + PmDaemon.DEFAULT_PORT + " by default, clients authenticate with the token");
+                System.out.println("                     written to ~/" + PmDaemon.TOKEN_DIR + "/daemon-<port>.token");
+                return;
+            }
+            if(arg.equals(DAEMON)) {
+                new PmDaemon(PmDaemon.DEFAULT_PORT).run();
+                return;
+            }
+            if(arg.startsWith(DAEMON + '=')) {
+                new PmDaemon(Integer.parseInt(arg.substring(DAEMON.length() + 1))).run();
+                return;
+            }
+        }
+
+        newConsole().start();
+    }
+
+    static AeshConsole newConsole() {
         final Settings settings = new SettingsBuilder().logging(overrideLogging()).create();
 
         final PmSession pmSession = new PmSession();
@@ -45,11 +73,13 @@ public class CliMain {
         final CommandInvocationServices ciServices = new CommandInvocationServices();
         ciServices.registerDefaultProvider(pmSession);
 
-        final AeshConsole aeshConsole = new AeshConsoleBuilder().settings(settings).prompt(pmSession.getPrompt())
+        return new AeshConsoleBuilder().settings(settings).prompt(pmSession.getPrompt())
                 // provisioning commands
                 .addCommand(new InstallCommand())
                 .addCommand(new ProvisionedSpecCommand())
                 .addCommand(new ProvisionSpecCommand())
+                .addCommand(new BatchProvisionCommand())
+                .addCommand(new PlanCommand())
                 .addCommand(new DiffCommand())
                 .addCommand(new ChangesCommand())
                 .addCommand(new UpgradeCommand())
@@ -64,7 +94,6 @@ public class CliMain {
                 .addCommand(new Pwd())
                 .commandInvocationProvider(ciServices)
                 .create();
-        aeshConsole.start();
     }
 
     private static boolean overrideLogging() {
@@ -17,17 +17,19 @@
 package org.jboss.provisioning.cli;
 
 import java.io.IOException;
-import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import org.jboss.aesh.cl.completer.OptionCompleter;
 import org.jboss.aesh.console.command.completer.CompleterInvocation;
+import org.jboss.provisioning.cli.LocalRepositoryIndex.Node;
 
 /**
+ * Completes feature-pack coordinates using the index of the local repository.
  *
  * @author Alexey Loubyansky
  */
@@ -49,81 +51,81 @@ public class GavCompleter implements OptionCompleter<CompleterInvocation> {
     }
 
     private void doComplete(CompleterInvocation ci) throws IOException {
-        final List<String> candidates = new ArrayList<>();
         final String currentValue = ci.getGivenCompleteValue();
         final int groupSeparator = currentValue.indexOf(':');
+        final Node root = LocalRepositoryIndex.getInstance(repoHome).getRoot(getGroupDir(currentValue, groupSeparator));
+        final List<String> candidates = new ArrayList<>();
         if(groupSeparator > 0) {
-            Path currentDir = repoHome;
             final String[] parts = currentValue.substring(0, groupSeparator).split("\\.");
-            for(String part : parts) {
-                currentDir = currentDir.resolve(part);
+            final Node groupNode = getNode(root, parts, parts.length);
+            if(groupNode == null) {
+                return;
             }
             if(groupSeparator == currentValue.length() - 1) {
-                try(DirectoryStream<Path> stream = Files.newDirectoryStream(currentDir)) {
-                    for(Path p : stream) {
-                        if(isArtifactDir(p)) {
-                            candidates.add(currentValue + p.getFileName());
-                        }
+                for(Map.Entry<String, Node> child : groupNode.getChildren("").entrySet()) {
+                    if(child.getValue().isArtifact()) {
+                        candidates.add(currentValue + child.getKey());
                     }
                 }
             } else {
                 final int artifactSeparator = currentValue.indexOf(':', groupSeparator + 1);
                 if(artifactSeparator > 0) {
-                    currentDir = currentDir.resolve(currentValue.substring(groupSeparator + 1, artifactSeparator));
+                    final Node artifactNode = groupNode.getChild(currentValue.substring(groupSeparator + 1, artifactSeparator));
+                    if(artifactNode == null) {
+                        return;
+                    }
                     if(artifactSeparator == currentValue.length() - 1) {
-                        try(DirectoryStream<Path> stream = Files.newDirectoryStream(currentDir)) {
-                            for(Path p : stream) {
-                                if(isVersionDir(p)) {
-                                    candidates.add(currentValue + p.getFileName());
-                                }
-                            }
+                        for(String version : artifactNode.getVersions("")) {
+                            candidates.add(currentValue + version);
                         }
                     } else {
                         final String chunk = currentValue.substring(artifactSeparator + 1);
                         final String prefix = currentValue.substring(0, artifactSeparator + 1);
-                        try(DirectoryStream<Path> stream = Files.newDirectoryStream(currentDir)) {
-                            for(Path p : stream) {
-                                if (isVersionDir(p)) {
-                                    final String dirName = p.getFileName().toString();
-                                    if (dirName.startsWith(chunk) && dirName.length() != chunk.length()) {
-                                        candidates.add(prefix + p.getFileName());
-                                    }
-                                }
+                        for(String version : artifactNode.getVersions(chunk)) {
+                            if(version.length() != chunk.length()) {
+                                candidates.add(prefix + version);
                             }
                         }
                     }
                 } else {
                     final String chunk = currentValue.substring(groupSeparator + 1);
-                    if(Files.exists(currentDir.resolve(chunk))) {
-                        if(isArtifactDir(currentDir.resolve(chunk))) {
-                            candidates.add(currentValue + ":");
-                        }
+                    final Node artifactNode = groupNode.getChild(chunk);
+                    if(artifactNode != null && artifactNode.isArtifact()) {
+                        candidates.add(currentValue + ":");
                     }
                     final String prefix = currentValue.substring(0, groupSeparator + 1);
-                    try(DirectoryStream<Path> stream = Files.newDirectoryStream(currentDir)) {
-                        for(Path p : stream) {
-                            if (isArtifactDir(p)) {
-                                final String dirName = p.getFileName().toString();
-                                if (dirName.startsWith(chunk) && dirName.length() != chunk.length()) {
-                                    candidates.add(prefix + p.getFileName());
-                                }
-                            }
+                    for(Map.Entry<String, Node> child : groupNode.getChildren(chunk).entrySet()) {
+                        if(child.getValue().isArtifact() && child.getKey().length() != chunk.length()) {
+                            candidates.add(prefix + child.getKey());
                         }
                     }
                     ci.setAppendSpace(false);
                 }
             }
         } else {
-            completeGroup(currentValue, candidates);
+            if(!completeGroup(root, currentValue, candidates)) {
+                return;
+            }
             ci.setAppendSpace(false);
         }
 
         ci.addAllCompleterValues(candidates);
     }
 
-    private void completeGroup(String currentValue, List<String> candidates) throws IOException {
+    /**
+     * The deepest group directory the completion candidates are known to be under.
+     */
+    private static String getGroupDir(String currentValue, int groupSeparator) {
+        if(groupSeparator > 0) {
+            return currentValue.substring(0, groupSeparator).replace('.', '/');
+        }
+        final int lastDot = currentValue.lastIndexOf('.');
+        return lastDot > 0 ? currentValue.substring(0, lastDot).replace('.', '/') : "";
+    }
 
-        Path groupDir = repoHome;
+    private boolean completeGroup(Node root, String currentValue, List<String> candidates) {
+
+        Node groupNode = root;
         final String chunk;
         final String prefix;
         if(currentValue.isEmpty()) {
@@ -134,104 +136,64 @@ public class GavCompleter implements OptionCompleter<CompleterInvocation> {
             if(currentValue.charAt(currentValue.length() - 1) == '.') {
                 chunk = "";
                 prefix = currentValue;
-                for(String part : parts) {
-                    groupDir = groupDir.resolve(part);
-                }
+                groupNode = getNode(root, parts, parts.length);
             } else {
                 if (parts.length == 1) {
                     chunk = parts[0];
                     prefix = "";
                 } else {
-                    int i = 0;
-                    while (i < parts.length - 1) {
-                        groupDir = groupDir.resolve(parts[i++]);
-                    }
+                    groupNode = getNode(root, parts, parts.length - 1);
                     chunk = parts[parts.length - 1];
                     prefix = currentValue.substring(0, currentValue.length() - chunk.length());
                 }
-                trySeparators(groupDir.resolve(chunk), currentValue, candidates);
-            }
-        }
-
-        try(DirectoryStream<Path> stream = Files.newDirectoryStream(groupDir)) {
-            for(Path p : stream) {
-                if (isGroupDir(p)) {
-                    final String dirName = p.getFileName().toString();
-                    if (chunk.isEmpty() || dirName.startsWith(chunk) && dirName.length() != chunk.length()) {
-                        candidates.add(prefix + dirName);
-                    }
-                }
-            }
-        }
-    }
-
-    private void trySeparators(Path dir, String prefix, List<String> candidates) throws IOException {
-        if(!Files.isDirectory(dir)) {
-            return;
-        }
-        try(DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
-            boolean group = false;
-            boolean artifact = false;
-            for(Path p : stream) {
-                if(!artifact && isArtifactDir(p)) {
-                    candidates.add(prefix + ":");
-                    if(group) {
-                        return;
-                    } else {
-                        artifact = true;
-                    }
-                } else if(!group && isGroupDir(p)) {
-                    candidates.add(prefix + ".");
-                    if(artifact) {
-                        return;
-                    } else {
-                        group = true;
-                    }
+                if(groupNode != null) {
+                    trySeparators(groupNode.getChild(chunk), currentValue, candidates);
                 }
             }
         }
-    }
-
-    private boolean isGroupDir(Path dir) throws IOException {
-        if(!Files.isDirectory(dir)) {
+        if(groupNode == null) {
             return false;
         }
-        if(isVersionDir(dir) || isArtifactDir(dir)) {
-            return false;
-        }
-        try(DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
-            for(Path p : stream) {
-                return !isVersionDir(p);
+
+        for(Map.Entry<String, Node> child : groupNode.getChildren(chunk).entrySet()) {
+            if(child.getValue().isGroup() && (chunk.isEmpty() || child.getKey().length() != chunk.length())) {
+                candidates.add(prefix + child.getKey());
             }
         }
-        return false;
+        return true;
     }
 
-    private boolean isArtifactDir(Path dir) throws IOException {
-        if(!Files.isDirectory(dir)) {
-            return false;
+    private void trySeparators(Node node, String prefix, List<String> candidates) {
+        if(node == null) {
+            return;
         }
-        try(DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
-            for(Path p : stream) {
-                if(isVersionDir(p)) {
-                    return true;
+        boolean group = false;
+        boolean artifact = false;
+        for(Node child : node.getChildren("").values()) {
+            if(!artifact && child.isArtifact()) {
+                candidates.add(prefix + ":");
+                if(group) {
+                    return;
+                } else {
+                    artifact = true;
+                }
+            } else if(!group && child.isGroup()) {
+                candidates.add(prefix + ".");
+                if(artifact) {
+                    return;
+                } else {
+                    group = true;
                 }
             }
         }
-        return false;
     }
 
-    private boolean isVersionDir(Path dir) throws IOException {
-        if(!Files.isDirectory(dir)) {
-            return false;
-        }
-        try(DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
-            for(Path p : stream) {
-                if(p.getFileName().toString().endsWith(".zip")) {
-                    return true;
-                }
-            }
+    private static Node getNode(Node root, String[] parts, int length) {
+        Node node = root;
+        int i = 0;
+        while(node != null && i < length) {
+            node = node.getChild(parts[i++]);
         }
-        return false;
+        return node;
     }
 }
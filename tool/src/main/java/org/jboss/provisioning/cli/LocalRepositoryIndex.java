@@ -0,0 +1,386 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.provisioning.cli;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.UUID;
+
+/**
+ * Index of the feature-pack artifacts in the local repository.
+ * <p>
+ * The index records the last modification times of all the directories
+ * of the repository and which of them contain feature-pack archives (i.e. the
+ * version directories). It is built by walking the repository once and is stored
+ * in {@value #INDEX_FILE} in the repository. When the index is used, the directories
+ * whose modification time has changed are re-scanned, which picks up added and
+ * removed groups, artifacts, versions and archives, including an archive added
+ * to a version directory that was scanned before the archive arrived.
+ * Only the directory the caller is interested in, its subdirectories and its parents
+ * are checked, so completing an artifact of a group does not stat the whole repository.
+ * A directory modified less than {@value #MTIME_GRANULARITY} ms before it was scanned
+ * is re-scanned the next time the index is used, since a later change might not
+ * change its modification time.
+ * <p>
+ * The content is exposed as a tree of group id parts, artifact ids and versions.
+ */
+class LocalRepositoryIndex {
+
+    static final String INDEX_FILE = ".pm-gav-index.txt";
+
+    private static final String FORMAT = "#format 2";
+    private static final long REFRESH_INTERVAL = 1000;
+    private static final long MTIME_GRANULARITY = 2000;
+    private static final long UNKNOWN_MTIME = -1;
+    private static final char DIR = 'd';
+    private static final char VERSION = 'v';
+    private static final String ZIP = ".zip";
+
+    private static final Map<Path, LocalRepositoryIndex> indexes = new HashMap<>();
+
+    static synchronized LocalRepositoryIndex getInstance(Path repoHome) {
+        LocalRepositoryIndex index = indexes.get(repoHome);
+        if(index == null) {
+            index = new LocalRepositoryIndex(repoHome);
+            indexes.put(repoHome, index);
+        }
+        return index;
+    }
+
+    static class Node {
+
+        private final NavigableMap<String, Node> children = new TreeMap<>();
+        private final NavigableSet<String> versions = new TreeSet<>();
+
+        boolean isArtifact() {
+            return !versions.isEmpty();
+        }
+
+        boolean isGroup() {
+            return versions.isEmpty() && !children.isEmpty();
+        }
+
+        Node getChild(String name) {
+            return children.get(name);
+        }
+
+        /**
+         * @param prefix  name prefix
+         * @return  the children whose names start with the prefix
+         */
+        Map<String, Node> getChildren(String prefix) {
+            return prefix.isEmpty() ? children : children.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+        }
+
+        /**
+         * @param prefix  version prefix
+         * @return  the versions starting with the prefix
+         */
+        NavigableSet<String> getVersions(String prefix) {
+            return prefix.isEmpty() ? versions : versions.subSet(prefix, true, prefix + Character.MAX_VALUE, false);
+        }
+    }
+
+    private final Path repoHome;
+    private final Path indexFile;
+    private final long refreshInterval;
+    // relative directory paths and their last modification times
+    private NavigableMap<String, Long> dirs;
+    private NavigableSet<String> versionDirs;
+    private Node root;
+    private String lastRefreshScope;
+    private long lastRefresh;
+
+    private LocalRepositoryIndex(Path repoHome) {
+        this(repoHome, REFRESH_INTERVAL);
+    }
+
+    LocalRepositoryIndex(Path repoHome, long refreshInterval) {
+        this.repoHome = repoHome;
+        this.indexFile = repoHome.resolve(INDEX_FILE);
+        this.refreshInterval = refreshInterval;
+    }
+
+    /**
+     * Returns the root of the tree of the indexed artifacts, refreshing the part
+     * of the index under the directory if it has not been refreshed recently.
+     * The parts of the tree outside the directory may be out of date.
+     *
+     * @param relativeDir  the directory relative to the repository, the parts separated with '/',
+     * or an empty string for the whole repository
+     * @return  the root of the index tree
+     * @throws IOException  in case the repository could not be read
+     */
+    synchronized Node getRoot(String relativeDir) throws IOException {
+        final long now = System.currentTimeMillis();
+        if(root != null && now - lastRefresh < refreshInterval && isUnder(relativeDir, lastRefreshScope)) {
+            return root;
+        }
+        boolean modified;
+        if(dirs == null) {
+            modified = !load();
+            if(modified) {
+                dirs = new TreeMap<>();
+                versionDirs = new TreeSet<>();
+                scan(repoHome, "");
+            } else {
+                modified = refresh(relativeDir);
+            }
+        } else {
+            modified = refresh(relativeDir);
+        }
+        if(modified || root == null) {
+            root = buildTree();
+        }
+        if(modified) {
+            store();
+        }
+        lastRefreshScope = relativeDir;
+        lastRefresh = now;
+        return root;
+    }
+
+    private static boolean isUnder(String relativeDir, String parentDir) {
+        return parentDir.isEmpty() || relativeDir.equals(parentDir) || relativeDir.startsWith(parentDir + '/');
+    }
+
+    private boolean refresh(String relativeDir) throws IOException {
+        final List<String> changed = new ArrayList<>();
+        final List<String> removed = new ArrayList<>();
+        if(!relativeDir.isEmpty()) {
+            // the parents, a new directory along the path changes their modification time
+            check("", changed, removed);
+            int i = relativeDir.indexOf('/');
+            while(i > 0) {
+                check(relativeDir.substring(0, i), changed, removed);
+                i = relativeDir.indexOf('/', i + 1);
+            }
+            check(relativeDir, changed, removed);
+        }
+        for(String dir : getSubdirs(relativeDir).keySet()) {
+            check(dir, changed, removed);
+        }
+        if(changed.isEmpty() && removed.isEmpty()) {
+            return false;
+        }
+        for(String dir : removed) {
+            remove(dir);
+        }
+        for(String dir : changed) {
+            if(dirs.containsKey(dir)) {
+                rescan(dir);
+            }
+        }
+        return true;
+    }
+
+    private void check(String relativeDir, List<String> changed, List<String> removed) throws IOException {
+        final Long lastModified = dirs.get(relativeDir);
+        if(lastModified == null) {
+            return;
+        }
+        final Path dir = toPath(relativeDir);
+        if(!Files.isDirectory(dir)) {
+            removed.add(relativeDir);
+        } else if(Files.getLastModifiedTime(dir).toMillis() != lastModified) {
+            changed.add(relativeDir);
+        }
+    }
+
+    /**
+     * @param relativeDir  relative directory
+     * @return  the indexed directories under the directory, or all the indexed directories for the root
+     */
+    private NavigableMap<String, Long> getSubdirs(String relativeDir) {
+        if(relativeDir.isEmpty()) {
+            return dirs;
+        }
+        final String prefix = relativeDir + '/';
+        return dirs.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+    }
+
+    /**
+     * Scans the subdirectories of the directory that are not in the index yet.
+     * The subdirectories already in the index are checked separately.
+     */
+    private void rescan(String relativeDir) throws IOException {
+        final Path dir = toPath(relativeDir);
+        final long lastModified = getLastModified(dir);
+        boolean hasZip = false;
+        try(DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+            for(Path p : stream) {
+                final String name = p.getFileName().toString();
+                if(Files.isDirectory(p)) {
+                    final String relativeSubdir = relativeDir.isEmpty() ? name : relativeDir + '/' + name;
+                    if(!dirs.containsKey(relativeSubdir)) {
+                        scan(p, relativeSubdir);
+                    }
+                } else if(!hasZip && name.endsWith(ZIP)) {
+                    hasZip = true;
+                }
+            }
+        }
+        if(hasZip) {
+            versionDirs.add(relativeDir);
+        } else {
+            versionDirs.remove(relativeDir);
+        }
+        dirs.put(relativeDir, lastModified);
+    }
+
+    private void remove(String relativeDir) {
+        final String prefix = relativeDir.isEmpty() ? "" : relativeDir + '/';
+        getSubdirs(relativeDir).clear();
+        dirs.remove(relativeDir);
+        versionDirs.remove(relativeDir);
+        if(prefix.isEmpty()) {
+            versionDirs.clear();
+        } else {
+            versionDirs.subSet(prefix, true, prefix + Character.MAX_VALUE, false).clear();
+        }
+    }
+
+    private void scan(Path dir, String relativeDir) throws IOException {
+        final long lastModified = getLastModified(dir);
+        boolean hasZip = false;
+        try(DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+            for(Path p : stream) {
+                final String name = p.getFileName().toString();
+                if(Files.isDirectory(p)) {
+                    scan(p, relativeDir.isEmpty() ? name : relativeDir + '/' + name);
+                } else if(!hasZip && name.endsWith(ZIP)) {
+                    hasZip = true;
+                }
+            }
+        }
+        if(hasZip) {
+            versionDirs.add(relativeDir);
+        }
+        dirs.put(relativeDir, lastModified);
+    }
+
+    /**
+     * Returns the last modification time of the directory to record in the index
+     * or {@link #UNKNOWN_MTIME} if the directory was modified too recently for
+     * a following change to be guaranteed to change its modification time.
+     * The time is read before the content of the directory is listed.
+     */
+    private static long getLastModified(Path dir) throws IOException {
+        final long lastModified = Files.getLastModifiedTime(dir).toMillis();
+        return System.currentTimeMillis() - lastModified < MTIME_GRANULARITY ? UNKNOWN_MTIME : lastModified;
+    }
+
+    private Node buildTree() {
+        final Node root = new Node();
+        for(String versionDir : versionDirs) {
+            final String[] parts = versionDir.split("/");
+            if(parts.length < 3) {
+                continue;
+            }
+            Node node = root;
+            for(int i = 0; i < parts.length - 1; ++i) {
+                Node child = node.children.get(parts[i]);
+                if(child == null) {
+                    child = new Node();
+                    node.children.put(parts[i], child);
+                }
+                node = child;
+            }
+            node.versions.add(parts[parts.length - 1]);
+        }
+        return root;
+    }
+
+    private Path toPath(String relativeDir) {
+        return relativeDir.isEmpty() ? repoHome : repoHome.resolve(relativeDir);
+    }
+
+    private boolean load() {
+        if(!Files.exists(indexFile)) {
+            return false;
+        }
+        final NavigableMap<String, Long> dirs = new TreeMap<>();
+        final NavigableSet<String> versionDirs = new TreeSet<>();
+        try(BufferedReader reader = Files.newBufferedReader(indexFile)) {
+            String line = reader.readLine();
+            if(!FORMAT.equals(line)) {
+                // written by a version that did not record all the directories
+                return false;
+            }
+            line = reader.readLine();
+            while(line != null) {
+                final int i = line.indexOf('|', 2);
+                if(line.length() < 3 || line.charAt(1) != '|' || i < 0) {
+                    return false;
+                }
+                final String dir = line.substring(i + 1);
+                dirs.put(dir, Long.parseLong(line.substring(2, i)));
+                if(line.charAt(0) == VERSION) {
+                    versionDirs.add(dir);
+                }
+                line = reader.readLine();
+            }
+        } catch (IOException | NumberFormatException e) {
+            return false;
+        }
+        this.dirs = dirs;
+        this.versionDirs = versionDirs;
+        return true;
+    }
+
+    private void store() {
+        Path tmp = null;
+        try {
+            tmp = indexFile.resolveSibling(INDEX_FILE + "." + UUID.randomUUID());
+            try(BufferedWriter writer = Files.newBufferedWriter(tmp)) {
+                writer.write(FORMAT);
+                writer.newLine();
+                for(Map.Entry<String, Long> entry : dirs.entrySet()) {
+                    writer.write(versionDirs.contains(entry.getKey()) ? VERSION : DIR);
+                    writer.write('|');
+                    writer.write(String.valueOf(entry.getValue()));
+                    writer.write('|');
+                    writer.write(entry.getKey());
+                    writer.newLine();
+                }
+            }
+            Files.move(tmp, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // the index will be rebuilt next time
+        } finally {
+            if(tmp != null) {
+                try {
+                    Files.deleteIfExists(tmp);
+                } catch (IOException e) {
+                }
+            }
+        }
+    }
+}
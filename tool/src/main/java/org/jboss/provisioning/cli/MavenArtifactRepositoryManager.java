@@ -18,7 +18,12 @@ package org.jboss.provisioning.cli;
 
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -30,6 +35,7 @@ import org.eclipse.aether.deployment.DeploymentException;
 import org.eclipse.aether.installation.InstallRequest;
 import org.eclipse.aether.installation.InstallationException;
 import org.eclipse.aether.resolution.ArtifactRequest;
+import org.eclipse.aether.resolution.ArtifactResolutionException;
 import org.eclipse.aether.resolution.ArtifactResult;
 import org.jboss.provisioning.ArtifactCoords;
 import org.jboss.provisioning.ArtifactException;
@@ -48,25 +54,109 @@ class MavenArtifactRepositoryManager implements ArtifactRepositoryManager {
         return INSTANCE;
     }
 
-    private final RepositorySystem repoSystem;
-    private final RepositorySystemSession session;
+    // initialized on first use, the artifacts found in the resolution cache do not need it
+    private RepositorySystem repoSystem;
+    private RepositorySystemSession session;
+    private final ResolutionCache resolved = new ResolutionCache();
 
     private MavenArtifactRepositoryManager() {
-        repoSystem = Util.newRepositorySystem();
-        session = Util.newRepositorySession(repoSystem);
+    }
+
+
+    private synchronized RepositorySystem getRepositorySystem() {
+        if(repoSystem == null) {
+            repoSystem = Util.newRepositorySystem();
+            session = Util.newRepositorySession(repoSystem);
+        }
+        return repoSystem;
+    }
+
+    private synchronized RepositorySystemSession getSession() {
+        getRepositorySystem();
+        return session;
     }
 
     @Override
     public Path resolve(ArtifactCoords coords) throws ArtifactException {
+        Path path = resolved.get(coords);
+        if(path == null) {
+            final ArtifactResult result;
+            try {
+                result = getRepositorySystem().resolveArtifact(getSession(), getArtifactRequest(coords));
+            } catch (ArtifactResolutionException e) {
+                throw new ArtifactException(FpMavenErrors.artifactResolution(coords), e);
+            }
+            path = getPath(coords, result);
+            resolved.put(coords, path);
+        }
+        return path;
+    }
+
+    /**
+     * Resolves the artifacts missing from the resolution cache with a single aether request,
+     * which lets aether download the missing artifacts concurrently.
+     */
+    @Override
+    public Map<ArtifactCoords, Path> resolveAll(Collection<ArtifactCoords> coords) throws ArtifactException {
+        if(coords.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        final Map<ArtifactCoords, Path> resolvedPaths = new LinkedHashMap<>(coords.size());
+        final List<ArtifactCoords> artifacts = new ArrayList<>(coords.size());
+        for(ArtifactCoords artifact : coords) {
+            final Path path = resolved.get(artifact);
+            resolvedPaths.put(artifact, path);
+            if(path == null) {
+                artifacts.add(artifact);
+            }
+        }
+        if(artifacts.isEmpty()) {
+            return resolvedPaths;
+        }
+        final List<ArtifactRequest> requests = new ArrayList<>(artifacts.size());
+        for(ArtifactCoords artifact : artifacts) {
+            requests.add(getArtifactRequest(artifact));
+        }
+        final List<ArtifactResult> results;
+        try {
+            results = getRepositorySystem().resolveArtifacts(getSession(), requests);
+        } catch (ArtifactResolutionException e) {
+            final List<ArtifactCoords> failed = new ArrayList<>();
+            final Map<ArtifactCoords, Path> partialPaths = new LinkedHashMap<>();
+            for(Map.Entry<ArtifactCoords, Path> entry : resolvedPaths.entrySet()) {
+                if(entry.getValue() != null) {
+                    partialPaths.put(entry.getKey(), entry.getValue());
+                }
+            }
+            final List<ArtifactResult> partial = e.getResults();
+            for(int i = 0; i < artifacts.size(); ++i) {
+                final ArtifactResult result = partial == null || i >= partial.size() ? null : partial.get(i);
+                if(result == null || !result.isResolved() || result.isMissing()) {
+                    failed.add(artifacts.get(i));
+                    continue;
+                }
+                final Path path = Paths.get(result.getArtifact().getFile().toURI());
+                partialPaths.put(artifacts.get(i), path);
+                resolved.put(artifacts.get(i), path);
+            }
+            throw new ArtifactException(FpMavenErrors.artifactResolution(failed), e, partialPaths);
+        }
+        for(int i = 0; i < artifacts.size(); ++i) {
+            final Path path = getPath(artifacts.get(i), results.get(i));
+            resolvedPaths.put(artifacts.get(i), path);
+            resolved.put(artifacts.get(i), path);
+        }
+        return resolvedPaths;
+    }
+
+    private static ArtifactRequest getArtifactRequest(ArtifactCoords coords) {
         final ArtifactRequest request = new ArtifactRequest();
         request.setArtifact(new DefaultArtifact(coords.getGroupId(), coords.getArtifactId(), coords.getClassifier(),
                 coords.getExtension(), coords.getVersion()));
-        final ArtifactResult result;
-        try {
-            result = repoSystem.resolveArtifact(session, request);
-        } catch (org.eclipse.aether.resolution.ArtifactResolutionException e) {
-            throw new ArtifactException(FpMavenErrors.artifactResolution(coords), e);
-        }
+        return request;
+    }
+
+    private static Path getPath(ArtifactCoords coords, ArtifactResult result) throws ArtifactException {
         if (!result.isResolved()) {
             throw new ArtifactException(FpMavenErrors.artifactResolution(coords));
         }
@@ -78,11 +168,12 @@ class MavenArtifactRepositoryManager implements ArtifactRepositoryManager {
 
     @Override
     public void install(ArtifactCoords coords, Path file) throws ArtifactException {
+        resolved.remove(coords);
         final InstallRequest request = new InstallRequest();
         request.addArtifact(new DefaultArtifact(coords.getGroupId(), coords.getArtifactId(), coords.getClassifier(),
                 coords.getExtension(), coords.getVersion(), Collections.emptyMap(), file.toFile()));
         try {
-            repoSystem.install(session, request);
+            getRepositorySystem().install(getSession(), request);
         } catch (InstallationException ex) {
             Logger.getLogger(MavenArtifactRepositoryManager.class.getName()).log(Level.SEVERE, null, ex);
         }
@@ -94,7 +185,7 @@ class MavenArtifactRepositoryManager implements ArtifactRepositoryManager {
         request.addArtifact(new DefaultArtifact(coords.getGroupId(), coords.getArtifactId(), coords.getClassifier(),
                 coords.getExtension(), coords.getVersion(), Collections.emptyMap(), file.toFile()));
         try {
-            repoSystem.deploy(session, request);
+            getRepositorySystem().deploy(getSession(), request);
         } catch (DeploymentException ex) {
             Logger.getLogger(MavenArtifactRepositoryManager.class.getName()).log(Level.SEVERE, null, ex);
         }
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.provisioning.cli;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.jboss.aesh.cl.Arguments;
+import org.jboss.aesh.cl.CommandDefinition;
+import org.jboss.aesh.cl.Option;
+import org.jboss.aesh.cl.completer.FileOptionCompleter;
+import org.jboss.aesh.io.Resource;
+import org.jboss.provisioning.ProvisioningException;
+import org.jboss.provisioning.runtime.ProvisioningPlan;
+import org.jboss.provisioning.xml.ProvisioningPlanXmlWriter;
+
+@CommandDefinition(name="plan", description="Describes what provisioning according to the specification provided in an XML file would install without installing it")
+public class PlanCommand extends ProvisioningCommand {
+
+    @Arguments(completer=FileOptionCompleter.class, description="File describing the desired provisioned state.")
+    private List<Resource> specArg;
+
+    @Option(name="output", completer=FileOptionCompleter.class, required=false,
+            description="File to save the plan to, by default the plan is printed.")
+    private String outputArg;
+
+    @Override
+    protected void runCommand(PmSession session) throws CommandExecutionException {
+
+        if(specArg == null || specArg.isEmpty()) {
+            throw new CommandExecutionException("Missing required file path argument.");
+        }
+        if(specArg.size() > 1) {
+            throw new CommandExecutionException("The command expects only one argument.");
+        }
+
+        final Resource specResource = specArg.get(0).resolve(session.getAeshContext().getCurrentWorkingDirectory()).get(0);
+        final Path provisioningFile = Paths.get(specResource.getAbsolutePath());
+        if(!Files.exists(provisioningFile)) {
+            throw new CommandExecutionException("Failed to locate provisioning file " + provisioningFile.toAbsolutePath());
+        }
+        final ProvisioningPlan plan;
+        try {
+            plan = getManager(session).plan(provisioningFile);
+        } catch (ProvisioningException e) {
+            throw new CommandExecutionException("Failed to compute provisioning plan", e);
+        }
+        try {
+            if(outputArg == null) {
+                final StringWriter writer = new StringWriter();
+                ProvisioningPlanXmlWriter.getInstance().write(plan, writer);
+                session.println(writer.toString());
+            } else {
+                ProvisioningPlanXmlWriter.getInstance().write(plan, session.resolvePath(outputArg));
+            }
+        } catch (XMLStreamException | IOException e) {
+            throw new CommandExecutionException("Failed to write provisioning plan", e);
+        }
+    }
+}
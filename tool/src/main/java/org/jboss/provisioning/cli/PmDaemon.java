@@ -0,0 +1,355 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.provisioning.cli;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jboss.provisioning.ArtifactCoords;
+import org.jboss.provisioning.ArtifactRepositoryManager;
+import org.jboss.provisioning.DefaultMessageWriter;
+import org.jboss.provisioning.ProvisioningManager;
+import org.jboss.provisioning.runtime.FeaturePackLayoutCache;
+import org.jboss.provisioning.util.HashUtils;
+
+/**
+ * Long running process executing provisioning commands sent over a local socket.
+ * <p>
+ * The daemon keeps the state that is expensive to re-create warm between the commands:
+ * the repository system and session, the artifact resolution cache and the unpacked
+ * feature-pack layouts and parsed feature-pack specs (see {@link FeaturePackLayoutCache}).
+ * Unless the {@value FeaturePackLayoutCache#LAYOUT_CACHE} system property is set,
+ * the layouts are cached in {@value #LAYOUT_CACHE_DIR} in the local repository.
+ * The layouts that have not been used for a while are removed from the cache
+ * (see {@value FeaturePackLayoutCache#LAYOUT_CACHE_MAX_AGE}).
+ * <p>
+ * The daemon listens on the loopback interface only and executes one command
+ * per connection, one connection at a time. On start, it generates a random token
+ * and writes it to {@value #TOKEN_DIR}/daemon-&lt;port&gt;.token in the user's home directory,
+ * readable by the owner only, and deletes the file on shutdown. A client sends three lines:
+ * the token, the working directory the command should be executed in and the command line.
+ * A connection that does not send the expected token is rejected. The supported commands are
+ * <ul>
+ * <li>install &lt;gav&gt;... [--dir=&lt;dir&gt;] [-v]</li>
+ * <li>uninstall &lt;gav&gt;... [--dir=&lt;dir&gt;] [-v]</li>
+ * <li>provision &lt;file&gt; [--dir=&lt;dir&gt;] [-v]</li>
+ * <li>diff --gav=&lt;gav&gt; --target=&lt;dir&gt; &lt;connection options&gt; [--dir=&lt;dir&gt;] [-v]</li>
+ * <li>changes --target=&lt;dir&gt; &lt;connection options&gt; [--dir=&lt;dir&gt;] [-v]</li>
+ * <li>upgrade --gav=&lt;gav&gt; &lt;connection options&gt; [--dir=&lt;dir&gt;] [-v]</li>
+ * <li>shutdown</li>
+ * </ul>
+ * where the connection options are the ones of the corresponding console commands:
+ * --username and --password, which are required, and --host, --port, --protocol and
+ * --server-config. The command line is split at whitespace and there is no quoting,
+ * so neither the arguments nor the option values, including the password, may contain
+ * whitespace.
+ * The daemon writes the output of the command followed by the line
+ * {@value #STATUS} and 0 if the command succeeded or 1 if it failed and closes the connection.
+ */
+class PmDaemon {
+
+    static final int DEFAULT_PORT = 9876;
+    static final String STATUS = "pm-status: ";
+
+    static final String TOKEN_DIR = ".pm";
+
+    private static final String LAYOUT_CACHE_DIR = ".cache/pm-layouts";
+    private static final int READ_TIMEOUT_MILLIS = 10000;
+
+    private static final String DIR = "--dir";
+    private static final String VERBOSE = "--verbose";
+    private static final String V = "-v";
+    private static final String GAV = "gav";
+    private static final String TARGET = "target";
+    private static final String USERNAME = "username";
+    private static final String PASSWORD = "password";
+
+    private static final Map<String, String> CONNECTION_DEFAULTS = new HashMap<>();
+    static {
+        CONNECTION_DEFAULTS.put("host", "127.0.0.1");
+        CONNECTION_DEFAULTS.put("port", "9990");
+        CONNECTION_DEFAULTS.put("protocol", "remote+http");
+        CONNECTION_DEFAULTS.put("server-config", "standalone.xml");
+        CONNECTION_DEFAULTS.put(USERNAME, null);
+        CONNECTION_DEFAULTS.put(PASSWORD, null);
+    }
+
+    static Path getTokenFile(int port) {
+        return Paths.get(System.getProperty("user.home")).resolve(TOKEN_DIR).resolve("daemon-" + port + ".token");
+    }
+
+    private final int port;
+    private final ArtifactRepositoryManager artifactResolver;
+    private byte[] token;
+    private volatile boolean shutdown;
+
+    PmDaemon(int port) {
+        this(port, MavenArtifactRepositoryManager.getInstance());
+    }
+
+    PmDaemon(int port, ArtifactRepositoryManager artifactResolver) {
+        this.port = port;
+        this.artifactResolver = artifactResolver;
+    }
+
+    void run() throws IOException {
+        if(System.getProperty(FeaturePackLayoutCache.LAYOUT_CACHE) == null) {
+            System.setProperty(FeaturePackLayoutCache.LAYOUT_CACHE,
+                    Paths.get(Util.getMavenRepositoryPath()).resolve(LAYOUT_CACHE_DIR).toString());
+        }
+        try(ServerSocket server = new ServerSocket(port, 50, InetAddress.getLoopbackAddress())) {
+            serve(server);
+        }
+    }
+
+    /**
+     * Writes the token for the port of the socket and executes the commands
+     * sent to the socket until the shutdown command.
+     */
+    void serve(ServerSocket server) throws IOException {
+        final Path tokenFile = getTokenFile(server.getLocalPort());
+        token = writeToken(tokenFile);
+        try {
+            System.out.println("Listening on " + server.getLocalSocketAddress() + ", the token is in " + tokenFile);
+            while(!shutdown) {
+                try(Socket socket = server.accept()) {
+                    socket.setSoTimeout(READ_TIMEOUT_MILLIS);
+                    handle(socket);
+                } catch(IOException e) {
+                    System.err.println("Failed to process the request: " + e.getLocalizedMessage());
+                }
+            }
+        } finally {
+            Files.deleteIfExists(tokenFile);
+        }
+    }
+
+    /**
+     * Generates a new token and writes it to the file, which is created
+     * readable and writable by the owner only.
+     */
+    private static byte[] writeToken(Path tokenFile) throws IOException {
+        final byte[] bytes = new byte[32];
+        new SecureRandom().nextBytes(bytes);
+        final boolean posix = FileSystems.getDefault().supportedFileAttributeViews().contains("posix");
+        if(!Files.exists(tokenFile.getParent())) {
+            if(posix) {
+                Files.createDirectories(tokenFile.getParent(), PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------")));
+            } else {
+                Files.createDirectories(tokenFile.getParent());
+            }
+        }
+        // a file left by a daemon that did not shut down cleanly
+        Files.deleteIfExists(tokenFile);
+        if(posix) {
+            Files.createFile(tokenFile, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+        } else {
+            Files.createFile(tokenFile);
+        }
+        final String hex = HashUtils.bytesToHexString(bytes);
+        Files.write(tokenFile, hex.getBytes(StandardCharsets.UTF_8));
+        return hex.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private void handle(Socket socket) throws IOException {
+        final BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+        final String clientToken = reader.readLine();
+        final OutputStream os = socket.getOutputStream();
+        final PrintStream out = new PrintStream(os, true, StandardCharsets.UTF_8.name());
+        if(clientToken == null || !MessageDigest.isEqual(token, clientToken.trim().getBytes(StandardCharsets.UTF_8))) {
+            out.println("Invalid token");
+            out.println(STATUS + 1);
+            return;
+        }
+        final String workDir = reader.readLine();
+        final String cmdLine = reader.readLine();
+        if(workDir == null || cmdLine == null) {
+            out.println("Expected the working directory and the command line");
+            out.println(STATUS + 1);
+            return;
+        }
+        boolean success;
+        try {
+            success = execute(Paths.get(workDir), cmdLine.trim(), out);
+        } catch(Throwable t) {
+            success = false;
+            out.print("Error: ");
+            out.println(t.getLocalizedMessage() == null ? t.getClass().getName() : t.getLocalizedMessage());
+            t = t.getCause();
+            int offset = 1;
+            while(t != null) {
+                for(int i = 0; i < offset; ++i) {
+                    out.print(" ");
+                }
+                out.print("* ");
+                out.println(t.getLocalizedMessage() == null ? t.getClass().getName() : t.getLocalizedMessage());
+                t = t.getCause();
+                ++offset;
+            }
+        }
+        out.println(STATUS + (success ? 0 : 1));
+        out.flush();
+    }
+
+    private boolean execute(Path workDir, String cmdLine, PrintStream out) throws Exception {
+        final String[] tokens = cmdLine.isEmpty() ? new String[0] : cmdLine.split("\\s+");
+        if(tokens.length == 0) {
+            out.println("Missing command");
+            return false;
+        }
+        final String cmd = tokens[0];
+        if("shutdown".equals(cmd)) {
+            shutdown = true;
+            return true;
+        }
+
+        Path targetDir = workDir;
+        boolean verbose = false;
+        final List<String> args = new ArrayList<>();
+        final Map<String, String> options = new HashMap<>();
+        for(int i = 1; i < tokens.length; ++i) {
+            final String token = tokens[i];
+            if(token.startsWith(DIR + '=')) {
+                targetDir = workDir.resolve(token.substring(DIR.length() + 1));
+            } else if(token.equals(DIR)) {
+                if(++i == tokens.length) {
+                    out.println("Missing value of " + DIR);
+                    return false;
+                }
+                targetDir = workDir.resolve(tokens[i]);
+            } else if(token.equals(V) || token.equals(VERBOSE)) {
+                verbose = true;
+            } else if(token.startsWith("--") && token.indexOf('=') > 2) {
+                final int eq = token.indexOf('=');
+                options.put(token.substring(2, eq), token.substring(eq + 1));
+            } else {
+                args.add(token);
+            }
+        }
+
+        final ProvisioningManager manager = ProvisioningManager.builder()
+                .setArtifactResolver(artifactResolver)
+                .setInstallationHome(targetDir)
+                .setMessageWriter(new DefaultMessageWriter(out, out, verbose))
+                .build();
+        if(cmd.equals("diff") || cmd.equals("changes") || cmd.equals("upgrade")) {
+            return executeFromInstallation(cmd, workDir, args, options, manager, out);
+        }
+        if(!options.isEmpty()) {
+            out.println("Unsupported options " + options.keySet());
+            return false;
+        }
+        switch(cmd) {
+            case "install":
+                for(String coord : args) {
+                    manager.install(ArtifactCoords.newGav(coord));
+                }
+                return true;
+            case "uninstall":
+                for(String coord : args) {
+                    manager.uninstall(ArtifactCoords.newGav(coord));
+                }
+                return true;
+            case "provision":
+                if(args.size() != 1) {
+                    out.println("The command expects one file path argument.");
+                    return false;
+                }
+                final Path provisioningFile = workDir.resolve(args.get(0));
+                if(!Files.exists(provisioningFile)) {
+                    out.println("Failed to locate provisioning file " + provisioningFile.toAbsolutePath());
+                    return false;
+                }
+                manager.provision(provisioningFile);
+                return true;
+            default:
+                out.println("Unsupported command " + cmd);
+                return false;
+        }
+    }
+
+    private static boolean executeFromInstallation(String cmd, Path workDir, List<String> args, Map<String, String> options,
+            ProvisioningManager manager, PrintStream out) throws Exception {
+        if(!args.isEmpty()) {
+            out.println("Unexpected arguments " + args);
+            return false;
+        }
+        final Map<String, String> parameters = new HashMap<>(CONNECTION_DEFAULTS.size() + 1);
+        String gav = null;
+        String target = null;
+        for(Map.Entry<String, String> option : options.entrySet()) {
+            if(option.getKey().equals(GAV)) {
+                gav = option.getValue();
+            } else if(option.getKey().equals(TARGET)) {
+                target = option.getValue();
+            } else if(CONNECTION_DEFAULTS.containsKey(option.getKey())) {
+                parameters.put(option.getKey(), option.getValue());
+            } else {
+                out.println("Unsupported option --" + option.getKey());
+                return false;
+            }
+        }
+        for(Map.Entry<String, String> option : CONNECTION_DEFAULTS.entrySet()) {
+            if(parameters.containsKey(option.getKey())) {
+                continue;
+            }
+            if(option.getValue() == null) {
+                out.println("Missing --" + option.getKey());
+                return false;
+            }
+            parameters.put(option.getKey(), option.getValue());
+        }
+        if(gav == null && !cmd.equals("changes")) {
+            out.println("Missing --" + GAV);
+            return false;
+        }
+        if(target == null && !cmd.equals("upgrade")) {
+            out.println("Missing --" + TARGET);
+            return false;
+        }
+        switch(cmd) {
+            case "diff":
+                parameters.put(GAV, gav);
+                manager.exportConfigurationChanges(workDir.resolve(target), parameters, true);
+                return true;
+            case "changes":
+                manager.exportConfigurationChanges(workDir.resolve(target), parameters, false);
+                return true;
+            default:
+                manager.upgrade(ArtifactCoords.newGav(gav), parameters);
+                return true;
+        }
+    }
+}
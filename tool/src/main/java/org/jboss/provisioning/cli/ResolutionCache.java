@@ -0,0 +1,113 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.provisioning.cli;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.jboss.provisioning.ArtifactCoords;
+
+/**
+ * Cache of the locations artifacts were resolved to during the session.
+ * <p>
+ * An entry is valid as long as the size and the last modification time of the
+ * resolved file are the ones recorded when the entry was added. Artifacts missing
+ * from the cache are always resolved by aether, so that its checks of the repositories
+ * the locally available artifacts came from still apply.
+ */
+class ResolutionCache {
+
+    private static class Entry {
+        final Path path;
+        final long size;
+        final long lastModified;
+
+        Entry(Path path, long size, long lastModified) {
+            this.path = path;
+            this.size = size;
+            this.lastModified = lastModified;
+        }
+
+        boolean isValid() {
+            final BasicFileAttributes attrs;
+            try {
+                attrs = Files.readAttributes(path, BasicFileAttributes.class);
+            } catch (IOException e) {
+                return false;
+            }
+            return attrs.isRegularFile() && attrs.size() == size && attrs.lastModifiedTime().toMillis() == lastModified;
+        }
+    }
+
+    private static String toKey(ArtifactCoords coords) {
+        return new StringBuilder().append(coords.getGroupId()).append(':').append(coords.getArtifactId()).append(':')
+                .append(coords.getClassifier()).append(':').append(coords.getExtension()).append(':')
+                .append(coords.getVersion()).toString();
+    }
+
+    private final Map<String, Entry> entries = new HashMap<>();
+
+    /**
+     * Returns the location the artifact was resolved to, if it is still valid.
+     *
+     * @param coords  artifact coordinates
+     * @return  the location of the artifact or null
+     */
+    synchronized Path get(ArtifactCoords coords) {
+        final String key = toKey(coords);
+        final Entry entry = entries.get(key);
+        if(entry == null) {
+            return null;
+        }
+        if(entry.isValid()) {
+            return entry.path;
+        }
+        entries.remove(key);
+        return null;
+    }
+
+    /**
+     * Records the location the artifact was resolved to.
+     *
+     * @param coords  artifact coordinates
+     * @param path  artifact location
+     */
+    synchronized void put(ArtifactCoords coords, Path path) {
+        final BasicFileAttributes attrs;
+        try {
+            attrs = Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (IOException e) {
+            return;
+        }
+        if(attrs.isRegularFile()) {
+            entries.put(toKey(coords), new Entry(path, attrs.size(), attrs.lastModifiedTime().toMillis()));
+        }
+    }
+
+    /**
+     * Forgets the location of the artifact.
+     *
+     * @param coords  artifact coordinates
+     */
+    synchronized void remove(ArtifactCoords coords) {
+        entries.remove(toKey(coords));
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.provisioning.cli;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jboss.provisioning.ArtifactCoords;
+import org.jboss.provisioning.ProvisioningManager;
+import org.jboss.provisioning.util.IoUtils;
+
+/**
+ * Measures the startup time of the tool.
+ * <p>
+ * Each run is a new JVM reporting, in milliseconds since the JVM was started,
+ * when the console and its commands were set up ({@value #CONSOLE_SETUP}), when the provisioned
+ * state of an installation was read and, if {@value #GAV} is specified, when the
+ * feature-pack was resolved. The console is not started, so the first measurement
+ * does not include the terminal initialization that precedes the first prompt. The benchmark prints the minimum, median and maximum
+ * of each measurement.
+ * <p>
+ * Options:
+ * <ul>
+ * <li>{@value #RUNS}&lt;n&gt; the number of runs, 10 by default;</li>
+ * <li>{@value #CDS}&lt;file&gt; the class data sharing archive the runs should use;</li>
+ * <li>{@value #GAV}&lt;gav&gt; the feature-pack to resolve.</li>
+ * </ul>
+ * With {@value #RUN} the measurements are performed in the current JVM, which is
+ * also how the class data sharing archive is created (see the cds profile of the module).
+ */
+public class StartupBenchmark {
+
+    private static final String CDS = "--cds=";
+    private static final String GAV = "--gav=";
+    private static final String RUN = "--run";
+    private static final String RUNS = "--runs=";
+
+    private static final String CONSOLE_SETUP = "console-setup";
+    private static final String RESOLVE = "resolve";
+    private static final String STATE = "state";
+
+    public static void main(String[] args) throws Exception {
+        int runs = 10;
+        String cds = null;
+        String gav = null;
+        boolean run = false;
+        for(String arg : args) {
+            if(arg.equals(RUN)) {
+                run = true;
+            } else if(arg.startsWith(RUNS)) {
+                runs = Integer.parseInt(arg.substring(RUNS.length()));
+            } else if(arg.startsWith(CDS)) {
+                cds = arg.substring(CDS.length());
+            } else if(arg.startsWith(GAV)) {
+                gav = arg.substring(GAV.length());
+            } else {
+                throw new IllegalArgumentException("Unrecognized argument " + arg);
+            }
+        }
+        if(run) {
+            measure(gav);
+            // the console may have started non-daemon threads
+            System.exit(0);
+        }
+
+        final Map<String, List<Long>> results = new LinkedHashMap<>();
+        for(int i = 0; i < runs; ++i) {
+            fork(cds, gav, results);
+        }
+        for(Map.Entry<String, List<Long>> entry : results.entrySet()) {
+            final List<Long> times = entry.getValue();
+            Collections.sort(times);
+            System.out.println(String.format("%-13s min %5d ms, median %5d ms, max %5d ms", entry.getKey(),
+                    times.get(0), times.get(times.size() / 2), times.get(times.size() - 1)));
+        }
+    }
+
+    private static void measure(String gav) throws Exception {
+        final long start = ManagementFactory.getRuntimeMXBean().getStartTime();
+
+        CliMain.newConsole();
+        report(CONSOLE_SETUP, start);
+
+        final Path home = IoUtils.createRandomTmpDir();
+        try {
+            ProvisioningManager.builder()
+                    .setArtifactResolver(MavenArtifactRepositoryManager.getInstance())
+                    .setInstallationHome(home)
+                    .build()
+                    .getProvisionedState();
+        } finally {
+            IoUtils.recursiveDelete(home);
+        }
+        report(STATE, start);
+
+        if(gav != null) {
+            MavenArtifactRepositoryManager.getInstance().resolve(ArtifactCoords.newGav(gav).toArtifactCoords());
+            report(RESOLVE, start);
+        }
+    }
+
+    private static void report(String name, long start) {
+        System.out.println(name + '=' + (System.currentTimeMillis() - start));
+    }
+
+    private static void fork(String cds, String gav, Map<String, List<Long>> results) throws IOException, InterruptedException {
+        final List<String> cmd = new ArrayList<>();
+        cmd.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        if(cds != null) {
+            cmd.add("-XX:SharedArchiveFile=" + cds);
+        }
+        cmd.add("-cp");
+        cmd.add(System.getProperty("java.class.path"));
+        cmd.add(StartupBenchmark.class.getName());
+        cmd.add(RUN);
+        if(gav != null) {
+            cmd.add(GAV + gav);
+        }
+        final Process process = new ProcessBuilder(cmd).redirectErrorStream(true)
+                .redirectInput(new File(System.getProperty("os.name").startsWith("Windows") ? "NUL" : "/dev/null"))
+                .start();
+        try(BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line = reader.readLine();
+            while(line != null) {
+                final int i = line.indexOf('=');
+                if(i > 0) {
+                    final String name = line.substring(0, i);
+                    if(name.equals(CONSOLE_SETUP) || name.equals(STATE) || name.equals(RESOLVE)) {
+                        List<Long> times = results.get(name);
+                        if(times == null) {
+                            times = new ArrayList<>();
+                            results.put(name, times);
+                        }
+                        times.add(Long.parseLong(line.substring(i + 1)));
+                    }
+                }
+                line = reader.readLine();
+            }
+        }
+        if(process.waitFor() != 0) {
+            throw new IllegalStateException("Benchmark run failed with exit code " + process.exitValue());
+        }
+    }
+}
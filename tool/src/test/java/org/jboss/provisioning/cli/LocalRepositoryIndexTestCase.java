@@ -0,0 +1,160 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.provisioning.cli;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.jboss.provisioning.cli.LocalRepositoryIndex.Node;
+import org.jboss.provisioning.util.IoUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class LocalRepositoryIndexTestCase {
+
+    private static final String GROUP_DIR = "org/pm/test";
+
+    private Path repoHome;
+
+    @Before
+    public void before() throws Exception {
+        repoHome = Files.createTempDirectory("pm-repo");
+    }
+
+    @After
+    public void after() throws Exception {
+        IoUtils.recursiveDelete(repoHome);
+    }
+
+    @Test
+    public void testInitialScan() throws Exception {
+        addVersion("fp1", "1.0.0.Final", true);
+        addVersion("fp1", "1.0.1.Final", true);
+        addVersion("lib", "1.0.0.Final", false);
+        age();
+        final Node group = getGroup(newIndex());
+        Assert.assertEquals(Arrays.asList("1.0.0.Final", "1.0.1.Final"), new ArrayList<>(group.getChild("fp1").getVersions("")));
+        Assert.assertNull(group.getChild("lib"));
+    }
+
+    @Test
+    public void testNewVersionDirectory() throws Exception {
+        addVersion("fp1", "1.0.0.Final", true);
+        age();
+        final LocalRepositoryIndex index = newIndex();
+        Assert.assertEquals(Collections.singletonList("1.0.0.Final"), versions(index, "fp1"));
+
+        addVersion("fp1", "1.0.1.Final", true);
+        Assert.assertEquals(Arrays.asList("1.0.0.Final", "1.0.1.Final"), versions(index, "fp1"));
+
+        addVersion("fp2", "2.0.0.Final", true);
+        Assert.assertEquals(Collections.singletonList("2.0.0.Final"), versions(index, "fp2"));
+    }
+
+    @Test
+    public void testArchiveAddedToScannedDirectory() throws Exception {
+        addVersion("fp1", "1.0.0.Final", false);
+        age();
+        final LocalRepositoryIndex index = newIndex();
+        Assert.assertNull(getGroup(index));
+
+        Files.createFile(repoHome.resolve(GROUP_DIR).resolve("fp1").resolve("1.0.0.Final").resolve("fp1-1.0.0.Final.zip"));
+        Assert.assertEquals(Collections.singletonList("1.0.0.Final"), versions(index, "fp1"));
+    }
+
+    @Test
+    public void testRemovedArtifact() throws Exception {
+        addVersion("fp1", "1.0.0.Final", true);
+        addVersion("fp2", "1.0.0.Final", true);
+        age();
+        final LocalRepositoryIndex index = newIndex();
+        Assert.assertNotNull(getGroup(index).getChild("fp1"));
+
+        IoUtils.recursiveDelete(repoHome.resolve(GROUP_DIR).resolve("fp1"));
+        final Node group = getGroup(index);
+        Assert.assertNull(group.getChild("fp1"));
+        Assert.assertNotNull(group.getChild("fp2"));
+    }
+
+    @Test
+    public void testIndexIsStored() throws Exception {
+        addVersion("fp1", "1.0.0.Final", true);
+        age();
+        newIndex().getRoot("");
+        Assert.assertTrue(Files.exists(repoHome.resolve(LocalRepositoryIndex.INDEX_FILE)));
+
+        addVersion("fp1", "1.0.1.Final", true);
+        Assert.assertEquals(Arrays.asList("1.0.0.Final", "1.0.1.Final"), versions(newIndex(), "fp1"));
+    }
+
+    private LocalRepositoryIndex newIndex() {
+        return new LocalRepositoryIndex(repoHome, 0);
+    }
+
+    private static Node getGroup(LocalRepositoryIndex index) throws IOException {
+        Node node = index.getRoot(GROUP_DIR);
+        for(String part : GROUP_DIR.split("/")) {
+            if(node == null) {
+                return null;
+            }
+            node = node.getChild(part);
+        }
+        return node;
+    }
+
+    private static List<String> versions(LocalRepositoryIndex index, String artifactId) throws IOException {
+        final Node group = getGroup(index);
+        Assert.assertNotNull(group);
+        final Node artifact = group.getChild(artifactId);
+        Assert.assertNotNull(artifactId, artifact);
+        return new ArrayList<>(artifact.getVersions(""));
+    }
+
+    private void addVersion(String artifactId, String version, boolean zip) throws IOException {
+        final Path dir = repoHome.resolve(GROUP_DIR).resolve(artifactId).resolve(version);
+        Files.createDirectories(dir);
+        Files.createFile(dir.resolve(artifactId + '-' + version + (zip ? ".zip" : ".pom")));
+    }
+
+    /**
+     * Moves the modification times of the directories to the past, so that the index
+     * relies on the changes of the modification times rather than re-scanning
+     * the directories that were modified too recently.
+     */
+    private void age() throws IOException {
+        final FileTime past = FileTime.fromMillis(System.currentTimeMillis() - 60000);
+        try(Stream<Path> paths = Files.walk(repoHome)) {
+            final Iterator<Path> i = paths.iterator();
+            while(i.hasNext()) {
+                final Path path = i.next();
+                if(Files.isDirectory(path)) {
+                    Files.setLastModifiedTime(path, past);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.provisioning.cli;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jboss.provisioning.ArtifactCoords;
+import org.jboss.provisioning.repomanager.FeaturePackRepositoryManager;
+import org.jboss.provisioning.util.IoUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PmDaemonTestCase {
+
+    private static final ArtifactCoords.Gav FP_GAV = ArtifactCoords.newGav("org.pm.test", "fp1", "1.0.0.Final");
+
+    private Path workDir;
+    private String userHome;
+    private FeaturePackRepositoryManager repo;
+    private ServerSocket server;
+    private Thread daemonThread;
+    private String token;
+
+    @Before
+    public void before() throws Exception {
+        workDir = Files.createTempDirectory("pm-daemon");
+        userHome = System.getProperty("user.home");
+        System.setProperty("user.home", workDir.resolve("home").toString());
+
+        repo = FeaturePackRepositoryManager.newInstance(workDir.resolve("repo"));
+        repo.installer()
+            .newFeaturePack(FP_GAV)
+                .newPackage("main", true)
+                    .writeContent("fp1/content.txt", "fp1")
+                    .getFeaturePack()
+                .getInstaller()
+            .install();
+
+        server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        final PmDaemon daemon = new PmDaemon(server.getLocalPort(), repo);
+        daemonThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    daemon.serve(server);
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        });
+        daemonThread.start();
+        token = readToken(PmDaemon.getTokenFile(server.getLocalPort()));
+    }
+
+    @After
+    public void after() throws Exception {
+        try {
+            if(daemonThread != null && daemonThread.isAlive()) {
+                send(token, "shutdown");
+                daemonThread.join(10000);
+            }
+            if(server != null) {
+                server.close();
+            }
+        } finally {
+            System.setProperty("user.home", userHome);
+            IoUtils.recursiveDelete(workDir);
+        }
+    }
+
+    @Test
+    public void testInvalidTokenIsRejected() throws Exception {
+        final List<String> response = send("invalid", "install " + FP_GAV + " --dir=install");
+        Assert.assertEquals("pm-status: 1", last(response));
+        Assert.assertTrue(response.contains("Invalid token"));
+        Assert.assertFalse(Files.exists(workDir.resolve("install")));
+
+        // the daemon keeps serving the clients that know the token
+        Assert.assertEquals("pm-status: 1", last(send(token, "unknown-command")));
+    }
+
+    @Test
+    public void testInstall() throws Exception {
+        final List<String> response = send(token, "install " + FP_GAV + " --dir=install");
+        Assert.assertEquals(response.toString(), "pm-status: 0", last(response));
+        final Path content = workDir.resolve("install").resolve("fp1").resolve("content.txt");
+        Assert.assertTrue(Files.exists(content));
+        Assert.assertEquals("fp1", new String(Files.readAllBytes(content), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testShutdown() throws Exception {
+        final Path tokenFile = PmDaemon.getTokenFile(server.getLocalPort());
+        Assert.assertEquals("pm-status: 0", last(send(token, "shutdown")));
+        daemonThread.join(10000);
+        Assert.assertFalse(daemonThread.isAlive());
+        Assert.assertFalse(Files.exists(tokenFile));
+    }
+
+    private List<String> send(String token, String cmdLine) throws IOException {
+        try(Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getLocalPort())) {
+            final Writer writer = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8);
+            writer.write(token + '\n' + workDir + '\n' + cmdLine + '\n');
+            writer.flush();
+            final List<String> lines = new ArrayList<>();
+            try(BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8))) {
+                String line = reader.readLine();
+                while(line != null) {
+                    lines.add(line);
+                    line = reader.readLine();
+                }
+            }
+            return lines;
+        }
+    }
+
+    private static String last(List<String> lines) {
+        return lines.isEmpty() ? null : lines.get(lines.size() - 1);
+    }
+
+    private static String readToken(Path tokenFile) throws Exception {
+        final long timeout = System.currentTimeMillis() + 10000;
+        while(System.currentTimeMillis() < timeout) {
+            if(Files.exists(tokenFile)) {
+                final String token = new String(Files.readAllBytes(tokenFile), StandardCharsets.UTF_8);
+                if(token.length() == 64) {
+                    return token;
+                }
+            }
+            Thread.sleep(10);
+        }
+        throw new IllegalStateException("The daemon did not write the token to " + tokenFile);
+    }
+}
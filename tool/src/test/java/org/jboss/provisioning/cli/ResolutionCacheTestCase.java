@@ -0,0 +1,96 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.provisioning.cli;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import org.jboss.provisioning.ArtifactCoords;
+import org.jboss.provisioning.util.IoUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ResolutionCacheTestCase {
+
+    private static final ArtifactCoords COORDS = ArtifactCoords.newInstance("org.pm.test", "artifact", "1.0.0.Final", "jar");
+
+    private Path dir;
+    private Path artifact;
+    private ResolutionCache cache;
+
+    @Before
+    public void before() throws Exception {
+        dir = Files.createTempDirectory("pm-resolution");
+        artifact = dir.resolve("artifact-1.0.0.Final.jar");
+        Files.write(artifact, "content".getBytes(StandardCharsets.UTF_8));
+        cache = new ResolutionCache();
+    }
+
+    @After
+    public void after() throws Exception {
+        IoUtils.recursiveDelete(dir);
+    }
+
+    @Test
+    public void testUnknownArtifact() throws Exception {
+        Assert.assertNull(cache.get(COORDS));
+    }
+
+    @Test
+    public void testResolvedArtifact() throws Exception {
+        cache.put(COORDS, artifact);
+        Assert.assertEquals(artifact, cache.get(COORDS));
+        Assert.assertNull(cache.get(ArtifactCoords.newInstance("org.pm.test", "artifact", "1.0.1.Final", "jar")));
+    }
+
+    @Test
+    public void testSizeChangeInvalidatesEntry() throws Exception {
+        cache.put(COORDS, artifact);
+        final FileTime lastModified = Files.getLastModifiedTime(artifact);
+        Files.write(artifact, "changed content".getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(artifact, lastModified);
+        Assert.assertNull(cache.get(COORDS));
+    }
+
+    @Test
+    public void testLastModifiedChangeInvalidatesEntry() throws Exception {
+        cache.put(COORDS, artifact);
+        Files.setLastModifiedTime(artifact, FileTime.fromMillis(Files.getLastModifiedTime(artifact).toMillis() - 60000));
+        Assert.assertNull(cache.get(COORDS));
+        // resolved again
+        cache.put(COORDS, artifact);
+        Assert.assertEquals(artifact, cache.get(COORDS));
+    }
+
+    @Test
+    public void testDeletedArtifact() throws Exception {
+        cache.put(COORDS, artifact);
+        Files.delete(artifact);
+        Assert.assertNull(cache.get(COORDS));
+    }
+
+    @Test
+    public void testRemove() throws Exception {
+        cache.put(COORDS, artifact);
+        cache.remove(COORDS);
+        Assert.assertNull(cache.get(COORDS));
+    }
+}
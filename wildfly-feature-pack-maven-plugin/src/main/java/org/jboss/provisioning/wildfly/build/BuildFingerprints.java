@@ -0,0 +1,198 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.provisioning.wildfly.build;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.jboss.provisioning.util.HashUtils;
+
+/**
+ * Fingerprints of the inputs of a feature-pack build.
+ * <p>
+ * The build fingerprint covers everything that affects the feature-pack as a whole,
+ * i.e. the build configuration, the resources other than the modules, the artifact versions
+ * and the set of the modules. Each module has its own fingerprint of the content
+ * of its directory. A module package has to be regenerated only if the build fingerprint
+ * is the same as the previous one and the module fingerprint has changed.
+ */
+class BuildFingerprints {
+
+    private static final String BUILD = "build";
+    private static final String MODULE_PREFIX = "module.";
+
+    /**
+     * Reads the fingerprints stored by a previous build.
+     *
+     * @param file  fingerprints file
+     * @return  the fingerprints or null if the file does not exist
+     * @throws IOException  in case the file could not be read
+     */
+    static BuildFingerprints load(Path file) throws IOException {
+        if(!Files.exists(file)) {
+            return null;
+        }
+        final BuildFingerprints fingerprints = new BuildFingerprints();
+        try(BufferedReader reader = Files.newBufferedReader(file)) {
+            String line = reader.readLine();
+            while(line != null) {
+                final int i = line.indexOf('=');
+                if(i > 0) {
+                    final String name = line.substring(0, i);
+                    if(name.equals(BUILD)) {
+                        fingerprints.build = line.substring(i + 1);
+                    } else if(name.startsWith(MODULE_PREFIX)) {
+                        fingerprints.modules.put(name.substring(MODULE_PREFIX.length()), line.substring(i + 1));
+                    }
+                }
+                line = reader.readLine();
+            }
+        }
+        return fingerprints.build == null ? null : fingerprints;
+    }
+
+    private final MessageDigest digest;
+    private String build;
+    private final Map<String, String> modules = new HashMap<>();
+
+    BuildFingerprints() {
+        try {
+            digest = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Adds a value to the build fingerprint.
+     */
+    BuildFingerprints update(String value) {
+        digest.update(value.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        return this;
+    }
+
+    /**
+     * Adds the names and the content of the files under the directory to the build fingerprint.
+     *
+     * @param dir  directory
+     * @param excluded  a directory whose content should not be included or null
+     */
+    BuildFingerprints update(Path dir, Path excluded) throws IOException {
+        update(digest, dir, dir, excluded);
+        return this;
+    }
+
+    /**
+     * Completes the build fingerprint.
+     */
+    void completeBuild() {
+        build = HashUtils.bytesToHexString(digest.digest());
+    }
+
+    String getBuild() {
+        return build;
+    }
+
+    /**
+     * Computes the fingerprint of the content of the module directory.
+     * Must be called after the build fingerprint has been completed.
+     *
+     * @param name  module package name
+     * @param moduleDir  module directory
+     */
+    void addModule(String name, Path moduleDir) throws IOException {
+        update(digest, moduleDir, moduleDir, null);
+        modules.put(name, HashUtils.bytesToHexString(digest.digest()));
+    }
+
+    /**
+     * Returns the names of the modules whose fingerprints match the ones
+     * from the previous build, provided the build fingerprints match.
+     *
+     * @param previous  fingerprints of the previous build
+     * @return  names of the unchanged modules
+     */
+    Set<String> getUnchangedModules(BuildFingerprints previous) {
+        final Set<String> unchanged = new HashSet<>(modules.size());
+        if(!build.equals(previous.build)) {
+            return unchanged;
+        }
+        for(Map.Entry<String, String> module : modules.entrySet()) {
+            if(module.getValue().equals(previous.modules.get(module.getKey()))) {
+                unchanged.add(module.getKey());
+            }
+        }
+        return unchanged;
+    }
+
+    void store(Path file) throws IOException {
+        try(BufferedWriter writer = Files.newBufferedWriter(file)) {
+            writer.write(BUILD);
+            writer.write('=');
+            writer.write(build);
+            writer.newLine();
+            for(Map.Entry<String, String> module : new TreeMap<>(modules).entrySet()) {
+                writer.write(MODULE_PREFIX);
+                writer.write(module.getKey());
+                writer.write('=');
+                writer.write(module.getValue());
+                writer.newLine();
+            }
+        }
+    }
+
+    private static void update(MessageDigest digest, Path root, Path path, Path excluded) throws IOException {
+        if(Files.isDirectory(path)) {
+            if(path.equals(excluded)) {
+                return;
+            }
+            final Map<String, Path> sortedChildren = new TreeMap<>();
+            try(DirectoryStream<Path> stream = Files.newDirectoryStream(path)) {
+                for(Path p : stream) {
+                    sortedChildren.put(p.getFileName().toString(), p);
+                }
+            }
+            for(Path child : sortedChildren.values()) {
+                update(digest, root, child, excluded);
+            }
+            return;
+        }
+        digest.update(root.relativize(path).toString().getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        try(InputStream in = Files.newInputStream(path)) {
+            final byte[] bytes = new byte[8192];
+            int read;
+            while((read = in.read(bytes)) > -1) {
+                digest.update(bytes, 0, read);
+            }
+        }
+    }
+}
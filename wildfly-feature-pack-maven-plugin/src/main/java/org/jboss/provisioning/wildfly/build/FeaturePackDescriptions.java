@@ -0,0 +1,188 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.provisioning.wildfly.build;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.jboss.provisioning.Constants;
+import org.jboss.provisioning.Errors;
+import org.jboss.provisioning.ProvisioningDescriptionException;
+import org.jboss.provisioning.layout.FeaturePackLayout;
+import org.jboss.provisioning.layout.FeaturePackLayoutDescriber;
+import org.jboss.provisioning.spec.FeaturePackSpec;
+import org.jboss.provisioning.util.HashUtils;
+import org.jboss.provisioning.util.IoUtils;
+import org.jboss.provisioning.xml.FeaturePackXmlWriter;
+import org.jboss.provisioning.xml.XmlParsers;
+
+/**
+ * Describes feature-pack archives the feature-pack being built depends on.
+ * <p>
+ * If the cache directory is set, the descriptions are stored in it under the content
+ * hash of the archive, so that an unchanged archive is opened and its packages are
+ * parsed only once across builds. A cached description consists of the
+ * {@value Constants#FEATURE_PACK_XML} and {@value #PACKAGES_TXT} listing the names
+ * of the packages of the feature-pack.
+ */
+class FeaturePackDescriptions {
+
+    private static final String PACKAGES_TXT = "packages.txt";
+
+    static class Description {
+
+        private final FeaturePackSpec spec;
+        private final Set<String> packageNames;
+
+        private Description(FeaturePackSpec spec, Set<String> packageNames) {
+            this.spec = spec;
+            this.packageNames = Collections.unmodifiableSet(packageNames);
+        }
+
+        FeaturePackSpec getSpec() {
+            return spec;
+        }
+
+        boolean hasPackage(String name) {
+            return packageNames.contains(name);
+        }
+
+        Set<String> getPackageNames() {
+            return packageNames;
+        }
+    }
+
+    private final Path cacheDir;
+
+    /**
+     * @param cacheDir  the directory to cache the descriptions in or null
+     * if the descriptions should not be cached
+     */
+    FeaturePackDescriptions(Path cacheDir) {
+        this.cacheDir = cacheDir;
+    }
+
+    /**
+     * Describes the feature-pack archive. This method is safe to call concurrently.
+     *
+     * @param fpZip  feature-pack archive
+     * @return  description of the feature-pack
+     * @throws IOException  in case of an I/O failure
+     * @throws ProvisioningDescriptionException  in case the feature-pack could not be described
+     */
+    Description describe(Path fpZip) throws IOException, ProvisioningDescriptionException {
+        if(cacheDir == null) {
+            return describeZip(fpZip);
+        }
+        final Path cached = cacheDir.resolve(hash(fpZip));
+        if(Files.exists(cached.resolve(PACKAGES_TXT))) {
+            return load(cached);
+        }
+        final Description description = describeZip(fpZip);
+        Files.createDirectories(cacheDir);
+        final Path tmp = cacheDir.resolve(cached.getFileName() + "." + UUID.randomUUID());
+        try {
+            store(description, tmp);
+            Files.move(tmp, cached, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException | DirectoryNotEmptyException e) {
+            // described concurrently
+        } catch (IOException e) {
+            // depending on the file system, moving onto a non-empty directory
+            // may fail with a generic exception
+            if(!Files.isDirectory(cached)) {
+                throw e;
+            }
+        } finally {
+            IoUtils.recursiveDelete(tmp);
+        }
+        return description;
+    }
+
+    private static Description describeZip(Path fpZip) throws IOException, ProvisioningDescriptionException {
+        final FeaturePackLayout layout = FeaturePackLayoutDescriber.describeFeaturePackZip(fpZip);
+        return new Description(layout.getSpec(), new TreeSet<>(layout.getPackageNames()));
+    }
+
+    private static Description load(Path dir) throws IOException, ProvisioningDescriptionException {
+        final Path fpXml = dir.resolve(Constants.FEATURE_PACK_XML);
+        final FeaturePackSpec.Builder specBuilder = FeaturePackSpec.builder();
+        try(BufferedReader reader = Files.newBufferedReader(fpXml)) {
+            XmlParsers.parse(reader, specBuilder);
+        } catch (XMLStreamException e) {
+            throw new ProvisioningDescriptionException(Errors.parseXml(fpXml), e);
+        }
+        final Set<String> packageNames = new TreeSet<>();
+        try(BufferedReader reader = Files.newBufferedReader(dir.resolve(PACKAGES_TXT))) {
+            String line = reader.readLine();
+            while(line != null) {
+                if(!line.isEmpty()) {
+                    packageNames.add(line);
+                }
+                line = reader.readLine();
+            }
+        }
+        return new Description(specBuilder.build(), packageNames);
+    }
+
+    private static void store(Description description, Path dir) throws IOException {
+        try {
+            FeaturePackXmlWriter.getInstance().write(description.spec, dir.resolve(Constants.FEATURE_PACK_XML));
+        } catch (XMLStreamException e) {
+            throw new IOException(Errors.writeFile(dir.resolve(Constants.FEATURE_PACK_XML)), e);
+        }
+        try(BufferedWriter writer = Files.newBufferedWriter(dir.resolve(PACKAGES_TXT))) {
+            for(String name : description.packageNames) {
+                writer.write(name);
+                writer.newLine();
+            }
+        }
+    }
+
+    private static String hash(Path file) throws IOException {
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+        try(InputStream in = Files.newInputStream(file)) {
+            final byte[] bytes = new byte[8192];
+            int read;
+            while((read = in.read(bytes)) > -1) {
+                digest.update(bytes, 0, read);
+            }
+        } catch (IOException e) {
+            throw new IOException(Errors.readFile(file), e);
+        }
+        return HashUtils.bytesToHexString(digest.digest());
+    }
+}
@@ -23,6 +23,7 @@ import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.TreeMap;
 
 import org.apache.maven.artifact.Artifact;
 import org.apache.maven.project.MavenProject;
@@ -60,6 +61,12 @@ class MavenProjectArtifactVersions {
         return versions.get(gac);
     }
 
+    void updateFingerprint(BuildFingerprints fingerprints) {
+        for(Map.Entry<String, String> entry : new TreeMap<>(versions).entrySet()) {
+            fingerprints.update(entry.getKey()).update(entry.getValue());
+        }
+    }
+
     void store(Path target) throws IOException {
         try(BufferedWriter writer = Files.newBufferedWriter(target, StandardOpenOption.CREATE)) {
             for(Map.Entry<String, String> entry : versions.entrySet()) {
@@ -21,6 +21,7 @@ import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.net.URISyntaxException;
 import java.nio.file.DirectoryStream;
 import java.nio.file.FileVisitResult;
 import java.nio.file.FileVisitor;
@@ -28,15 +29,31 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.security.CodeSource;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Enumeration;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 import javax.inject.Inject;
 import javax.xml.stream.XMLStreamException;
 
 import nu.xom.ParsingException;
+import org.apache.maven.artifact.Artifact;
 import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
@@ -63,12 +80,13 @@ import org.jboss.provisioning.config.ConfigId;
 import org.jboss.provisioning.config.ConfigModel;
 import org.jboss.provisioning.config.FeaturePackConfig;
 import org.jboss.provisioning.layout.FeaturePackLayout;
-import org.jboss.provisioning.layout.FeaturePackLayoutDescriber;
+import org.jboss.provisioning.layout.PackageClosure;
 import org.jboss.provisioning.plugin.FpMavenErrors;
 import org.jboss.provisioning.plugin.util.MavenPluginUtil;
 import org.jboss.provisioning.plugin.wildfly.WfConstants;
 import org.jboss.provisioning.spec.FeaturePackSpec;
 import org.jboss.provisioning.spec.PackageSpec;
+import org.jboss.provisioning.util.ArchiveSink;
 import org.jboss.provisioning.util.IoUtils;
 import org.jboss.provisioning.util.PropertyUtils;
 import org.jboss.provisioning.wildfly.build.ModuleParseResult.ModuleDependency;
@@ -90,6 +108,10 @@ public class WfFeaturePackBuildMojo extends AbstractMojo {
 
     private static final boolean OS_WINDOWS = PropertyUtils.isWindows();
 
+    private static final String SCHEMA_DIR = WfConstants.SCHEMA + '/';
+
+    private static final String FINGERPRINTS_FILE = "wildfly-feature-pack-build.fingerprints";
+
     @Parameter(defaultValue = "${project}", readonly = true, required = true)
     protected MavenProject project;
 
@@ -139,13 +161,49 @@ public class WfFeaturePackBuildMojo extends AbstractMojo {
     @Parameter(alias="release-name", defaultValue = "${product.release.name}", required=true)
     private String releaseName;
 
+    /**
+     * The number of threads the modules are packaged with.
+     * Defaults to the number of available processors, 1 disables the concurrent packaging.
+     */
+    @Parameter(alias = "module-threads", defaultValue = "0", property = "wildfly.feature.pack.moduleThreads")
+    private int moduleThreads;
+
+    /**
+     * Whether only the packages of the modules whose content changed since the previous build
+     * should be regenerated. If none of the inputs changed, the previously built feature-pack
+     * archive is installed as is.
+     */
+    @Parameter(defaultValue = "false", property = "wildfly.feature.pack.incremental")
+    private boolean incremental;
+
+    /**
+     * Whether the feature-pack content should be laid out in the work directory before it is archived,
+     * which is useful for debugging. Otherwise the content is written into the archive as it is produced.
+     * The incremental build always lays out the content.
+     */
+    @Parameter(alias = "exploded-layout", defaultValue = "false", property = "wildfly.feature.pack.explodedLayout")
+    private boolean explodedLayout;
+
+    /**
+     * The directory the descriptions of the feature-pack dependencies are cached in
+     * under the hash of the dependency archive. An empty value disables the cache.
+     * The default location is removed by a clean build, point it to a shared directory
+     * to reuse the descriptions across modules and clean builds.
+     */
+    @Parameter(alias = "description-cache", defaultValue = "${project.build.directory}/wildfly-feature-pack-descriptions",
+            property = "wildfly.feature.pack.descriptionCache")
+    private String descriptionCache;
+
+    @Parameter(defaultValue = "${plugin.version}", readonly = true)
+    private String pluginVersion;
+
     @Inject
     private MavenPluginUtil mavenPluginUtil;
 
     private MavenProjectArtifactVersions artifactVersions;
 
     private WildFlyFeaturePackBuild wfFpConfig;
-    private Map<String, FeaturePackLayout> fpDependencies = Collections.emptyMap();
+    private Map<String, FeaturePackDescriptions.Description> fpDependencies = Collections.emptyMap();
     private final PackageSpec.Builder docsBuilder = PackageSpec.builder(WfConstants.DOCS);
 
     @Override
@@ -178,11 +236,80 @@ public class WfFeaturePackBuildMojo extends AbstractMojo {
             throw new MojoExecutionException(Errors.copyFile(Paths.get(configDir.getAbsolutePath()).resolve(resourcesDir), targetResources), e1);
         }
 
+        final Path srcModulesDir = targetResources.resolve(WfConstants.MODULES).resolve(WfConstants.SYSTEM).resolve(WfConstants.LAYERS).resolve(WfConstants.BASE);
+        if(!Files.exists(srcModulesDir)) {
+            throw new MojoExecutionException(Errors.pathDoesNotExist(srcModulesDir));
+        }
+        final Map<String, Path> moduleXmlByPkgName;
+        try {
+            moduleXmlByPkgName = findModules(srcModulesDir);
+        } catch (IOException e) {
+            throw new MojoExecutionException("Failed to process modules content", e);
+        }
+        if(moduleXmlByPkgName.isEmpty()) {
+            throw new MojoExecutionException("Modules not found in " + srcModulesDir);
+        }
+
         final Path workDir = Paths.get(buildName, WfConstants.LAYOUT);
         //getLog().info("WfFeaturePackBuildMojo.execute " + workDir);
-        IoUtils.recursiveDelete(workDir);
+        Set<String> unchangedModules = Collections.emptySet();
+        BuildFingerprints fingerprints = null;
+        final Path fingerprintsFile = Paths.get(buildName, FINGERPRINTS_FILE);
+        if(incremental) {
+            final BuildFingerprints previous;
+            try {
+                fingerprints = getFingerprints(targetResources, srcModulesDir, moduleXmlByPkgName);
+                previous = BuildFingerprints.load(fingerprintsFile);
+                // the fingerprints are stored again once the build completes
+                Files.deleteIfExists(fingerprintsFile);
+            } catch (IOException e) {
+                throw new MojoExecutionException("Failed to fingerprint the feature-pack build inputs", e);
+            }
+            if(previous != null && Files.exists(workDir)) {
+                unchangedModules = fingerprints.getUnchangedModules(previous);
+            }
+            if(unchangedModules.size() == moduleXmlByPkgName.size()) {
+                getLog().info("The feature-pack build inputs have not changed since the previous build");
+                installLayout(workDir, true);
+                storeFingerprints(fingerprints, fingerprintsFile);
+                return;
+            }
+            if(unchangedModules.isEmpty()) {
+                IoUtils.recursiveDelete(workDir);
+            } else {
+                getLog().info("Regenerating " + (moduleXmlByPkgName.size() - unchangedModules.size()) + " changed module package(s)");
+            }
+        } else {
+            IoUtils.recursiveDelete(workDir);
+        }
         final String fpArtifactId = project.getArtifactId() + "-new";
-        final Path fpDir = workDir.resolve(project.getGroupId()).resolve(fpArtifactId).resolve(project.getVersion());
+        // the incremental build relies on the layout of the previous build
+        final boolean exploded = explodedLayout || incremental;
+        final Path archive = workDir.resolve(project.getGroupId() + '_' + fpArtifactId + '_' + project.getVersion() + ".zip");
+        try (ArchiveSink sink = exploded
+                ? ArchiveSink.newExploded(workDir.resolve(project.getGroupId()).resolve(fpArtifactId).resolve(project.getVersion()), null)
+                : ArchiveSink.newArchive(archive)) {
+            buildFeaturePack(sink.getRoot(), fpArtifactId, targetResources, moduleXmlByPkgName, unchangedModules);
+        } catch (IOException e) {
+            throw new MojoExecutionException(Errors.writeFile(archive), e);
+        }
+
+        if(exploded) {
+            installLayout(workDir, false);
+        } else {
+            try {
+                repoSystem.install(repoSession, mavenPluginUtil.getInstallArchiveRequest(project.getGroupId(), fpArtifactId, project.getVersion(), archive));
+            } catch (InstallationException e) {
+                throw new MojoExecutionException(FpMavenErrors.featurePackInstallation(), e);
+            }
+        }
+        if(fingerprints != null) {
+            storeFingerprints(fingerprints, fingerprintsFile);
+        }
+    }
+
+    private void buildFeaturePack(final Path fpDir, String fpArtifactId, Path targetResources,
+            Map<String, Path> moduleXmlByPkgName, Set<String> unchangedModules) throws MojoExecutionException {
         final Path fpPackagesDir = fpDir.resolve(Constants.PACKAGES);
 
         // feature-pack builder
@@ -208,24 +335,15 @@ public class WfFeaturePackBuildMojo extends AbstractMojo {
             throw new MojoExecutionException("Failed to process dependencies", e);
         }
 
-        final Path srcModulesDir = targetResources.resolve(WfConstants.MODULES).resolve(WfConstants.SYSTEM).resolve(WfConstants.LAYERS).resolve(WfConstants.BASE);
-        if(!Files.exists(srcModulesDir)) {
-            throw new MojoExecutionException(Errors.pathDoesNotExist(srcModulesDir));
-        }
-
         final PackageSpec.Builder modulesAll = PackageSpec.builder(WfConstants.MODULES_ALL);
         try {
-            final Map<String, Path> moduleXmlByPkgName = findModules(srcModulesDir);
-            if(moduleXmlByPkgName.isEmpty()) {
-                throw new MojoExecutionException("Modules not found in " + srcModulesDir);
-            }
-            packageModules(fpBuilder, targetResources, moduleXmlByPkgName, fpPackagesDir, modulesAll);
+            packageModules(fpBuilder, targetResources, moduleXmlByPkgName, unchangedModules, fpPackagesDir, modulesAll);
         } catch (IOException e) {
             throw new MojoExecutionException("Failed to process modules content", e);
         }
         if(!fpDependencies.isEmpty()) {
-            for(Map.Entry<String, FeaturePackLayout> fpDep : fpDependencies.entrySet()) {
-                final FeaturePackLayout fpDepLayout = fpDep.getValue();
+            for(Map.Entry<String, FeaturePackDescriptions.Description> fpDep : fpDependencies.entrySet()) {
+                final FeaturePackDescriptions.Description fpDepLayout = fpDep.getValue();
                 if (fpDepLayout.hasPackage(WfConstants.MODULES_ALL)) {
                     modulesAll.addPackageDep(fpDep.getKey(), WfConstants.MODULES_ALL);
                 }
@@ -278,6 +396,11 @@ public class WfFeaturePackBuildMojo extends AbstractMojo {
         } catch (XMLStreamException | IOException | ProvisioningDescriptionException e) {
             throw new MojoExecutionException(Errors.writeFile(fpDir.resolve(Constants.FEATURE_PACK_XML)), e);
         }
+        try {
+            PackageClosure.store(fpLayout.getPackages(), fpPackagesDir);
+        } catch (IOException e) {
+            throw new MojoExecutionException("Failed to store package dependency closures", e);
+        }
 
         copyDirIfExists(targetResources.resolve(Constants.FEATURES), fpDir.resolve(Constants.FEATURES));
         copyDirIfExists(targetResources.resolve(Constants.FEATURE_GROUPS), fpDir.resolve(Constants.FEATURE_GROUPS));
@@ -313,14 +436,90 @@ public class WfFeaturePackBuildMojo extends AbstractMojo {
                 throw new MojoExecutionException(Errors.copyFile(scriptsDir, resourcesWildFly.resolve(WfConstants.SCRIPTS)), e);
             }
         }
+    }
 
+    private void installLayout(Path workDir, boolean reuseArchives) throws MojoExecutionException {
         try {
-            repoSystem.install(repoSession, mavenPluginUtil.getInstallLayoutRequest(workDir));
+            repoSystem.install(repoSession, mavenPluginUtil.getInstallLayoutRequest(workDir, reuseArchives));
         } catch (InstallationException | IOException e) {
             throw new MojoExecutionException(FpMavenErrors.featurePackInstallation(), e);
         }
     }
 
+    private BuildFingerprints getFingerprints(Path resourcesDir, Path modulesDir, Map<String, Path> moduleXmlByPkgName)
+            throws IOException, MojoExecutionException {
+        final BuildFingerprints fingerprints = new BuildFingerprints();
+        fingerprints.update(project.getGroupId()).update(project.getArtifactId()).update(project.getVersion());
+        fingerprints.update(String.valueOf(releaseName));
+        fingerprints.update(String.valueOf(pluginVersion));
+        final WildFlyFeaturePackBuild buildConfig;
+        try {
+            final Path fpConfigFile = getFPConfigFile();
+            fingerprints.update(fpConfigFile, null);
+            buildConfig = Util.loadFeaturePackBuildConfig(fpConfigFile);
+        } catch (ProvisioningException e) {
+            throw new MojoExecutionException("Failed to load feature-pack config file", e);
+        }
+        fingerprints.update(resourcesDir, modulesDir);
+        artifactVersions.updateFingerprint(fingerprints);
+        try {
+            updateFingerprint(fingerprints, resolveArtifact(WF_PLUGIN_COORDS));
+        } catch (ProvisioningException e) {
+            throw new MojoExecutionException("Failed to resolve plug-in artifact " + WF_PLUGIN_COORDS, e);
+        }
+        // a SNAPSHOT build of this plug-in does not change its version
+        final Path mojoJar = getMojoJar();
+        if(mojoJar != null) {
+            updateFingerprint(fingerprints, mojoJar);
+        }
+        // the dependency versions are already in but a rebuilt SNAPSHOT dependency keeps its version
+        for(FeaturePackDependencySpec depSpec : buildConfig.getDependencies()) {
+            final ArtifactCoords depCoords = getDependencyGav(depSpec.getTarget()).toArtifactCoords();
+            try {
+                updateFingerprint(fingerprints, resolveArtifact(depCoords));
+            } catch (ProvisioningException e) {
+                throw new MojoExecutionException("Failed to resolve feature-pack dependency " + depCoords, e);
+            }
+        }
+        // the packages generated for the modules depend on which modules are present
+        final List<String> packageNames = new ArrayList<>(moduleXmlByPkgName.keySet());
+        Collections.sort(packageNames);
+        for(String packageName : packageNames) {
+            fingerprints.update(packageName);
+        }
+        fingerprints.completeBuild();
+        for(String packageName : packageNames) {
+            fingerprints.addModule(packageName, moduleXmlByPkgName.get(packageName).getParent());
+        }
+        return fingerprints;
+    }
+
+    private static void updateFingerprint(BuildFingerprints fingerprints, Path artifact) throws IOException {
+        fingerprints.update(artifact.toString()).update(String.valueOf(Files.size(artifact)))
+                .update(String.valueOf(Files.getLastModifiedTime(artifact).toMillis()));
+    }
+
+    private static Path getMojoJar() {
+        final CodeSource codeSource = WfFeaturePackBuildMojo.class.getProtectionDomain().getCodeSource();
+        if(codeSource == null || codeSource.getLocation() == null) {
+            return null;
+        }
+        try {
+            final Path path = Paths.get(codeSource.getLocation().toURI());
+            return Files.isRegularFile(path) ? path : null;
+        } catch (URISyntaxException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static void storeFingerprints(BuildFingerprints fingerprints, Path fingerprintsFile) throws MojoExecutionException {
+        try {
+            fingerprints.store(fingerprintsFile);
+        } catch (IOException e) {
+            throw new MojoExecutionException(Errors.writeFile(fingerprintsFile), e);
+        }
+    }
+
     private void copyDirIfExists(final Path srcDir, final Path targetDir) throws MojoExecutionException {
         if(Files.exists(srcDir)) {
             try {
@@ -342,9 +541,9 @@ public class WfFeaturePackBuildMojo extends AbstractMojo {
             throw new MojoExecutionException("Failed to resolve plug-in artifact " + WF_PLUGIN_COORDS);
         }
         try {
-            IoUtils.copy(wfPlugInPath, pluginsDir.resolve(wfPlugInPath.getFileName()));
+            IoUtils.copy(wfPlugInPath, pluginsDir.resolve(wfPlugInPath.getFileName().toString()));
         } catch (IOException e) {
-            throw new MojoExecutionException(Errors.copyFile(wfPlugInPath, pluginsDir.resolve(wfPlugInPath.getFileName())));
+            throw new MojoExecutionException(Errors.copyFile(wfPlugInPath, pluginsDir.resolve(wfPlugInPath.getFileName().toString())));
         }
     }
 
@@ -385,6 +584,63 @@ public class WfFeaturePackBuildMojo extends AbstractMojo {
                 }
             }
         }
+        writeSchemaIndex(schemaGroupsTxt.resolveSibling(WfConstants.SCHEMA_INDEX_TXT));
+    }
+
+    /**
+     * Records the schema entries of the project artifacts that belong to the schema groups,
+     * so that the provisioning plug-in does not have to scan the artifacts for them.
+     * Each line consists of the artifact version string, as it appears in the artifact versions
+     * properties, followed by '=' and an entry path relative to the schema directory of the artifact.
+     * An artifact without schemas is recorded with an empty entry path.
+     */
+    private void writeSchemaIndex(Path schemaIndexTxt) throws MojoExecutionException {
+        final Map<String, List<String>> index = new TreeMap<>();
+        for(Artifact artifact : project.getArtifacts()) {
+            if(!wfFpConfig.isSchemaGroup(artifact.getGroupId()) || artifact.getFile() == null
+                    || !artifact.getFile().getName().endsWith(".jar")) {
+                continue;
+            }
+            final StringBuilder buf = new StringBuilder(artifact.getGroupId()).append(':')
+                    .append(artifact.getArtifactId()).append(':').append(artifact.getVersion());
+            final String classifier = artifact.getClassifier();
+            if(classifier != null && !classifier.isEmpty()) {
+                buf.append(':').append(classifier);
+            }
+            final List<String> entries = new ArrayList<>(0);
+            try(ZipFile zip = new ZipFile(artifact.getFile())) {
+                final Enumeration<? extends ZipEntry> zipEntries = zip.entries();
+                while(zipEntries.hasMoreElements()) {
+                    final ZipEntry entry = zipEntries.nextElement();
+                    final String name = entry.getName();
+                    if(!entry.isDirectory() && name.startsWith(SCHEMA_DIR) && name.length() > SCHEMA_DIR.length()) {
+                        entries.add(name.substring(SCHEMA_DIR.length()));
+                    }
+                }
+            } catch (IOException e) {
+                throw new MojoExecutionException(Errors.readFile(artifact.getFile().toPath()), e);
+            }
+            Collections.sort(entries);
+            index.put(buf.toString(), entries);
+        }
+        try(BufferedWriter writer = Files.newBufferedWriter(schemaIndexTxt)) {
+            for(Map.Entry<String, List<String>> artifact : index.entrySet()) {
+                if(artifact.getValue().isEmpty()) {
+                    writer.write(artifact.getKey());
+                    writer.write('=');
+                    writer.newLine();
+                    continue;
+                }
+                for(String entry : artifact.getValue()) {
+                    writer.write(artifact.getKey());
+                    writer.write('=');
+                    writer.write(entry);
+                    writer.newLine();
+                }
+            }
+        } catch (IOException e) {
+            throw new MojoExecutionException(Errors.writeFile(schemaIndexTxt), e);
+        }
     }
 
     private void addConfigPackages(final Path configDir, final Path packagesDir, final FeaturePackLayout.Builder fpBuilder) throws MojoExecutionException {
@@ -393,7 +649,7 @@ public class WfFeaturePackBuildMojo extends AbstractMojo {
         }
         try(DirectoryStream<Path> stream = Files.newDirectoryStream(configDir)) {
             for(Path configPackage : stream) {
-                final Path packageDir = packagesDir.resolve(configPackage.getFileName());
+                final Path packageDir = packagesDir.resolve(configPackage.getFileName().toString());
                 if (!Files.exists(packageDir)) {
                     mkdirs(packageDir);
                 }
@@ -423,16 +679,10 @@ public class WfFeaturePackBuildMojo extends AbstractMojo {
             return;
         }
 
-        fpDependencies = new HashMap<>(wfFpConfig.getDependencies().size());
+        final Map<String, Path> depZips = new LinkedHashMap<>(wfFpConfig.getDependencies().size());
         for (FeaturePackDependencySpec depSpec : wfFpConfig.getDependencies()) {
             final FeaturePackConfig depConfig = depSpec.getTarget();
-            final String depStr = depConfig.getGav().toString();
-            String gavStr = artifactVersions.getVersion(depStr);
-            if (gavStr == null) {
-                throw new MojoExecutionException("Failed resolve artifact version for " + depStr);
-            }
-            gavStr = gavStr.replace(depStr, depStr + "-new");
-            final ArtifactCoords.Gav depGav = ArtifactCoords.newGav(gavStr);
+            final ArtifactCoords.Gav depGav = getDependencyGav(depConfig);
             final FeaturePackConfig.Builder depBuilder = FeaturePackConfig.builder(depGav);
             depBuilder.setInheritPackages(depConfig.isInheritPackages());
             if (depConfig.hasExcludedPackages()) {
@@ -481,9 +731,70 @@ public class WfFeaturePackBuildMojo extends AbstractMojo {
                 }
             }
             fpBuilder.addFeaturePackDep(depSpec.getName(), depBuilder.build());
-            final Path depZip = resolveArtifact(depGav.toArtifactCoords());
-            fpDependencies.put(depSpec.getName(), FeaturePackLayoutDescriber.describeFeaturePackZip(depZip));
+            depZips.put(depSpec.getName(), resolveArtifact(depGav.toArtifactCoords()));
+        }
+        fpDependencies = describeFpDependencies(depZips);
+    }
+
+    private ArtifactCoords.Gav getDependencyGav(FeaturePackConfig depConfig) throws MojoExecutionException {
+        final String depStr = depConfig.getGav().toString();
+        String gavStr = artifactVersions.getVersion(depStr);
+        if (gavStr == null) {
+            throw new MojoExecutionException("Failed resolve artifact version for " + depStr);
         }
+        gavStr = gavStr.replace(depStr, depStr + "-new");
+        return ArtifactCoords.newGav(gavStr);
+    }
+
+    private Map<String, FeaturePackDescriptions.Description> describeFpDependencies(Map<String, Path> depZips) throws MojoExecutionException {
+        final FeaturePackDescriptions descriptions = new FeaturePackDescriptions(
+                descriptionCache == null || descriptionCache.isEmpty() ? null : Paths.get(descriptionCache));
+        final Map<String, FeaturePackDescriptions.Description> result = new HashMap<>(depZips.size());
+        final int threads = Math.min(moduleThreads > 0 ? moduleThreads : Runtime.getRuntime().availableProcessors(), depZips.size());
+        if(threads <= 1) {
+            for(Map.Entry<String, Path> depZip : depZips.entrySet()) {
+                try {
+                    result.put(depZip.getKey(), descriptions.describe(depZip.getValue()));
+                } catch (IOException | ProvisioningException e) {
+                    throw new MojoExecutionException("Failed to describe feature-pack " + depZip.getValue(), e);
+                }
+            }
+            return result;
+        }
+
+        final ExecutorService executor = newThreadPool("wf-fp-describe-", threads);
+        try {
+            final Map<String, Future<FeaturePackDescriptions.Description>> futures = new LinkedHashMap<>(depZips.size());
+            for(Map.Entry<String, Path> depZip : depZips.entrySet()) {
+                futures.put(depZip.getKey(), executor.submit(new Callable<FeaturePackDescriptions.Description>() {
+                    @Override
+                    public FeaturePackDescriptions.Description call() throws Exception {
+                        return descriptions.describe(depZip.getValue());
+                    }
+                }));
+            }
+            MojoExecutionException failure = null;
+            for(Map.Entry<String, Future<FeaturePackDescriptions.Description>> future : futures.entrySet()) {
+                try {
+                    result.put(future.getKey(), future.getValue().get());
+                } catch (ExecutionException e) {
+                    if(failure == null) {
+                        failure = new MojoExecutionException("Failed to describe feature-pack " + depZips.get(future.getKey()), e.getCause());
+                    } else {
+                        failure.addSuppressed(e.getCause());
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new MojoExecutionException("Interrupted while describing feature-pack dependencies", e);
+                }
+            }
+            if(failure != null) {
+                throw failure;
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return result;
     }
 
     private void packageContent(FeaturePackLayout.Builder fpBuilder, Path contentDir, Path packagesDir) throws IOException, MojoExecutionException {
@@ -578,70 +889,176 @@ public class WfFeaturePackBuildMojo extends AbstractMojo {
     }
 
     private void packageModules(FeaturePackLayout.Builder fpBuilder,
-            Path resourcesDir, Map<String, Path> moduleXmlByPkgName, Path packagesDir, PackageSpec.Builder modulesAll)
-            throws IOException, MojoExecutionException {
+            Path resourcesDir, Map<String, Path> moduleXmlByPkgName, Set<String> unchangedModules, Path packagesDir,
+            PackageSpec.Builder modulesAll) throws IOException, MojoExecutionException {
+
+        final Map<String, String> fpDepByPackage = indexFpDependencyPackages();
+        // the packages are added in the order of their names whatever the order they were generated in
+        final List<String> packageNames = new ArrayList<>(moduleXmlByPkgName.keySet());
+        Collections.sort(packageNames);
+        final int threads = Math.min(moduleThreads > 0 ? moduleThreads : Runtime.getRuntime().availableProcessors(), packageNames.size());
+        if(threads <= 1) {
+            for(String packageName : packageNames) {
+                final PackageSpec pkgSpec = packageModule(resourcesDir, moduleXmlByPkgName, fpDepByPackage, packagesDir, packageName,
+                        unchangedModules.contains(packageName));
+                modulesAll.addPackageDep(packageName, true);
+                fpBuilder.addPackage(pkgSpec);
+            }
+            return;
+        }
+
+        final ExecutorService executor = newThreadPool("wf-fp-module-", threads);
+        try {
+            final List<Future<PackageSpec>> futures = new ArrayList<>(packageNames.size());
+            for(String packageName : packageNames) {
+                futures.add(executor.submit(new Callable<PackageSpec>() {
+                    @Override
+                    public PackageSpec call() throws Exception {
+                        return packageModule(resourcesDir, moduleXmlByPkgName, fpDepByPackage, packagesDir, packageName,
+                                unchangedModules.contains(packageName));
+                    }
+                }));
+            }
+            Exception failure = null;
+            for(int i = 0; i < futures.size(); ++i) {
+                final PackageSpec pkgSpec;
+                try {
+                    pkgSpec = futures.get(i).get();
+                } catch (ExecutionException e) {
+                    final Throwable cause = e.getCause();
+                    if(failure != null) {
+                        failure.addSuppressed(cause);
+                    } else if(cause instanceof IOException || cause instanceof MojoExecutionException) {
+                        failure = (Exception) cause;
+                    } else {
+                        failure = new MojoExecutionException("Failed to package module " + packageNames.get(i), cause);
+                    }
+                    continue;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new MojoExecutionException("Interrupted while packaging modules", e);
+                }
+                if(failure == null) {
+                    modulesAll.addPackageDep(pkgSpec.getName(), true);
+                    fpBuilder.addPackage(pkgSpec);
+                }
+            }
+            if(failure instanceof IOException) {
+                throw (IOException) failure;
+            }
+            if(failure != null) {
+                throw (MojoExecutionException) failure;
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
 
-        for (Map.Entry<String, Path> module : moduleXmlByPkgName.entrySet()) {
-            final String packageName = module.getKey();
-            final Path moduleXml = module.getValue();
+    /**
+     * Maps the names of the packages of the feature-pack dependencies to the names
+     * of the dependencies they belong to. A package found in more than one dependency
+     * is mapped to null.
+     */
+    private Map<String, String> indexFpDependencyPackages() {
+        if(fpDependencies.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        final Map<String, String> fpDepByPackage = new HashMap<>();
+        for(Map.Entry<String, FeaturePackDescriptions.Description> depEntry : fpDependencies.entrySet()) {
+            for(String pkgName : depEntry.getValue().getPackageNames()) {
+                if(fpDepByPackage.containsKey(pkgName)) {
+                    fpDepByPackage.put(pkgName, null);
+                } else {
+                    fpDepByPackage.put(pkgName, depEntry.getKey());
+                }
+            }
+        }
+        return fpDepByPackage;
+    }
 
-            final Path packageDir = packagesDir.resolve(packageName);
-            final Path targetXml = packageDir.resolve(WfConstants.PM).resolve(WfConstants.WILDFLY).resolve(WfConstants.MODULE).resolve(resourcesDir.relativize(moduleXml));
-            mkdirs(targetXml.getParent());
-            IoUtils.copy(moduleXml.getParent(), targetXml.getParent());
+    private String getFpDependency(Map<String, String> fpDepByPackage, String depName) throws MojoExecutionException {
+        final String depSrc = fpDepByPackage.get(depName);
+        if(depSrc != null || !fpDepByPackage.containsKey(depName)) {
+            return depSrc;
+        }
+        final StringBuilder buf = new StringBuilder();
+        buf.append("Package ").append(depName).append(" found in more than one feature-pack dependency: ");
+        boolean comma = false;
+        for(Map.Entry<String, FeaturePackDescriptions.Description> depEntry : fpDependencies.entrySet()) {
+            if(depEntry.getValue().hasPackage(depName)) {
+                if(comma) {
+                    buf.append(" and ");
+                } else {
+                    comma = true;
+                }
+                buf.append(depEntry.getKey());
+            }
+        }
+        throw new MojoExecutionException(buf.toString());
+    }
 
-            final PackageSpec.Builder pkgSpecBuilder = PackageSpec.builder(packageName);
-            final ModuleParseResult parsedModule;
-            try {
-                parsedModule = ModuleXmlParser.parse(targetXml, WfConstants.UTF8);
-                if (!parsedModule.dependencies.isEmpty()) {
-                    for (ModuleDependency moduleDep : parsedModule.dependencies) {
-                        final StringBuilder buf = new StringBuilder();
-                        buf.append(moduleDep.getModuleId().getName()).append('.').append(moduleDep.getModuleId().getSlot());
-                        final String depName = buf.toString();
-                        if (moduleXmlByPkgName.containsKey(depName)) {
-                            pkgSpecBuilder.addPackageDep(depName, moduleDep.isOptional());
+    private PackageSpec packageModule(Path resourcesDir, Map<String, Path> moduleXmlByPkgName,
+            Map<String, String> fpDepByPackage, Path packagesDir, String packageName, boolean unchanged)
+            throws IOException, MojoExecutionException {
+        final Path moduleXml = moduleXmlByPkgName.get(packageName);
+
+        final Path packageDir = packagesDir.resolve(packageName);
+        final Path packageXml = packageDir.resolve(Constants.PACKAGE_XML);
+        if(Files.exists(packageXml)) {
+            if(unchanged) {
+                // generated by the previous build from the same content
+                try (BufferedReader reader = Files.newBufferedReader(packageXml)) {
+                    return PackageXmlParser.getInstance().parse(reader);
+                } catch (XMLStreamException e) {
+                    throw new IOException(Errors.parseXml(packageXml), e);
+                }
+            }
+            IoUtils.recursiveDelete(packageDir);
+        }
+        final Path targetXml = packageDir.resolve(WfConstants.PM).resolve(WfConstants.WILDFLY).resolve(WfConstants.MODULE).resolve(resourcesDir.relativize(moduleXml).toString());
+        mkdirs(targetXml.getParent());
+        IoUtils.copy(moduleXml.getParent(), targetXml.getParent());
+
+        final PackageSpec.Builder pkgSpecBuilder = PackageSpec.builder(packageName);
+        final ModuleParseResult parsedModule;
+        try {
+            parsedModule = ModuleXmlParser.parse(targetXml, WfConstants.UTF8);
+            if (!parsedModule.dependencies.isEmpty()) {
+                final StringBuilder buf = new StringBuilder();
+                for (ModuleDependency moduleDep : parsedModule.dependencies) {
+                    buf.setLength(0);
+                    buf.append(moduleDep.getModuleId().getName()).append('.').append(moduleDep.getModuleId().getSlot());
+                    final String depName = buf.toString();
+                    if (moduleXmlByPkgName.containsKey(depName)) {
+                        pkgSpecBuilder.addPackageDep(depName, moduleDep.isOptional());
+                    } else {
+                        final String depSrc = getFpDependency(fpDepByPackage, depName);
+                        if(depSrc != null) {
+                            pkgSpecBuilder.addPackageDep(depSrc, depName, moduleDep.isOptional());
+                        } else if(moduleDep.isOptional()){
+                            //getLog().warn("UNSATISFIED EXTERNAL OPTIONAL DEPENDENCY " + packageName + " -> " + depName);
                         } else {
-                            Map.Entry<String, FeaturePackLayout> depSrc = null;
-                            if (!fpDependencies.isEmpty()) {
-                                for (Map.Entry<String, FeaturePackLayout> depEntry : fpDependencies.entrySet()) {
-                                    if (depEntry.getValue().hasPackage(depName)) {
-                                        if (depSrc != null) {
-                                            throw new MojoExecutionException("Package " + depName
-                                                    + " found in more than one feature-pack dependency: " + depSrc.getKey()
-                                                    + " and " + depEntry.getKey());
-                                        }
-                                        depSrc = depEntry;
-                                    }
-                                }
-                            }
-                            if(depSrc != null) {
-                                pkgSpecBuilder.addPackageDep(depSrc.getKey(), depName, moduleDep.isOptional());
-                            } else if(moduleDep.isOptional()){
-                                //getLog().warn("UNSATISFIED EXTERNAL OPTIONAL DEPENDENCY " + packageName + " -> " + depName);
-                            } else {
-                                throw new MojoExecutionException("Package " + packageName + " has unsatisifed external dependency on package " + depName);
-                            }
+                            throw new MojoExecutionException("Package " + packageName + " has unsatisifed external dependency on package " + depName);
                         }
                     }
                 }
-            } catch (ParsingException e) {
-                throw new IOException(Errors.parseXml(targetXml), e);
             }
+        } catch (ParsingException e) {
+            throw new IOException(Errors.parseXml(targetXml), e);
+        }
 
-            final PackageSpec pkgSpec = pkgSpecBuilder.build();
-            try {
-                PackageXmlWriter.getInstance().write(pkgSpec, packageDir.resolve(Constants.PACKAGE_XML));
-            } catch (XMLStreamException e) {
-                throw new IOException(Errors.writeFile(packageDir.resolve(Constants.PACKAGE_XML)), e);
-            }
-            modulesAll.addPackageDep(packageName, true);
-            fpBuilder.addPackage(pkgSpec);
+        final PackageSpec pkgSpec = pkgSpecBuilder.build();
+        try {
+            PackageXmlWriter.getInstance().write(pkgSpec, packageXml);
+        } catch (XMLStreamException e) {
+            throw new IOException(Errors.writeFile(packageXml), e);
+        }
 
-            if (!OS_WINDOWS) {
-                Files.setPosixFilePermissions(targetXml, Files.getPosixFilePermissions(moduleXml));
-            }
+        // the permissions are not supported by the archive file system
+        if (!OS_WINDOWS && targetXml.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+            Files.setPosixFilePermissions(targetXml, Files.getPosixFilePermissions(moduleXml));
         }
+        return pkgSpec;
     }
 
     private Properties getFPConfigProperties() {
@@ -659,6 +1076,24 @@ public class WfFeaturePackBuildMojo extends AbstractMojo {
         return path;
     }
 
+    /**
+     * Creates a pool of named daemon threads, so that an abandoned task
+     * cannot keep the build JVM from exiting.
+     */
+    private static ExecutorService newThreadPool(String namePrefix, int threads) {
+        final ClassLoader tccl = Thread.currentThread().getContextClassLoader();
+        return Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            private final AtomicInteger counter = new AtomicInteger();
+            @Override
+            public Thread newThread(Runnable r) {
+                final Thread t = new Thread(r, namePrefix + counter.incrementAndGet());
+                t.setContextClassLoader(tccl);
+                t.setDaemon(true);
+                return t;
+            }
+        });
+    }
+
     private static void writeXml(PackageSpec pkgSpec, Path dir) throws MojoExecutionException {
         try {
             mkdirs(dir);
@@ -23,6 +23,9 @@ import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.StringWriter;
 import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+
 import org.jboss.provisioning.MessageWriter;
 import org.jboss.provisioning.ProvisioningException;
 import org.wildfly.core.launcher.CliCommandBuilder;
@@ -34,11 +37,27 @@ import org.wildfly.core.launcher.CliCommandBuilder;
 public class CliScriptRunner {
 
     public static void runCliScript(Path installHome, Path script, MessageWriter messageWriter) throws ProvisioningException {
+        runCliScript(installHome, script, Collections.<String>emptyList(), messageWriter);
+    }
+
+    /**
+     * Executes the script in a new CLI process.
+     *
+     * @param installHome  the installation the CLI process is launched from
+     * @param script  CLI script
+     * @param javaOptions  options of the JVM of the CLI process, e.g. system properties of the embedded server
+     * @param messageWriter  message writer
+     * @throws ProvisioningException  in case the script could not be executed or failed
+     */
+    public static void runCliScript(Path installHome, Path script, List<String> javaOptions, MessageWriter messageWriter) throws ProvisioningException {
         final CliCommandBuilder builder = CliCommandBuilder
                 .of(installHome)
                 .addCliArgument("--no-operation-validation")
                 .addCliArgument("--echo-command")
                 .addCliArgument("--file=" + script);
+        for(String option : javaOptions) {
+            builder.addJavaOption(option);
+        }
         messageWriter.verbose("Executing jboss console: " + builder.build());
         final ProcessBuilder processBuilder = new ProcessBuilder(builder.build()).redirectErrorStream(true);
         processBuilder.environment().put("JBOSS_HOME", installHome.toString());
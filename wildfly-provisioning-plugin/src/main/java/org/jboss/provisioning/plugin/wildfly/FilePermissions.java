@@ -0,0 +1,109 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.provisioning.plugin.wildfly;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jboss.provisioning.MessageWriter;
+import org.jboss.provisioning.ProvisioningException;
+import org.jboss.provisioning.plugin.wildfly.config.FilePermission;
+import org.jboss.provisioning.util.LinkedArtifacts;
+
+/**
+ * File permission rules of all the packages applied in a single walk
+ * of the installation.
+ * <p>
+ * The rules are applied in the order they were added, i.e. if more than one
+ * rule includes a path, the one added last determines its permissions. So each path
+ * is matched against the rules starting from the last one and only the first including
+ * rule is applied.
+ * <p>
+ * Artifacts installed as links to the artifact repository are skipped: setting
+ * the permissions of a hard link or through a symbolic link would change
+ * the artifact in the repository.
+ */
+class FilePermissions {
+
+    private final List<FilePermission> rules = new ArrayList<>();
+
+    void add(List<FilePermission> filePermissions) {
+        rules.addAll(filePermissions);
+    }
+
+    boolean isEmpty() {
+        return rules.isEmpty();
+    }
+
+    /**
+     * Applies the rules to the content of the installation directory.
+     *
+     * @param installDir  installation directory
+     * @param linkedArtifacts  artifacts installed as links, which are skipped
+     * @param messageWriter  message writer the number of paths affected by each rule is reported to
+     * @throws ProvisioningException  in case the permissions could not be set
+     */
+    void apply(Path installDir, LinkedArtifacts linkedArtifacts, MessageWriter messageWriter) throws ProvisioningException {
+        if(rules.isEmpty()) {
+            return;
+        }
+        final FilePermission[] perms = rules.toArray(new FilePermission[rules.size()]);
+        final int[] applied = new int[perms.length];
+        try {
+            Files.walkFileTree(installDir, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                    apply(dir);
+                    return FileVisitResult.CONTINUE;
+                }
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                    if(!attrs.isSymbolicLink()) {
+                        apply(file);
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+                private void apply(Path path) throws IOException {
+                    final String relative = installDir.relativize(path).toString();
+                    if(linkedArtifacts.isLinked(relative)) {
+                        return;
+                    }
+                    for(int i = perms.length - 1; i >= 0; --i) {
+                        if(perms[i].includeFile(relative)) {
+                            Files.setPosixFilePermissions(path, perms[i].getPermission());
+                            ++applied[i];
+                            break;
+                        }
+                    }
+                }
+            });
+        } catch (IOException e) {
+            throw new ProvisioningException("Failed to set file permissions", e);
+        }
+        if(messageWriter.isVerboseEnabled()) {
+            for(int i = 0; i < perms.length; ++i) {
+                messageWriter.verbose("File permission %s %s applied to %d path(s)", perms[i].getValue(), perms[i].getFilters(), applied[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.provisioning.plugin.wildfly;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jboss.provisioning.Errors;
+import org.jboss.provisioning.ProvisioningException;
+
+/**
+ * Content hashes of the files under some of the directories of a root directory,
+ * taken before a process is launched to find out which files the process
+ * created or changed.
+ */
+class FileSnapshot {
+
+    /**
+     * Takes a snapshot of the files under the directories.
+     *
+     * @param root  root directory
+     * @param dirs  paths of the directories relative to the root, the ones that don't exist are ignored
+     * @return  the snapshot
+     * @throws ProvisioningException  in case a file could not be read
+     */
+    static FileSnapshot take(Path root, String... dirs) throws ProvisioningException {
+        final FileSnapshot snapshot = new FileSnapshot(root, dirs);
+        snapshot.hashes = snapshot.hashFiles();
+        return snapshot;
+    }
+
+    private final Path root;
+    private final String[] dirs;
+    private final MessageDigest digest;
+    private final byte[] buf = new byte[8192];
+    private Map<String, byte[]> hashes;
+
+    private FileSnapshot(Path root, String[] dirs) throws ProvisioningException {
+        this.root = root;
+        this.dirs = dirs;
+        try {
+            digest = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new ProvisioningException("Failed to initialize SHA-1 digest", e);
+        }
+    }
+
+    /**
+     * Returns the files that were created or changed since the snapshot was taken.
+     *
+     * @return  paths of the files relative to the root
+     * @throws ProvisioningException  in case a file could not be read
+     */
+    List<String> getChanges() throws ProvisioningException {
+        final Map<String, byte[]> current = hashFiles();
+        final List<String> changes = new ArrayList<>();
+        for(Map.Entry<String, byte[]> entry : current.entrySet()) {
+            final byte[] hash = hashes.get(entry.getKey());
+            if(hash == null || !Arrays.equals(hash, entry.getValue())) {
+                changes.add(entry.getKey());
+            }
+        }
+        return changes;
+    }
+
+    private Map<String, byte[]> hashFiles() throws ProvisioningException {
+        final Map<String, byte[]> hashes = new HashMap<>();
+        for(String dir : dirs) {
+            final Path path = root.resolve(dir);
+            if(!Files.isDirectory(path)) {
+                continue;
+            }
+            try {
+                Files.walkFileTree(path, new SimpleFileVisitor<Path>() {
+                    @Override
+                    public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                        if(attrs.isRegularFile()) {
+                            hashes.put(root.relativize(file).toString(), hash(file));
+                        }
+                        return FileVisitResult.CONTINUE;
+                    }
+                });
+            } catch (IOException e) {
+                throw new ProvisioningException(Errors.readDirectory(path), e);
+            }
+        }
+        return hashes;
+    }
+
+    private byte[] hash(Path file) throws IOException {
+        digest.reset();
+        try(InputStream in = Files.newInputStream(file)) {
+            int read = in.read(buf);
+            while(read > 0) {
+                digest.update(buf, 0, read);
+                read = in.read(buf);
+            }
+        }
+        return digest.digest();
+    }
+}
@@ -0,0 +1,242 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.provisioning.plugin.wildfly;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import org.jboss.provisioning.Errors;
+import org.jboss.provisioning.MessageWriter;
+import org.jboss.provisioning.ProvisioningException;
+import org.jboss.provisioning.runtime.FeaturePackRuntime;
+import org.jboss.provisioning.runtime.ProvisioningRuntime;
+import org.jboss.provisioning.util.HashUtils;
+import org.jboss.provisioning.util.IoUtils;
+
+/**
+ * Cache of the configuration files generated by the CLI scripts.
+ * <p>
+ * An entry is keyed by a hash of the embed command (with the installation
+ * directory abstracted out), the operations of the script, the GAVs of the
+ * installed feature-packs with the sizes and last modification times of their archives
+ * (so that a rebuilt SNAPSHOT feature-pack does not match the entries generated from
+ * its previous build) and the content of the existing configuration files the script reads.
+ * The entry contains the files the script created or changed in the configuration and
+ * data directories of the server (i.e. not only the generated configuration but also
+ * e.g. configuration/logging.properties) under their paths relative to the server
+ * directory (standalone or domain). The files identifying a server instance
+ * ({@value #PROCESS_UUID}) and the configuration history directories are not cached.
+ * <p>
+ * The cache is enabled by setting the {@value #CONFIG_CACHE} system property
+ * to the directory the entries should be stored in. It is not used if the installation
+ * includes SNAPSHOT module artifacts, since the configuration generated by the extensions
+ * they contain may change without any change in the key.
+ */
+class GeneratedConfigCache {
+
+    static final String CONFIG_CACHE = "wfConfigCache";
+
+    static final String PROCESS_UUID = "data/kernel/process-uuid";
+
+    // changes when the content of the entries changes
+    private static final String FORMAT = "3";
+    private static final String HISTORY_DIR_SUFFIX = "_xml_history";
+    private static final String JBOSS_HOME = "${jboss.home.dir}";
+    private static final String SNAPSHOT = "-SNAPSHOT";
+    private static final String TMP_SUFFIX = ".tmp-";
+
+    /**
+     * Returns the cache configured with the {@value #CONFIG_CACHE} system property
+     * for the provisioning run or null if the property is not set or the installation
+     * includes SNAPSHOT module artifacts.
+     *
+     * @param runtime  provisioning runtime
+     * @param artifactVersions  versions of the module artifacts of the installation
+     * @return  configured cache or null
+     * @throws ProvisioningException  in case a feature-pack archive could not be resolved
+     */
+    static GeneratedConfigCache getConfigured(ProvisioningRuntime runtime, Collection<String> artifactVersions) throws ProvisioningException {
+        final String dir = System.getProperty(CONFIG_CACHE);
+        if(dir == null || dir.isEmpty()) {
+            return null;
+        }
+        for(String version : artifactVersions) {
+            if(version.endsWith(SNAPSHOT)) {
+                runtime.getMessageWriter().verbose("%s is not used since the installation includes SNAPSHOT artifacts", CONFIG_CACHE);
+                return null;
+            }
+        }
+        final List<String> fps = new ArrayList<>(runtime.getFeaturePacks().size());
+        for(FeaturePackRuntime fp : runtime.getFeaturePacks()) {
+            final Path archive = runtime.resolveArtifact(fp.getGav().toArtifactCoords());
+            try {
+                fps.add(fp.getGav().toString() + '|' + Files.size(archive) + '|' + Files.getLastModifiedTime(archive).toMillis());
+            } catch (IOException e) {
+                throw new ProvisioningException(Errors.readFile(archive), e);
+            }
+        }
+        Collections.sort(fps);
+        return new GeneratedConfigCache(Paths.get(dir), fps);
+    }
+
+    private final Path cacheDir;
+    private final List<String> featurePacks;
+
+    GeneratedConfigCache(Path cacheDir) {
+        this(cacheDir, Collections.<String>emptyList());
+    }
+
+    private GeneratedConfigCache(Path cacheDir, List<String> featurePacks) {
+        this.cacheDir = cacheDir;
+        this.featurePacks = featurePacks;
+    }
+
+    /**
+     * Computes the key of the configuration generated by the script.
+     *
+     * @param runtime  provisioning runtime
+     * @param embedCmd  the command starting the embedded process
+     * @param ops  the operations of the script
+     * @param inputs  paths relative to the installation directory of the existing files the script reads
+     * @return  the key
+     * @throws ProvisioningException  in case one of the inputs could not be read
+     */
+    String key(ProvisioningRuntime runtime, String embedCmd, List<String> ops, List<String> inputs) throws ProvisioningException {
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new ProvisioningException("Failed to initialize SHA-1 digest", e);
+        }
+        final Path home = runtime.getStagedDir();
+        update(digest, FORMAT);
+        update(digest, embedCmd.replace(home.toString(), JBOSS_HOME));
+        for(String op : ops) {
+            update(digest, op);
+        }
+        for(String fp : featurePacks) {
+            update(digest, fp);
+        }
+        for(String input : inputs) {
+            final Path p = home.resolve(input);
+            update(digest, input);
+            if(Files.exists(p)) {
+                try {
+                    digest.update(Files.readAllBytes(p));
+                } catch (IOException e) {
+                    throw new ProvisioningException(Errors.readFile(p), e);
+                }
+            }
+        }
+        return HashUtils.bytesToHexString(digest.digest());
+    }
+
+    /**
+     * Copies the cached files into the server directory.
+     *
+     * @param key  configuration key
+     * @param serverDir  server directory
+     * @param messageWriter  message writer
+     * @return  true if the entry was found and copied, otherwise false
+     */
+    boolean restore(String key, Path serverDir, MessageWriter messageWriter) {
+        final Path entry = cacheDir.resolve(key);
+        if(!Files.isDirectory(entry)) {
+            return false;
+        }
+        try {
+            IoUtils.copy(entry, serverDir);
+        } catch (IOException e) {
+            messageWriter.error(e, "Failed to restore cached configuration %s", key);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Stores the files the script created or changed in the cache, except
+     * the ones identifying the server instance and the configuration history.
+     * Failures are reported but otherwise ignored.
+     *
+     * @param key  configuration key
+     * @param serverDir  the server directory the script was executed against
+     * @param outputs  paths of the files the script created or changed relative to the server directory
+     * @param messageWriter  message writer
+     */
+    void store(String key, Path serverDir, List<String> outputs, MessageWriter messageWriter) {
+        final Path entry = cacheDir.resolve(key);
+        if(Files.exists(entry)) {
+            return;
+        }
+        // the entry is prepared aside and then moved to its final location
+        // so that a concurrent reader never sees an incomplete entry
+        final Path tmp = cacheDir.resolve(key + TMP_SUFFIX + UUID.randomUUID());
+        try {
+            Files.createDirectories(tmp);
+            for(String output : outputs) {
+                if(!isCached(output)) {
+                    continue;
+                }
+                final Path target = tmp.resolve(output);
+                Files.createDirectories(target.getParent());
+                Files.copy(serverDir.resolve(output), target);
+            }
+            Files.move(tmp, entry, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException | DirectoryNotEmptyException e) {
+            // stored concurrently
+        } catch (IOException e) {
+            // depending on the file system, moving onto a non-empty directory
+            // may fail with a generic exception
+            if(!Files.isDirectory(entry)) {
+                messageWriter.error(e, "Failed to cache configuration %s", key);
+            }
+        } finally {
+            IoUtils.recursiveDelete(tmp);
+        }
+    }
+
+    private static boolean isCached(String output) {
+        final Path path = Paths.get(output);
+        if(path.equals(Paths.get(PROCESS_UUID))) {
+            return false;
+        }
+        for(Path name : path) {
+            if(name.toString().endsWith(HISTORY_DIR_SUFFIX)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void update(MessageDigest digest, String str) {
+        digest.update(str.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) '\n');
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.provisioning.plugin.wildfly;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.jboss.provisioning.Errors;
+import org.jboss.provisioning.ProvisioningException;
+import org.jboss.provisioning.util.HashUtils;
+
+/**
+ * Creates Jandex indexes of module artifacts on a pool of worker threads.
+ * <p>
+ * If the {@value #JANDEX_CACHE} system property is set, the produced indexes
+ * are also stored in the directory it points to under the content hash of the
+ * indexed artifact, so that an unchanged artifact is indexed only once across
+ * provisioning runs and installations.
+ */
+class JandexIndexService implements AutoCloseable {
+
+    static final String JANDEX_CACHE = "wfJandexCache";
+
+    private static final String INDEX_SUFFIX = "-jandex.jar";
+
+    private final Path cacheDir;
+    private final ExecutorService executor;
+    private final List<Future<Void>> tasks = new ArrayList<>();
+    private final List<Path> artifacts = new ArrayList<>();
+
+    JandexIndexService(int threads) {
+        final String cache = System.getProperty(JANDEX_CACHE);
+        this.cacheDir = cache == null || cache.isEmpty() ? null : Paths.get(cache);
+        this.executor = WfProvisioningPlugin.newThreadPool("wf-jandex-", Math.max(1, threads));
+    }
+
+    /**
+     * Schedules indexing of the artifact.
+     *
+     * @param artifact  artifact to index
+     * @param target  the file to write the index to
+     */
+    synchronized void submit(Path artifact, Path target) {
+        artifacts.add(artifact);
+        tasks.add(executor.submit(new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                index(artifact, target);
+                return null;
+            }
+        }));
+    }
+
+    /**
+     * Waits for all the scheduled artifacts to be indexed.
+     *
+     * @throws ProvisioningException  if any of the artifacts failed to be indexed,
+     * the failures are reported in the order the artifacts were submitted
+     */
+    synchronized void awaitCompletion() throws ProvisioningException {
+        ProvisioningException failure = null;
+        for(int i = 0; i < tasks.size(); ++i) {
+            try {
+                tasks.get(i).get();
+            } catch (ExecutionException e) {
+                if(failure == null) {
+                    failure = new ProvisioningException("Failed to index " + artifacts.get(i), e.getCause());
+                } else {
+                    failure.addSuppressed(e.getCause());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ProvisioningException("Interrupted while indexing module artifacts", e);
+            }
+        }
+        tasks.clear();
+        artifacts.clear();
+        if(failure != null) {
+            throw failure;
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private void index(Path artifact, Path target) throws IOException {
+        if(cacheDir == null) {
+            JandexIndexer.createIndex(artifact.toFile(), Files.newOutputStream(target));
+            return;
+        }
+        final Path cached = cacheDir.resolve(hash(artifact) + INDEX_SUFFIX);
+        if(!Files.exists(cached)) {
+            Files.createDirectories(cacheDir);
+            final Path tmp = cacheDir.resolve(cached.getFileName() + "." + UUID.randomUUID());
+            try {
+                JandexIndexer.createIndex(artifact.toFile(), Files.newOutputStream(tmp));
+                Files.move(tmp, cached, StandardCopyOption.ATOMIC_MOVE);
+            } catch (FileAlreadyExistsException e) {
+                // indexed concurrently
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+        }
+        Files.copy(cached, target, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static String hash(Path artifact) throws IOException {
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+        try(InputStream in = Files.newInputStream(artifact)) {
+            final byte[] bytes = new byte[8192];
+            int read;
+            while((read = in.read(bytes)) > -1) {
+                digest.update(bytes, 0, read);
+            }
+        } catch (IOException e) {
+            throw new IOException(Errors.readFile(artifact), e);
+        }
+        return HashUtils.bytesToHexString(digest.digest());
+    }
+}
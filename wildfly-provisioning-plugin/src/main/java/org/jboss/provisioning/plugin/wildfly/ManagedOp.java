@@ -0,0 +1,155 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.provisioning.plugin.wildfly;
+
+import java.util.List;
+
+import org.jboss.provisioning.ProvisioningDescriptionException;
+import org.jboss.provisioning.ProvisioningException;
+import org.jboss.provisioning.state.ProvisionedFeature;
+
+/**
+ * Immutable template of a management operation compiled from a feature spec annotation.
+ * <p>
+ * The constant parts of the command line (the address prefix, the address and
+ * operation parameter names with their separators and the operation name) are
+ * rendered when the template is created, so producing the command line for
+ * a feature only appends the feature's parameter values.
+ */
+final class ManagedOp {
+
+    static final int OP = 0;
+    static final int WRITE_ATTR = 1;
+    static final int LIST_ADD = 2;
+
+    static ManagedOp line(String line) {
+        return new ManagedOp(line, null, null, null, null, OP, null, null);
+    }
+
+    /**
+     * Creates a template.
+     *
+     * @param addrPref  address prefix or null
+     * @param name  operation name
+     * @param op  operation kind
+     * @param addrParams  pairs of a feature parameter name followed by the corresponding address element name
+     * @param opParams  pairs of a feature parameter name followed by the corresponding operation parameter name
+     * @return  the template
+     */
+    static ManagedOp newOp(String addrPref, String name, int op, List<String> addrParams, List<String> opParams) {
+        final String[] addrNames = new String[addrParams.size() / 2];
+        final String[] addrFragments = new String[addrNames.length];
+        for(int i = 0; i < addrNames.length; ++i) {
+            addrNames[i] = addrParams.get(i * 2);
+            addrFragments[i] = '/' + addrParams.get(i * 2 + 1) + '=';
+        }
+        final String[] opNames = new String[opParams.size() / 2];
+        final String[] opFragments = new String[opNames.length];
+        for(int i = 0; i < opNames.length; ++i) {
+            opNames[i] = opParams.get(i * 2);
+            if(op == OP) {
+                opFragments[i] = opParams.get(i * 2 + 1) + '=';
+            } else {
+                opFragments[i] = "(name=" + opParams.get(i * 2 + 1) + ",value=";
+            }
+        }
+        return new ManagedOp(null, addrPref == null ? "" : addrPref, addrNames, addrFragments, ':' + name, op,
+                opNames, opFragments);
+    }
+
+    private final String line;
+    private final String addrPref;
+    private final String[] addrNames;
+    private final String[] addrFragments;
+    private final String opName;
+    private final int op;
+    private final String[] opNames;
+    private final String[] opFragments;
+
+    private ManagedOp(String line, String addrPref, String[] addrNames, String[] addrFragments, String opName, int op,
+            String[] opNames, String[] opFragments) {
+        this.line = line;
+        this.addrPref = addrPref;
+        this.addrNames = addrNames;
+        this.addrFragments = addrFragments;
+        this.opName = opName;
+        this.op = op;
+        this.opNames = opNames;
+        this.opFragments = opFragments;
+    }
+
+    /**
+     * Produces the command line for the feature.
+     *
+     * @param feature  the feature
+     * @param buf  buffer to use to build the line, its content will be discarded
+     * @return  command line
+     * @throws ProvisioningException  if a required parameter of the feature is not set
+     */
+    String toCommandLine(ProvisionedFeature feature, StringBuilder buf) throws ProvisioningException {
+        if(line != null) {
+            return line;
+        }
+        buf.setLength(0);
+        buf.append(addrPref);
+        for(int i = 0; i < addrNames.length; ++i) {
+            final String value = feature.getConfigParam(addrNames[i]);
+            if(value != null) {
+                buf.append(addrFragments[i]).append(value);
+            }
+        }
+        buf.append(opName);
+        switch(op) {
+            case OP: {
+                boolean comma = false;
+                for(int i = 0; i < opNames.length; ++i) {
+                    final String value = feature.getConfigParam(opNames[i]);
+                    if(value == null) {
+                        continue;
+                    }
+                    if(comma) {
+                        buf.append(',');
+                    } else {
+                        comma = true;
+                        buf.append('(');
+                    }
+                    buf.append(opFragments[i]);
+                    if(value.trim().isEmpty()) {
+                        buf.append('\"').append(value).append('\"');
+                    } else {
+                        buf.append(value);
+                    }
+                }
+                if(comma) {
+                    buf.append(')');
+                }
+                break;
+            }
+            case WRITE_ATTR:
+            case LIST_ADD: {
+                final String value = feature.getConfigParam(opNames[0]);
+                if(value == null) {
+                    throw new ProvisioningDescriptionException(opNames[0] + " parameter is null: " + feature);
+                }
+                buf.append(opFragments[0]).append(value).append(')');
+                break;
+            }
+            default:
+        }
+        return buf.toString();
+    }
+}
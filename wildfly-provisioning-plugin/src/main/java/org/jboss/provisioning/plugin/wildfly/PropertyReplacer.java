@@ -28,6 +28,10 @@ import java.nio.file.Path;
 
 /**
  * Utility that copies content from reader to writer replacing the properties.
+ * <p>
+ * The content is read in blocks and the regions between the expressions
+ * are written out as they are, so only the expressions are processed
+ * character by character.
  *
  * @author Alexey Loubyansky
  */
@@ -39,6 +43,8 @@ public class PropertyReplacer {
     private static final int RESOLVED = 3;
     private static final int DEFAULT = 4;
 
+    private static final int BUFFER_SIZE = 8192;
+
     public static void copy(final Path src, final Path target, PropertyResolver resolver) throws IOException {
         if(!Files.exists(target.getParent())) {
             Files.createDirectories(target.getParent());
@@ -52,96 +58,30 @@ public class PropertyReplacer {
     public static void copy(final Reader reader, Writer writer, PropertyResolver properties) throws IOException {
         int state = INITIAL;
         final StringBuilder buf = new StringBuilder();
-        int ch = reader.read();
-        while (ch >= 0) {
-            switch (state) {
-                case INITIAL: {
-                    switch (ch) {
-                        case '$': {
-                            state = GOT_DOLLAR;
-                            break;
-                        }
-                        default: {
-                            writer.write(ch);
-                        }
-                    }
-                    break;
-                }
-                case GOT_DOLLAR: {
-                    switch (ch) {
-                        case '$': {
-                            // escaped $
-                            buf.setLength(0);
-                            writer.write(ch);
-                            state = INITIAL;
-                            break;
-                        }
-                        case '{': {
-                            state = GOT_OPEN_BRACE;
-                            break;
-                        }
-                        default: {
-                            // invalid; emit and resume
-                            writer.append('$');
-                            writer.write(ch);
-                            buf.setLength(0);
-                            state = INITIAL;
-                        }
-                    }
-                    break;
-                }
-                case GOT_OPEN_BRACE: {
-                    switch (ch) {
-                        case '}':
-                        case ',': {
-                            final String name = buf.toString();
-                            if ("/".equals(name)) {
-                                writer.append(File.separatorChar);
-                                state = ch == '}' ? INITIAL : RESOLVED;
-                            } else {
-                                final String val = properties.resolveProperty(name);
-                                if (val != null) {
-                                    writer.write(val);
-                                    state = ch == '}' ? INITIAL : RESOLVED;
-                                } else if (ch == ',') {
-                                    state = DEFAULT;
-                                } else {
-                                    throw new IllegalStateException("Failed to resolve property: " + buf);
-                                }
-                            }
-                            buf.setLength(0);
-                            break;
-                        }
-                        default: {
-                            buf.appendCodePoint(ch);
-                        }
+        final char[] chars = new char[BUFFER_SIZE];
+        int read = reader.read(chars);
+        while (read >= 0) {
+            int i = 0;
+            while (i < read) {
+                if (state == INITIAL) {
+                    // copy the content up to the next '$' as is
+                    final int start = i;
+                    while (i < read && chars[i] != '$') {
+                        ++i;
                     }
-                    break;
-                }
-                case RESOLVED: {
-                    if (ch == '}') {
-                        state = INITIAL;
+                    if (i > start) {
+                        writer.write(chars, start, i - start);
                     }
-                    break;
-                }
-                case DEFAULT: {
-                    if (ch == '}') {
-                        state = INITIAL;
-                        final String val = properties.resolveProperty(buf.toString());
-                        if (val != null) {
-                            writer.write(val);
-                        } else {
-                            writer.write(buf.toString());
-                        }
-                    } else {
-                        buf.appendCodePoint(ch);
+                    if (i == read) {
+                        break;
                     }
-                    break;
+                    state = GOT_DOLLAR;
+                } else {
+                    state = next(state, chars[i], buf, writer, properties);
                 }
-                default:
-                    throw new IllegalStateException("Unexpected char seen: " + ch);
+                ++i;
             }
-            ch = reader.read();
+            read = reader.read(chars);
         }
         switch (state) {
             case GOT_DOLLAR: {
@@ -157,4 +97,73 @@ public class PropertyReplacer {
             }
         }
     }
+
+    private static int next(int state, char ch, StringBuilder buf, Writer writer, PropertyResolver properties) throws IOException {
+        switch (state) {
+            case GOT_DOLLAR: {
+                switch (ch) {
+                    case '$': {
+                        // escaped $
+                        buf.setLength(0);
+                        writer.write(ch);
+                        return INITIAL;
+                    }
+                    case '{': {
+                        return GOT_OPEN_BRACE;
+                    }
+                    default: {
+                        // invalid; emit and resume
+                        writer.append('$');
+                        writer.write(ch);
+                        buf.setLength(0);
+                        return INITIAL;
+                    }
+                }
+            }
+            case GOT_OPEN_BRACE: {
+                switch (ch) {
+                    case '}':
+                    case ',': {
+                        final String name = buf.toString();
+                        buf.setLength(0);
+                        if ("/".equals(name)) {
+                            writer.append(File.separatorChar);
+                            return ch == '}' ? INITIAL : RESOLVED;
+                        }
+                        final String val = properties.resolveProperty(name);
+                        if (val != null) {
+                            writer.write(val);
+                            return ch == '}' ? INITIAL : RESOLVED;
+                        }
+                        if (ch == ',') {
+                            return DEFAULT;
+                        }
+                        throw new IllegalStateException("Failed to resolve property: " + name);
+                    }
+                    default: {
+                        buf.append(ch);
+                        return state;
+                    }
+                }
+            }
+            case RESOLVED: {
+                return ch == '}' ? INITIAL : state;
+            }
+            case DEFAULT: {
+                if (ch == '}') {
+                    final String val = properties.resolveProperty(buf.toString());
+                    if (val != null) {
+                        writer.write(val);
+                    } else {
+                        writer.write(buf.toString());
+                    }
+                    return INITIAL;
+                }
+                buf.append(ch);
+                return state;
+            }
+            default:
+                throw new IllegalStateException("Unexpected char seen: " + ch);
+        }
+    }
 }
\ No newline at end of file
@@ -39,6 +39,7 @@ public interface WfConstants {
     String PM = "pm";
     String SCHEMA = "schema";
     String SCHEMA_GROUPS_TXT = "schema-groups.txt";
+    String SCHEMA_INDEX_TXT = "schema-index.txt";
     String SCRIPTS = "scripts";
     String STANDALONE = "standalone";
     String SYSTEM = "system";
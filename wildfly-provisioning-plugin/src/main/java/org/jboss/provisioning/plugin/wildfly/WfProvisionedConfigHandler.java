@@ -22,9 +22,12 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.jboss.provisioning.ArtifactCoords;
@@ -55,12 +58,15 @@ class WfProvisionedConfigHandler implements ProvisionedConfigHandler {
     private static final String DOMAIN_CONFIG_NAME = "domain-config-name";
     private static final String HOST_CONFIG_NAME = "host-config-name";
 
-    private static final String TMP_DOMAIN_XML = "pm-tmp-domain.xml";
-    private static final String TMP_HOST_XML = "pm-tmp-host.xml";
+    private static final String DOMAIN_CONFIG_DIR = "domain/configuration/";
 
-    private static final int OP = 0;
-    private static final int WRITE_ATTR = 1;
-    private static final int LIST_ADD = 2;
+    private static final String SERVER_CONFIG_DIR = "configuration";
+    private static final String SERVER_DATA_DIR = "data";
+    private static final String SERVER_LOG_DIR = "log";
+    private static final String SERVER_TMP_DIR = "tmp";
+
+    private static final String TMP_DOMAIN_XML_PREFIX = "pm-tmp-domain-";
+    private static final String TMP_HOST_XML_PREFIX = "pm-tmp-host-";
 
     private static final ArtifactCoords.Ga WF_CORE_GA = ArtifactCoords.newGa("org.wildfly.core", "wildfly-core-feature-pack-new");
     private static final byte LOOK_FOR_HOST = 1;
@@ -70,120 +76,68 @@ class WfProvisionedConfigHandler implements ProvisionedConfigHandler {
         boolean accepts(String name);
     }
 
-    private class ManagedOp {
-        String line;
-        String addrPref;
-        String name;
-        List<String> addrParams = Collections.emptyList();
-        List<String> opParams = Collections.emptyList();
-        int op;
-
-        void reset() {
-            line = null;
-            addrPref = null;
-            name = null;
-            addrParams = Collections.emptyList();
-            opParams = Collections.emptyList();
-            op = OP;
-        }
-
-        String toCommandLine(ProvisionedFeature feature) throws ProvisioningException {
-            final String line;
-            if (this.line != null) {
-                line = this.line;
-            } else {
-                final StringBuilder buf = new StringBuilder();
-                if (addrPref != null) {
-                    buf.append(addrPref);
-                }
-                int i = 0;
-                while(i < addrParams.size()) {
-                    final String value = feature.getConfigParam(addrParams.get(i++));
-                    if (value == null) {
-                        continue;
-                    }
-                    buf.append('/').append(addrParams.get(i++)).append('=').append(value);
-
-                }
-                buf.append(':').append(name);
-                switch(op) {
-                    case OP: {
-                        if (!opParams.isEmpty()) {
-                            boolean comma = false;
-                            i = 0;
-                            while(i < opParams.size()) {
-                                final String value = feature.getConfigParam(opParams.get(i++));
-                                if (value == null) {
-                                    continue;
-                                }
-                                if (comma) {
-                                    buf.append(',');
-                                } else {
-                                    comma = true;
-                                    buf.append('(');
-                                }
-                                buf.append(opParams.get(i++)).append('=');
-                                if(value.trim().isEmpty()) {
-                                    buf.append('\"').append(value).append('\"');
-                                } else {
-                                    buf.append(value);
-                                }
-                            }
-                            if (comma) {
-                                buf.append(')');
-                            }
-                        }
-                        break;
-                    }
-                    case WRITE_ATTR: {
-                        final String value = feature.getConfigParam(opParams.get(0));
-                        if (value == null) {
-                            throw new ProvisioningDescriptionException(opParams.get(0) + " parameter is null: " + feature);
-                        }
-                        buf.append("(name=").append(opParams.get(1)).append(",value=").append(value).append(')');
-                        break;
-                    }
-                    case LIST_ADD: {
-                        final String value = feature.getConfigParam(opParams.get(0));
-                        if (value == null) {
-                            throw new ProvisioningDescriptionException(opParams.get(0) + " parameter is null: " + feature);
-                        }
-                        buf.append("(name=").append(opParams.get(1)).append(",value=").append(value).append(')');
-                        break;
-                    }
-                    default:
-
-                }
-                line = buf.toString();
-            }
-            return line;
-        }
-    }
+    private static final ManagedOp[] NO_OPS = new ManagedOp[0];
 
     private final ProvisioningRuntime runtime;
     private final MessageWriter messageWriter;
+    private final Object stagedDirLock;
+    private final GeneratedConfigCache configCache;
+    // operation templates compiled from the annotations of the specs, keyed by the config model and the spec id
+    private final Map<String, ManagedOp[]> compiledSpecs;
 
-    private int opsTotal;
-    private ManagedOp[] ops = new ManagedOp[]{new ManagedOp()};
+    private ManagedOp[] ops = NO_OPS;
     private NameFilter paramFilter;
+    private String model;
+    private final StringBuilder lineBuf = new StringBuilder();
 
     private StringBuilder embedBuf = new StringBuilder();
     private String scriptName;
     private String tmpConfig;
     private List<String> opList = new ArrayList<>();
+    private List<String> configInputs = Collections.emptyList();
+    private String serverDirName;
 
     private String hostName;
     private byte lookForHost;
 
     WfProvisionedConfigHandler(ProvisioningRuntime runtime) {
+        this(runtime, null);
+    }
+
+    /**
+     * @param runtime  provisioning runtime
+     * @param configCache  cache of the generated configurations or null
+     */
+    WfProvisionedConfigHandler(ProvisioningRuntime runtime, GeneratedConfigCache configCache) {
+        this(runtime, configCache, null, new HashMap<String, ManagedOp[]>());
+    }
+
+    /**
+     * @param runtime  provisioning runtime
+     * @param configCache  cache of the generated configurations or null
+     * @param stagedDirLock  if not null, the standalone configurations are generated
+     * by embedded servers with their own server directories (see {@link #runIsolated(Path, String)}),
+     * so that they can be generated concurrently, and the lock guards the staged
+     * standalone server directories while they are being copied
+     * @param compiledSpecs  operation templates compiled from the spec annotations,
+     * which can be shared by the handlers generating the configs of the same provisioning
+     * run and must be thread-safe if the handlers are used concurrently
+     */
+    WfProvisionedConfigHandler(ProvisioningRuntime runtime, GeneratedConfigCache configCache, Object stagedDirLock, Map<String, ManagedOp[]> compiledSpecs) {
         this.runtime = runtime;
         this.messageWriter = runtime.getMessageWriter();
+        this.stagedDirLock = stagedDirLock;
+        this.configCache = configCache;
+        this.compiledSpecs = compiledSpecs;
     }
 
     private void reset() {
         embedBuf.setLength(0);
         scriptName = null;
+        tmpConfig = null;
         opList.clear();
+        configInputs = Collections.emptyList();
+        serverDirName = null;
         hostName = null;
         lookForHost = 0;
     }
@@ -204,6 +158,7 @@ class WfProvisionedConfigHandler implements ProvisionedConfigHandler {
 
             embedBuf.append("embed-server --admin-only=true --empty-config --remove-existing --server-config=")
             .append(logFile).append(" --jboss-home=").append(runtime.getStagedDir());
+            serverDirName = STANDALONE;
 
             paramFilter = new NameFilter() {
                 @Override
@@ -220,9 +175,10 @@ class WfProvisionedConfigHandler implements ProvisionedConfigHandler {
 
             String hostConfig = config.getProperties().get(HOST_CONFIG_NAME);
             if(hostConfig == null) {
-                tmpConfig = TMP_HOST_XML;
-                hostConfig = TMP_HOST_XML;
+                tmpConfig = TMP_HOST_XML_PREFIX + logFile;
+                hostConfig = tmpConfig;
             }
+            serverDirName = DOMAIN;
 
             embedBuf.append(
                     "embed-host-controller --empty-host-config --remove-existing-host-config --empty-domain-config --remove-existing-domain-config --host-config=")
@@ -247,12 +203,14 @@ class WfProvisionedConfigHandler implements ProvisionedConfigHandler {
                     .append(logFile);
             final String domainConfig = config.getProperties().get(DOMAIN_CONFIG_NAME);
             if (domainConfig == null) {
-                tmpConfig = TMP_DOMAIN_XML;
+                tmpConfig = TMP_DOMAIN_XML_PREFIX + logFile;
                 embedBuf.append(" --empty-domain-config --remove-existing-domain-config --domain-config=")
-                        .append(TMP_DOMAIN_XML);
+                        .append(tmpConfig);
             } else {
                 embedBuf.append(" --domain-config=").append(domainConfig);
+                configInputs = Collections.singletonList(DOMAIN_CONFIG_DIR + domainConfig);
             }
+            serverDirName = DOMAIN;
             embedBuf.append(" --jboss-home=").append(runtime.getStagedDir());
 
             paramFilter = new NameFilter() {
@@ -265,6 +223,7 @@ class WfProvisionedConfigHandler implements ProvisionedConfigHandler {
             throw new ProvisioningException("Unsupported config model " + config.getModel());
         }
         scriptName = logFile;
+        model = config.getModel();
     }
 
     @Override
@@ -278,128 +237,135 @@ class WfProvisionedConfigHandler implements ProvisionedConfigHandler {
         if(lookForHost == LOOK_FOR_HOST && HOST.equals(spec.getName()) && spec.getId().getGav().toGa().equals(WF_CORE_GA)) {
             lookForHost = LOOK_FOR_HOST_IN_SPEC;
         }
+        ops = getOps(spec);
+    }
+
+    private ManagedOp[] getOps(ResolvedFeatureSpec spec) throws ProvisioningException {
         if(!spec.hasAnnotations()) {
-            opsTotal = 0;
-            return;
+            return NO_OPS;
         }
+        final String key = model + ':' + spec.getId();
+        ManagedOp[] compiled = compiledSpecs.get(key);
+        if(compiled == null) {
+            compiled = compileOps(spec);
+            compiledSpecs.put(key, compiled);
+        }
+        return compiled;
+    }
 
+    private ManagedOp[] compileOps(ResolvedFeatureSpec spec) throws ProvisioningException {
         final List<FeatureAnnotation> annotations = spec.getAnnotations();
-        opsTotal = annotations.size();
-        if(annotations.size() > 1) {
-            if(ops.length < opsTotal) {
-                final ManagedOp[] tmp = ops;
-                ops = new ManagedOp[opsTotal];
-                System.arraycopy(tmp, 0, ops, 0, tmp.length);
-                for(int i = tmp.length; i < ops.length; ++i) {
-                    ops[i] = new ManagedOp();
-                }
+        final List<ManagedOp> compiled = new ArrayList<>(annotations.size());
+        for(FeatureAnnotation annotation : annotations) {
+            messageWriter.verbose("      Annotation: " + annotation);
+            final ManagedOp mop = compileOp(spec, annotation);
+            if(mop != null) {
+                compiled.add(mop);
             }
         }
+        return compiled.toArray(new ManagedOp[compiled.size()]);
+    }
 
-        int i = 0;
-        while (i < opsTotal) {
-            final FeatureAnnotation annotation = annotations.get(i);
-            messageWriter.verbose("      Annotation: " + annotation);
-            final ManagedOp mop = ops[i++];
-            mop.reset();
-            mop.line = annotation.getElem(WfConstants.LINE);
-            if(mop.line != null) {
-                continue;
-            }
-            mop.name = annotation.getName();
-            if(mop.name.equals(WfConstants.ADD)) {
-                mop.op = OP;
-            } else if(mop.name.equals(WfConstants.WRITE_ATTRIBUTE)) {
-                mop.op = WRITE_ATTR;
-            } else if(mop.name.equals(WfConstants.LIST_ADD)) {
-                mop.op = LIST_ADD;
-            } else {
-                mop.op = OP;
-            }
-            mop.addrPref = annotation.getElem(WfConstants.ADDR_PREF);
+    /**
+     * Compiles the annotation into an operation template.
+     *
+     * @return  the template or null if the annotation should be skipped for the current config model
+     */
+    private ManagedOp compileOp(ResolvedFeatureSpec spec, FeatureAnnotation annotation) throws ProvisioningException {
+        final String line = annotation.getElem(WfConstants.LINE);
+        if(line != null) {
+            return ManagedOp.line(line);
+        }
+        final String name = annotation.getName();
+        final int op;
+        if(name.equals(WfConstants.WRITE_ATTRIBUTE)) {
+            op = ManagedOp.WRITE_ATTR;
+        } else if(name.equals(WfConstants.LIST_ADD)) {
+            op = ManagedOp.LIST_ADD;
+        } else {
+            op = ManagedOp.OP;
+        }
 
-            String elemValue = annotation.getElem(WfConstants.SKIP_IF_FILTERED);
-            final Set<String> skipIfFiltered;
-            if (elemValue != null) {
-                skipIfFiltered = parseSet(elemValue);
-            } else {
-                skipIfFiltered = Collections.emptySet();
-            }
+        String elemValue = annotation.getElem(WfConstants.SKIP_IF_FILTERED);
+        final Set<String> skipIfFiltered;
+        if (elemValue != null) {
+            skipIfFiltered = parseSet(elemValue);
+        } else {
+            skipIfFiltered = Collections.emptySet();
+        }
 
-            final String addrParamMapping = annotation.getElem(WfConstants.ADDR_PARAMS_MAPPING);
-            elemValue = annotation.getElem(WfConstants.ADDR_PARAMS);
-            if (elemValue == null) {
-                throw new ProvisioningException("Required element " + WfConstants.ADDR_PARAMS + " is missing for " + spec.getId());
-            }
+        final String addrParamMapping = annotation.getElem(WfConstants.ADDR_PARAMS_MAPPING);
+        elemValue = annotation.getElem(WfConstants.ADDR_PARAMS);
+        if (elemValue == null) {
+            throw new ProvisioningException("Required element " + WfConstants.ADDR_PARAMS + " is missing for " + spec.getId());
+        }
 
-            try {
-                mop.addrParams = parseList(elemValue, paramFilter, skipIfFiltered, addrParamMapping);
-            } catch (ProvisioningDescriptionException e) {
-                throw new ProvisioningDescriptionException("Saw an empty parameter name in annotation " + WfConstants.ADDR_PARAMS + "="
-                        + elemValue + " of " + spec.getId());
-            }
-            if(mop.addrParams == null) {
-                // skip
-                mop.reset();
-                --opsTotal;
-                --i;
-                continue;
-            }
+        final List<String> addrParams;
+        try {
+            addrParams = parseList(elemValue, paramFilter, skipIfFiltered, addrParamMapping);
+        } catch (ProvisioningDescriptionException e) {
+            throw new ProvisioningDescriptionException("Saw an empty parameter name in annotation " + WfConstants.ADDR_PARAMS + "="
+                    + elemValue + " of " + spec.getId());
+        }
+        if(addrParams == null) {
+            return null;
+        }
+
+        final String paramsMapping = annotation.getElem(WfConstants.OP_PARAMS_MAPPING);
 
-            final String paramsMapping = annotation.getElem(WfConstants.OP_PARAMS_MAPPING);
-
-            elemValue = annotation.getElem(WfConstants.OP_PARAMS, Constants.PM_UNDEFINED);
-            if (elemValue == null) {
-                mop.opParams = Collections.emptyList();
-            } else if (Constants.PM_UNDEFINED.equals(elemValue)) {
-                if (spec.hasParams()) {
-                    final Set<String> allParams = spec.getParamNames();
-                    final int opParams = allParams.size() - mop.addrParams.size() / 2;
-                    if(opParams == 0) {
-                        mop.opParams = Collections.emptyList();
-                    } else {
-                        mop.opParams = new ArrayList<>(opParams*2);
-                        for (String paramName : allParams) {
-                            boolean inAddr = false;
-                            int j = 0;
-                            while(!inAddr && j < mop.addrParams.size()) {
-                                if(mop.addrParams.get(j).equals(paramName)) {
-                                    inAddr = true;
-                                }
-                                j += 2;
+        List<String> opParams = Collections.emptyList();
+        elemValue = annotation.getElem(WfConstants.OP_PARAMS, Constants.PM_UNDEFINED);
+        if (Constants.PM_UNDEFINED.equals(elemValue)) {
+            if (spec.hasParams()) {
+                final Set<String> allParams = spec.getParamNames();
+                final int opParamsTotal = allParams.size() - addrParams.size() / 2;
+                if(opParamsTotal > 0) {
+                    opParams = new ArrayList<>(opParamsTotal*2);
+                    for (String paramName : allParams) {
+                        boolean inAddr = false;
+                        int j = 0;
+                        while(!inAddr && j < addrParams.size()) {
+                            if(addrParams.get(j).equals(paramName)) {
+                                inAddr = true;
                             }
-                            if (!inAddr) {
-                                if(paramFilter.accepts(paramName)) {
-                                    mop.opParams.add(paramName);
-                                    mop.opParams.add(paramName);
-                                } else if(skipIfFiltered.contains(paramName)) {
-                                    // skip
-                                    mop.reset();
-                                    --opsTotal;
-                                    --i;
-                                    continue;
-                                }
+                            j += 2;
+                        }
+                        if (!inAddr) {
+                            if(paramFilter.accepts(paramName)) {
+                                opParams.add(paramName);
+                                opParams.add(paramName);
+                            } else if(skipIfFiltered.contains(paramName)) {
+                                return null;
                             }
                         }
                     }
-                } else {
-                    mop.opParams = Collections.emptyList();
-                }
-            } else {
-                try {
-                    mop.opParams = parseList(elemValue, paramFilter, skipIfFiltered, paramsMapping);
-                } catch (ProvisioningDescriptionException e) {
-                    throw new ProvisioningDescriptionException("Saw empty parameter name in note " + WfConstants.ADDR_PARAMS
-                            + "=" + elemValue + " of " + spec.getId());
                 }
             }
-
-            if(mop.op == WRITE_ATTR && mop.opParams.size() != 2) {
-                throw new ProvisioningDescriptionException(WfConstants.OP_PARAMS + " element of "
-                        + WfConstants.WRITE_ATTRIBUTE + " annotation of " + spec.getId()
-                        + " accepts only one parameter: " + annotation);
+        } else if (elemValue != null) {
+            try {
+                opParams = parseList(elemValue, paramFilter, skipIfFiltered, paramsMapping);
+            } catch (ProvisioningDescriptionException e) {
+                throw new ProvisioningDescriptionException("Saw empty parameter name in note " + WfConstants.ADDR_PARAMS
+                        + "=" + elemValue + " of " + spec.getId());
+            }
+            if(opParams == null) {
+                return null;
             }
         }
+
+        if(op == ManagedOp.WRITE_ATTR && opParams.size() != 2) {
+            throw new ProvisioningDescriptionException(WfConstants.OP_PARAMS + " element of "
+                    + WfConstants.WRITE_ATTRIBUTE + " annotation of " + spec.getId()
+                    + " accepts only one parameter: " + annotation);
+        }
+        return ManagedOp.newOp(annotation.getElem(WfConstants.ADDR_PREF), name, op, addrParams, opParams);
+    }
+
+    /**
+     * @return  the operations of the current config collected so far
+     */
+    List<String> getOps() {
+        return opList;
     }
 
     @Override
@@ -408,12 +374,12 @@ class WfProvisionedConfigHandler implements ProvisionedConfigHandler {
             lookForHost = 0;
             hostName = feature.getConfigParam(HOST);
         }
-        if (opsTotal == 0) {
+        if (ops.length == 0) {
             messageWriter.verbose("      " + feature.getResolvedParams());
             return;
         }
-        for(int i = 0; i < opsTotal; ++i) {
-            final String line = ops[i].toCommandLine(feature);
+        for(int i = 0; i < ops.length; ++i) {
+            final String line = ops[i].toCommandLine(feature, lineBuf);
             messageWriter.verbose("      " + line);
             writeOp(line);
         }
@@ -441,6 +407,16 @@ class WfProvisionedConfigHandler implements ProvisionedConfigHandler {
         if(hostName != null) {
             embedBuf.append(" --temp-host-controller-name=").append(hostName);
         }
+        final Path serverDir = runtime.getStagedDir().resolve(serverDirName);
+        String cacheKey = null;
+        if(configCache != null) {
+            cacheKey = configCache.key(runtime, embedBuf.toString(), opList, configInputs);
+            if(restoreCached(cacheKey, serverDir)) {
+                messageWriter.verbose(" Copied cached %s configuration", scriptName);
+                reset();
+                return;
+            }
+        }
         final Path script = runtime.getTmpPath("cli", scriptName);
         try {
             Files.createDirectories(script.getParent());
@@ -457,11 +433,94 @@ class WfProvisionedConfigHandler implements ProvisionedConfigHandler {
         }
 
         messageWriter.verbose(" Generating %s configuration", script.getFileName().toString());
+        if(stagedDirLock != null && STANDALONE.equals(model)) {
+            try {
+                runIsolated(script, cacheKey);
+            } catch(ProvisioningException e) {
+                throw new ProvisioningException("Failed to generate " + script.getFileName() + " configuration", e);
+            }
+            reset();
+            return;
+        }
+        final FileSnapshot snapshot = cacheKey == null ? null : FileSnapshot.take(serverDir, SERVER_CONFIG_DIR, SERVER_DATA_DIR);
         try {
             CliScriptRunner.runCliScript(runtime.getStagedDir(), script, messageWriter);
         } catch(ProvisioningException e) {
             throw new ProvisioningException("Failed to generate " + script.getFileName() + " configuration", e);
         }
+        deleteTmpConfig();
+        cacheConfig(cacheKey, serverDir, snapshot);
+        reset();
+    }
+
+    /**
+     * Executes the script with the embedded server using a copy of the staged server
+     * configuration and data directories and its own log and temporary directories,
+     * so that the concurrently generated configurations don't write into the same files
+     * (e.g. data/kernel/process-uuid, log/server.log). The files the script created
+     * or changed in the configuration and data directories are then copied
+     * into the staged ones.
+     */
+    private void runIsolated(Path script, String cacheKey) throws ProvisioningException {
+        final Path serverDir = runtime.getStagedDir().resolve(STANDALONE);
+        final Path baseDir = runtime.getTmpPath("wf-server", scriptName);
+        try {
+            synchronized(stagedDirLock) {
+                copy(serverDir, baseDir, Arrays.asList(SERVER_CONFIG_DIR, SERVER_DATA_DIR));
+            }
+            final FileSnapshot snapshot = FileSnapshot.take(baseDir, SERVER_CONFIG_DIR, SERVER_DATA_DIR);
+            CliScriptRunner.runCliScript(runtime.getStagedDir(), script, Arrays.asList(
+                    "-Djboss.server.base.dir=" + baseDir,
+                    "-Djboss.server.config.dir=" + baseDir.resolve(SERVER_CONFIG_DIR),
+                    "-Djboss.server.data.dir=" + baseDir.resolve(SERVER_DATA_DIR),
+                    "-Djboss.server.log.dir=" + baseDir.resolve(SERVER_LOG_DIR),
+                    "-Djboss.server.temp.dir=" + baseDir.resolve(SERVER_TMP_DIR)), messageWriter);
+            final List<String> changes = snapshot.getChanges();
+            synchronized(stagedDirLock) {
+                copy(baseDir, serverDir, changes);
+            }
+            if(cacheKey != null) {
+                configCache.store(cacheKey, baseDir, changes, messageWriter);
+            }
+        } finally {
+            IoUtils.recursiveDelete(baseDir);
+        }
+    }
+
+    private static void copy(Path source, Path target, List<String> paths) throws ProvisioningException {
+        for(String path : paths) {
+            final Path src = source.resolve(path);
+            if(!Files.exists(src)) {
+                continue;
+            }
+            try {
+                IoUtils.copy(src, target.resolve(path));
+            } catch (IOException e) {
+                throw new ProvisioningException(Errors.copyFile(src, target.resolve(path)), e);
+            }
+        }
+    }
+
+    private boolean restoreCached(String cacheKey, Path serverDir) {
+        if(stagedDirLock == null) {
+            return configCache.restore(cacheKey, serverDir, messageWriter);
+        }
+        synchronized(stagedDirLock) {
+            return configCache.restore(cacheKey, serverDir, messageWriter);
+        }
+    }
+
+    /**
+     * Stores the files the script created or changed in the server configuration
+     * and data directories since the snapshot was taken.
+     */
+    private void cacheConfig(String cacheKey, Path serverDir, FileSnapshot snapshot) throws ProvisioningException {
+        if(cacheKey != null) {
+            configCache.store(cacheKey, serverDir, snapshot.getChanges(), messageWriter);
+        }
+    }
+
+    private void deleteTmpConfig() {
         if(tmpConfig != null) {
             final Path tmpPath = runtime.getStagedDir().resolve(DOMAIN).resolve("configuration").resolve(tmpConfig);
             if(Files.exists(tmpPath)) {
@@ -469,9 +528,7 @@ class WfProvisionedConfigHandler implements ProvisionedConfigHandler {
             } else {
                 messageWriter.error("Expected path does not exist " + tmpPath);
             }
-            tmpConfig = null;
         }
-        reset();
     }
 
     private static Set<String> parseSet(String str) throws ProvisioningDescriptionException {
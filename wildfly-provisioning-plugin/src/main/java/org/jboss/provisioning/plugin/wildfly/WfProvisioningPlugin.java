@@ -17,8 +17,6 @@
 package org.jboss.provisioning.plugin.wildfly;
 
 import java.io.BufferedReader;
-import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -33,15 +31,30 @@ import java.nio.file.Path;
 import java.nio.file.SimpleFileVisitor;
 import java.nio.file.StandardCopyOption;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
 import nu.xom.Attribute;
 import nu.xom.Builder;
@@ -51,6 +64,7 @@ import nu.xom.Elements;
 import nu.xom.ParsingException;
 import nu.xom.Serializer;
 import org.jboss.provisioning.ArtifactCoords;
+import org.jboss.provisioning.ArtifactException;
 import org.jboss.provisioning.Errors;
 import org.jboss.provisioning.MessageWriter;
 import org.jboss.provisioning.ProvisioningException;
@@ -58,13 +72,13 @@ import org.jboss.provisioning.plugin.ProvisioningPlugin;
 import org.jboss.provisioning.plugin.wildfly.config.CopyArtifact;
 import org.jboss.provisioning.plugin.wildfly.config.CopyPath;
 import org.jboss.provisioning.plugin.wildfly.config.DeletePath;
-import org.jboss.provisioning.plugin.wildfly.config.FilePermission;
 import org.jboss.provisioning.plugin.wildfly.config.WildFlyPackageTasks;
 import org.jboss.provisioning.runtime.FeaturePackRuntime;
 import org.jboss.provisioning.runtime.PackageRuntime;
 import org.jboss.provisioning.runtime.ProvisioningRuntime;
 import org.jboss.provisioning.state.ProvisionedConfig;
 import org.jboss.provisioning.util.IoUtils;
+import org.jboss.provisioning.util.LinkedArtifacts;
 import org.jboss.provisioning.util.PmCollections;
 import org.jboss.provisioning.util.PropertyUtils;
 import org.jboss.provisioning.util.ZipUtils;
@@ -75,13 +89,33 @@ import org.jboss.provisioning.util.ZipUtils;
  */
 public class WfProvisioningPlugin implements ProvisioningPlugin {
 
+    /**
+     * System property limiting the number of configurations generated concurrently.
+     * Defaults to the number of available processors, 1 disables the concurrent generation.
+     */
+    private static final String CONFIG_THREADS = "wfConfigThreads";
+    private static final String JANDEX_THREADS = "wfJandexThreads";
+    /**
+     * System property limiting the number of module.xml files processed concurrently.
+     * Defaults to the number of available processors, 1 disables the concurrent processing.
+     */
+    private static final String MODULE_THREADS = "wfModuleThreads";
+
+    private static final Pattern ARTIFACT_EXPR = Pattern.compile("<artifact\\s+name=\"\\$\\{([^}]+)\\}\"");
+
     private ProvisioningRuntime runtime;
     private PropertyResolver versionResolver;
 
     private PropertyResolver tasksProps;
 
     private boolean thinServer;
+    private LinkedArtifacts.Mode linkMode;
+    private JandexIndexService jandexIndexer;
+    private ExecutorService moduleExecutor;
+    private final List<ModuleTask> moduleTasks = new ArrayList<>();
+    private FilePermissions filePermissions;
     private Set<String> schemaGroups = Collections.emptySet();
+    private Map<String, List<String>> schemaIndex = Collections.emptyMap();
 
     /* (non-Javadoc)
      * @see org.jboss.provisioning.util.plugin.ProvisioningPlugin#execute()
@@ -92,13 +126,11 @@ public class WfProvisioningPlugin implements ProvisioningPlugin {
         final MessageWriter messageWriter = runtime.getMessageWriter();
         messageWriter.verbose("WildFly provisioning plug-in");
 
-        final String thinServerProp = System.getProperty("wfThinServer");
-        if(thinServerProp != null) {
-            if(thinServerProp.isEmpty()) {
-                thinServer = true;
-            } else {
-                thinServer = Boolean.parseBoolean(thinServerProp);
-            }
+        thinServer = isEnabled("wfThinServer");
+        try {
+            linkMode = LinkedArtifacts.getConfiguredMode();
+        } catch(IllegalArgumentException e) {
+            throw new ProvisioningException(e.getMessage(), e);
         }
 
         this.runtime = runtime;
@@ -152,16 +184,41 @@ public class WfProvisioningPlugin implements ProvisioningPlugin {
                 } catch (IOException e) {
                     throw new ProvisioningException(Errors.readFile(schemaGroupsTxt), e);
                 }
+                readSchemaIndex(schemaGroupsTxt.resolveSibling(WfConstants.SCHEMA_INDEX_TXT));
             }
         }
         tasksProps = new MapPropertyResolver(provisioningProps);
         versionResolver = new MapPropertyResolver(artifactVersions);
 
-        for(FeaturePackRuntime fp : runtime.getFeaturePacks()) {
-            processPackages(fp);
+        resolveModuleArtifacts();
+
+        filePermissions = new FilePermissions();
+        final int moduleThreads = getThreads(MODULE_THREADS);
+        if(moduleThreads > 1) {
+            moduleExecutor = newThreadPool("wf-module-", moduleThreads);
+        }
+        // the indexes are created in the background while the rest of the content is being laid out
+        try(JandexIndexService jandexIndexer = new JandexIndexService(getThreads(JANDEX_THREADS))) {
+            this.jandexIndexer = jandexIndexer;
+            for(FeaturePackRuntime fp : runtime.getFeaturePacks()) {
+                processPackages(fp);
+            }
+            awaitModules();
+            jandexIndexer.awaitCompletion();
+            // the permissions are applied once all the packages have been laid out
+            filePermissions.apply(runtime.getStagedDir(), runtime.getLinkedArtifacts(), messageWriter);
+        } finally {
+            this.jandexIndexer = null;
+            if(moduleExecutor != null) {
+                moduleExecutor.shutdownNow();
+                moduleExecutor = null;
+            }
+            moduleTasks.clear();
         }
 
-        generateConfigs(runtime, messageWriter);
+        final GeneratedConfigCache configCache = runtime.hasConfigs()
+                ? GeneratedConfigCache.getConfigured(runtime, artifactVersions.values()) : null;
+        generateConfigs(runtime, configCache, messageWriter);
 
         // TODO this needs to be revisited
         for(FeaturePackRuntime fp : runtime.getFeaturePacks()) {
@@ -172,27 +229,202 @@ public class WfProvisioningPlugin implements ProvisioningPlugin {
         }
     }
 
-    private void generateConfigs(ProvisioningRuntime runtime, final MessageWriter messageWriter) throws ProvisioningException {
-        if(runtime.hasConfigs()) {
-            final WfProvisionedConfigHandler configHandler = new WfProvisionedConfigHandler(runtime);
-            for (ProvisionedConfig config : runtime.getConfigs()) {
-                if(messageWriter.isVerboseEnabled()) {
-                    final StringBuilder msg = new StringBuilder(64).append("Feature config");
-                    if (config.getModel() != null) {
-                        msg.append(" model=").append(config.getModel());
+    private void generateConfigs(ProvisioningRuntime runtime, GeneratedConfigCache configCache, final MessageWriter messageWriter) throws ProvisioningException {
+        if(!runtime.hasConfigs()) {
+            return;
+        }
+        final List<ProvisionedConfig> configs = runtime.getConfigs();
+        final int threads = Math.min(getThreads(CONFIG_THREADS), configs.size());
+        if(threads <= 1) {
+            final WfProvisionedConfigHandler configHandler = new WfProvisionedConfigHandler(runtime, configCache);
+            for (ProvisionedConfig config : configs) {
+                logConfig(config, messageWriter);
+                config.handle(configHandler);
+            }
+            return;
+        }
+
+        // standalone configs are independent of each other and can be generated concurrently.
+        // domain and host configs may read and write each other's files (e.g. host.xml is generated
+        // by a domain config and then may be used by a host config) so they are generated sequentially
+        // in their original order as a single task
+        List<ProvisionedConfig> domainConfigs = Collections.emptyList();
+        List<List<ProvisionedConfig>> tasks = new ArrayList<>(configs.size());
+        for (ProvisionedConfig config : configs) {
+            if(WfConstants.STANDALONE.equals(config.getModel())) {
+                tasks.add(Collections.singletonList(config));
+            } else {
+                if(domainConfigs.isEmpty()) {
+                    domainConfigs = new ArrayList<>();
+                    tasks.add(domainConfigs);
+                }
+                domainConfigs.add(config);
+            }
+        }
+
+        // the standalone configs are generated by embedded servers with their own server directories
+        final Object stagedDirLock = new Object();
+        final Map<String, ManagedOp[]> compiledSpecs = new ConcurrentHashMap<>();
+        final ExecutorService executor = newThreadPool("wf-config-gen-", Math.min(threads, tasks.size()));
+        try {
+            final List<Future<Void>> futures = new ArrayList<>(tasks.size());
+            for (List<ProvisionedConfig> task : tasks) {
+                futures.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        for(ProvisionedConfig config : task) {
+                            logConfig(config, messageWriter);
+                            config.handle(new WfProvisionedConfigHandler(runtime, configCache, stagedDirLock, compiledSpecs));
+                        }
+                        return null;
                     }
-                    if (config.getName() != null) {
-                        msg.append(" name=").append(config.getName());
+                }));
+            }
+            // the failures are reported in the order of the configs
+            ProvisioningException failure = null;
+            for(Future<Void> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    final Throwable cause = e.getCause();
+                    if(failure == null) {
+                        failure = cause instanceof ProvisioningException ? (ProvisioningException) cause
+                                : new ProvisioningException("Failed to generate configuration", cause);
+                    } else {
+                        failure.addSuppressed(cause);
                     }
-                    messageWriter.verbose(msg);
-                    if (config.hasProperties()) {
-                        messageWriter.verbose("  properties");
-                        for (Map.Entry<String, String> entry : config.getProperties().entrySet()) {
-                            messageWriter.verbose("    %s=%s", entry.getKey(), entry.getValue());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new ProvisioningException("Interrupted while generating configurations", e);
+                }
+            }
+            if(failure != null) {
+                throw failure;
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static boolean isEnabled(String prop) {
+        final String value = System.getProperty(prop);
+        if(value == null) {
+            return false;
+        }
+        return value.isEmpty() || Boolean.parseBoolean(value);
+    }
+
+    /**
+     * Creates a fixed pool of daemon threads which inherit the context classloader
+     * of the calling thread (i.e. the plugin's classloader).
+     */
+    static ExecutorService newThreadPool(String namePrefix, int threads) {
+        final ClassLoader tccl = Thread.currentThread().getContextClassLoader();
+        return Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            private final AtomicInteger counter = new AtomicInteger();
+            @Override
+            public Thread newThread(Runnable r) {
+                final Thread t = new Thread(r, namePrefix + counter.incrementAndGet());
+                t.setContextClassLoader(tccl);
+                t.setDaemon(true);
+                return t;
+            }
+        });
+    }
+
+    private static int getThreads(String prop) throws ProvisioningException {
+        final String value = System.getProperty(prop);
+        if(value == null || value.isEmpty()) {
+            return Runtime.getRuntime().availableProcessors();
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch(NumberFormatException e) {
+            throw new ProvisioningException("Failed to parse the value of " + prop + ": " + value, e);
+        }
+    }
+
+    private static void logConfig(ProvisionedConfig config, final MessageWriter messageWriter) {
+        if(!messageWriter.isVerboseEnabled()) {
+            return;
+        }
+        final StringBuilder msg = new StringBuilder(64).append("Feature config");
+        if (config.getModel() != null) {
+            msg.append(" model=").append(config.getModel());
+        }
+        if (config.getName() != null) {
+            msg.append(" name=").append(config.getName());
+        }
+        messageWriter.verbose(msg);
+        if (config.hasProperties()) {
+            messageWriter.verbose("  properties");
+            for (Map.Entry<String, String> entry : config.getProperties().entrySet()) {
+                messageWriter.verbose("    %s=%s", entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Resolves the artifacts referenced from the module.xml templates of the provisioned
+     * packages with a single request, so that the resolver can resolve them concurrently
+     * instead of the modules resolving them one by one.
+     * A failure here is not fatal: the modules will then resolve their artifacts
+     * individually and report the ones that actually could not be resolved.
+     */
+    private void resolveModuleArtifacts() throws ProvisioningException {
+        final Set<ArtifactCoords> coords = new LinkedHashSet<>();
+        for(FeaturePackRuntime fp : runtime.getFeaturePacks()) {
+            for(PackageRuntime pkg : fp.getPackages()) {
+                final Path moduleDir = pkg.getResource(WfConstants.PM, WfConstants.WILDFLY, WfConstants.MODULE);
+                if(!Files.exists(moduleDir)) {
+                    continue;
+                }
+                try(Stream<Path> files = Files.walk(moduleDir)) {
+                    final Iterator<Path> i = files.iterator();
+                    while(i.hasNext()) {
+                        final Path file = i.next();
+                        if(file.getFileName().toString().equals(WfConstants.MODULE_XML)) {
+                            collectArtifacts(file, coords);
                         }
                     }
+                } catch (IOException e) {
+                    throw new ProvisioningException(Errors.readDirectory(moduleDir), e);
+                }
+            }
+        }
+        if(coords.isEmpty()) {
+            return;
+        }
+        runtime.getMessageWriter().verbose("Resolving %d module artifacts", coords.size());
+        try {
+            runtime.resolveArtifacts(coords);
+        } catch (ArtifactException e) {
+            // the artifacts resolved before the failure are remembered, the rest are resolved one by one
+            runtime.getMessageWriter().verbose(e, "Failed to resolve module artifacts in one request");
+        }
+    }
+
+    private void collectArtifacts(Path moduleXml, Set<ArtifactCoords> coords) throws ProvisioningException {
+        final String content;
+        try {
+            content = new String(Files.readAllBytes(moduleXml), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new ProvisioningException(Errors.readFile(moduleXml), e);
+        }
+        final Matcher matcher = ARTIFACT_EXPR.matcher(content);
+        while(matcher.find()) {
+            String exprBody = matcher.group(1);
+            final int optionsIndex = exprBody.indexOf('?');
+            if(optionsIndex > 0) {
+                exprBody = exprBody.substring(0, optionsIndex);
+            }
+            final String resolved = versionResolver.resolveProperty(exprBody);
+            if(resolved != null) {
+                try {
+                    coords.add(fromJBossModules(resolved, "jar"));
+                } catch(IllegalArgumentException e) {
+                    // will be reported when the module is processed
                 }
-                config.handle(configHandler);
             }
         }
     }
@@ -210,6 +442,8 @@ public class WfProvisioningPlugin implements ProvisioningPlugin {
             }
             final Path tasksXml = pmWfDir.resolve(WfConstants.TASKS_XML);
             if(Files.exists(tasksXml)) {
+                // the tasks may depend on the modules processed so far
+                awaitModules();
                 final WildFlyPackageTasks pkgTasks = WildFlyPackageTasks.load(tasksXml);
                 if(pkgTasks.hasCopyArtifacts()) {
                     copyArtifacts(pkgTasks);
@@ -221,7 +455,7 @@ public class WfProvisioningPlugin implements ProvisioningPlugin {
                     mkdirs(pkgTasks, this.runtime.getStagedDir());
                 }
                 if (pkgTasks.hasFilePermissions() && !PropertyUtils.isWindows()) {
-                    processFeaturePackFilePermissions(pkgTasks, this.runtime.getStagedDir());
+                    filePermissions.add(pkgTasks.getFilePermissions());
                 }
                 if(pkgTasks.hasDeletePaths()) {
                     deletePaths(pkgTasks, pmWfDir);
@@ -251,7 +485,7 @@ public class WfProvisioningPlugin implements ProvisioningPlugin {
                 public FileVisitResult visitFile(Path file, BasicFileAttributes attrs)
                     throws IOException {
                     if(file.getFileName().toString().equals(WfConstants.MODULE_XML)) {
-                        processModuleTemplate(fpModuleDir, installDir, file);
+                        submitModuleTemplate(fp, pkgName, fpModuleDir, installDir, file);
                     } else {
                         Files.copy(file, installDir.resolve(fpModuleDir.relativize(file)), StandardCopyOption.REPLACE_EXISTING);
                     }
@@ -263,7 +497,81 @@ public class WfProvisioningPlugin implements ProvisioningPlugin {
         }
     }
 
-    private void processModuleTemplate(Path fpModuleDir, final Path installDir, Path moduleTemplate) throws IOException {
+    private void submitModuleTemplate(ArtifactCoords.Gav fp, String pkgName, Path fpModuleDir, Path installDir, Path moduleTemplate) throws IOException {
+        final ModuleTask task = new ModuleTask(fp, pkgName, moduleTemplate);
+        if(moduleExecutor == null) {
+            processModuleTemplate(fpModuleDir, installDir, moduleTemplate, task.schemaArtifacts);
+            task.extractSchemas();
+            return;
+        }
+        task.future = moduleExecutor.submit(new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                processModuleTemplate(fpModuleDir, installDir, moduleTemplate, task.schemaArtifacts);
+                return null;
+            }
+        });
+        moduleTasks.add(task);
+    }
+
+    /**
+     * Waits for the submitted module.xml files to be processed and extracts the schemas
+     * from their artifacts in the order the modules were submitted.
+     *
+     * @throws ProvisioningException  if any of the modules failed to be processed,
+     * the failures are reported in the order the modules were submitted
+     */
+    private void awaitModules() throws ProvisioningException {
+        if(moduleTasks.isEmpty()) {
+            return;
+        }
+        ProvisioningException failure = null;
+        for(ModuleTask task : moduleTasks) {
+            try {
+                task.future.get();
+                if(failure == null) {
+                    task.extractSchemas();
+                }
+            } catch (ExecutionException | IOException e) {
+                final Throwable cause = e instanceof ExecutionException ? e.getCause() : e;
+                if(failure == null) {
+                    failure = new ProvisioningException("Failed to process " + task.moduleXml + " from package "
+                            + task.pkgName + " from feature-pack " + task.fp, cause);
+                } else {
+                    failure.addSuppressed(cause);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ProvisioningException("Interrupted while processing modules", e);
+            }
+        }
+        moduleTasks.clear();
+        if(failure != null) {
+            throw failure;
+        }
+    }
+
+    private class ModuleTask {
+        final ArtifactCoords.Gav fp;
+        final String pkgName;
+        final Path moduleXml;
+        final Map<String, Path> schemaArtifacts = new LinkedHashMap<>(0);
+        Future<Void> future;
+
+        ModuleTask(ArtifactCoords.Gav fp, String pkgName, Path moduleXml) {
+            this.fp = fp;
+            this.pkgName = pkgName;
+            this.moduleXml = moduleXml;
+        }
+
+        void extractSchemas() throws IOException {
+            for(Map.Entry<String, Path> artifact : schemaArtifacts.entrySet()) {
+                WfProvisioningPlugin.this.extractSchemas(artifact.getKey(), artifact.getValue());
+            }
+        }
+    }
+
+    private void processModuleTemplate(Path fpModuleDir, final Path installDir, Path moduleTemplate, Map<String, Path> schemaArtifacts) throws IOException {
         final Builder builder = new Builder(false);
         final Document document;
         try (BufferedReader reader = Files.newBufferedReader(moduleTemplate, StandardCharsets.UTF_8)) {
@@ -340,15 +648,13 @@ public class WfProvisioningPlugin implements ProvisioningPlugin {
 
                             if (jandex) {
                                 final int lastDot = artifactFileName.lastIndexOf(".");
-                                final File target = new File(targetDir.toFile(), new StringBuilder()
+                                finalFileName = new StringBuilder()
                                     .append(artifactFileName.substring(0, lastDot))
                                     .append("-jandex")
-                                    .append(artifactFileName.substring(lastDot)).toString()
-                                );
-                                JandexIndexer.createIndex(moduleArtifact.toFile(), new FileOutputStream(target));
-                                finalFileName = target.getName();
+                                    .append(artifactFileName.substring(lastDot)).toString();
+                                jandexIndexer.submit(moduleArtifact, targetDir.resolve(finalFileName));
                             } else {
-                                Files.copy(moduleArtifact, targetDir.resolve(artifactFileName), StandardCopyOption.REPLACE_EXISTING);
+                                installArtifact(moduleArtifact, targetDir.resolve(artifactFileName));
                                 finalFileName = artifactFileName;
                             }
                             element.setLocalName("resource-root");
@@ -356,7 +662,8 @@ public class WfProvisioningPlugin implements ProvisioningPlugin {
                             attribute.setValue(finalFileName);
                         }
                         if (schemaGroups.contains(coords.getGroupId())) {
-                            extractSchemas(moduleArtifact);
+                            // the schemas are extracted by the provisioning thread in the order of the modules
+                            schemaArtifacts.put(resolved, moduleArtifact);
                         }
                     }
                 }
@@ -377,9 +684,76 @@ public class WfProvisioningPlugin implements ProvisioningPlugin {
         }
     }
 
-    private void extractSchemas(Path moduleArtifact) throws IOException {
+    private void installArtifact(Path artifact, Path target) throws IOException {
+        if(linkMode == LinkedArtifacts.Mode.COPY) {
+            IoUtils.copy(artifact, target);
+            return;
+        }
+        final LinkedArtifacts.Mode mode = LinkedArtifacts.install(artifact, target, linkMode);
+        runtime.getLinkedArtifacts().add(runtime.getStagedDir(), target, artifact, mode);
+    }
+
+    /**
+     * Reads the schema entries of the artifacts recorded when the feature-pack was built.
+     * Feature-packs built before the index was introduced don't include it, in which case
+     * their artifacts are scanned for schemas.
+     */
+    private void readSchemaIndex(Path schemaIndexTxt) throws ProvisioningException {
+        if(!Files.exists(schemaIndexTxt)) {
+            return;
+        }
+        if(schemaIndex.isEmpty()) {
+            schemaIndex = new HashMap<>();
+        }
+        try(BufferedReader reader = Files.newBufferedReader(schemaIndexTxt)) {
+            String line = reader.readLine();
+            while(line != null) {
+                final int i = line.indexOf('=');
+                if(i <= 0) {
+                    throw new ProvisioningException("Unexpected line format in " + schemaIndexTxt + ": " + line);
+                }
+                List<String> entries = schemaIndex.get(line.substring(0, i));
+                if(entries == null) {
+                    entries = new ArrayList<>(0);
+                    schemaIndex.put(line.substring(0, i), entries);
+                }
+                if(i + 1 < line.length()) {
+                    entries.add(line.substring(i + 1));
+                }
+                line = reader.readLine();
+            }
+        } catch (IOException e) {
+            throw new ProvisioningException(Errors.readFile(schemaIndexTxt), e);
+        }
+    }
+
+    private void extractSchemas(String gav, Path moduleArtifact) throws IOException {
+        final List<String> indexed = schemaIndex.get(gav);
+        if(indexed != null && indexed.isEmpty()) {
+            return;
+        }
         final Path targetSchemasDir = this.runtime.getStagedDir().resolve(WfConstants.DOCS).resolve(WfConstants.SCHEMA);
         Files.createDirectories(targetSchemasDir);
+        if(indexed != null) {
+            try (ZipFile zip = new ZipFile(moduleArtifact.toFile())) {
+                final ZipEntry[] entries = new ZipEntry[indexed.size()];
+                int i = 0;
+                while(i < entries.length && (entries[i] = zip.getEntry(WfConstants.SCHEMA + '/' + indexed.get(i))) != null) {
+                    ++i;
+                }
+                // otherwise the artifact doesn't match the one the feature-pack was built with
+                if(i == entries.length) {
+                    for(i = 0; i < entries.length; ++i) {
+                        final Path target = targetSchemasDir.resolve(indexed.get(i));
+                        Files.createDirectories(target.getParent());
+                        try(InputStream in = zip.getInputStream(entries[i])) {
+                            Files.copy(in, target, StandardCopyOption.REPLACE_EXISTING);
+                        }
+                    }
+                    return;
+                }
+            }
+        }
         try (FileSystem jarFS = FileSystems.newFileSystem(moduleArtifact, null)) {
             final Path schemaSrc = jarFS.getPath(WfConstants.SCHEMA);
             if (Files.exists(schemaSrc)) {
@@ -407,10 +781,10 @@ public class WfProvisioningPlugin implements ProvisioningPlugin {
                 if (copyArtifact.isExtract()) {
                     extractArtifact(jarSrc, jarTarget, copyArtifact);
                 } else {
-                    IoUtils.copy(jarSrc, jarTarget);
+                    installArtifact(jarSrc, jarTarget);
                 }
                 if(schemaGroups.contains(coords.getGroupId())) {
-                    extractSchemas(jarSrc);
+                    extractSchemas(gavString, jarSrc);
                 }
             } catch (IOException e) {
                 throw new ProvisioningException("Failed to copy artifact " + gavString, e);
@@ -541,38 +915,6 @@ public class WfProvisioningPlugin implements ProvisioningPlugin {
         }
     }
 
-    private static void processFeaturePackFilePermissions(WildFlyPackageTasks tasks, Path installDir) throws ProvisioningException {
-        final List<FilePermission> filePermissions = tasks.getFilePermissions();
-        try {
-            Files.walkFileTree(installDir, new SimpleFileVisitor<Path>() {
-                @Override
-                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
-                    final String relative = installDir.relativize(dir).toString();
-                    for (FilePermission perm : filePermissions) {
-                        if (perm.includeFile(relative)) {
-                            Files.setPosixFilePermissions(dir, perm.getPermission());
-                            continue;
-                        }
-                    }
-                    return FileVisitResult.CONTINUE;
-                }
-                @Override
-                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
-                    final String relative = installDir.relativize(file).toString();
-                    for (FilePermission perm : filePermissions) {
-                        if (perm.includeFile(relative)) {
-                            Files.setPosixFilePermissions(file, perm.getPermission());
-                            continue;
-                        }
-                    }
-                    return FileVisitResult.CONTINUE;
-                }
-            });
-        } catch (IOException e) {
-            throw new ProvisioningException("Failed to set file permissions", e);
-        }
-    }
-
     private static ArtifactCoords fromJBossModules(String str, String extension) {
         final String[] parts = str.split(":");
         if(parts.length < 2) {
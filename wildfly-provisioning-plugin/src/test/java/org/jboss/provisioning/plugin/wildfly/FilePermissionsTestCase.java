@@ -0,0 +1,99 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.provisioning.plugin.wildfly;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Collections;
+import java.util.Set;
+
+import org.jboss.provisioning.DefaultMessageWriter;
+import org.jboss.provisioning.plugin.wildfly.config.FileFilter;
+import org.jboss.provisioning.plugin.wildfly.config.FilePermission;
+import org.jboss.provisioning.util.IoUtils;
+import org.jboss.provisioning.util.LinkedArtifacts;
+import org.jboss.provisioning.util.PropertyUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+public class FilePermissionsTestCase {
+
+    private static final Set<PosixFilePermission> REPO_PERMS = PosixFilePermissions.fromString("rw-r--r--");
+    private static final Set<PosixFilePermission> RULE_PERMS = PosixFilePermissions.fromString("rwxrwxrwx");
+
+    private Path repoDir;
+    private Path installDir;
+    private Path artifact;
+
+    @Before
+    public void before() throws Exception {
+        Assume.assumeFalse(PropertyUtils.isWindows());
+        repoDir = Files.createTempDirectory("pm-repo");
+        installDir = Files.createTempDirectory("pm-install");
+        artifact = repoDir.resolve("module.jar");
+        IoUtils.writeFile(artifact, "module");
+        Files.setPosixFilePermissions(artifact, REPO_PERMS);
+    }
+
+    @After
+    public void after() throws Exception {
+        if(repoDir != null) {
+            IoUtils.recursiveDelete(repoDir);
+        }
+        if(installDir != null) {
+            IoUtils.recursiveDelete(installDir);
+        }
+    }
+
+    @Test
+    public void testHardLinkedArtifactIsSkipped() throws Exception {
+        assertArtifactIsSkipped(LinkedArtifacts.Mode.HARDLINK);
+    }
+
+    @Test
+    public void testSymLinkedArtifactIsSkipped() throws Exception {
+        assertArtifactIsSkipped(LinkedArtifacts.Mode.SYMLINK);
+    }
+
+    private void assertArtifactIsSkipped(LinkedArtifacts.Mode mode) throws Exception {
+        final Path target = installDir.resolve("modules").resolve("module.jar");
+        Files.createDirectories(target.getParent());
+        final LinkedArtifacts linkedArtifacts = new LinkedArtifacts();
+        final LinkedArtifacts.Mode installed = LinkedArtifacts.install(artifact, target, mode);
+        Assume.assumeTrue(installed == mode);
+        linkedArtifacts.add(installDir, target, artifact, installed);
+
+        final Path file = installDir.resolve("modules").resolve("module.xml");
+        IoUtils.writeFile(file, "<module/>");
+        Files.setPosixFilePermissions(file, REPO_PERMS);
+
+        final FilePermissions filePermissions = new FilePermissions();
+        filePermissions.add(Collections.singletonList(FilePermission.builder()
+                .setValue("777")
+                .addFilter(FileFilter.builder().setPatternString("*").setInclude().build())
+                .build()));
+        filePermissions.apply(installDir, linkedArtifacts, new DefaultMessageWriter());
+
+        Assert.assertEquals(REPO_PERMS, Files.getPosixFilePermissions(artifact));
+        Assert.assertEquals(RULE_PERMS, Files.getPosixFilePermissions(file));
+    }
+}
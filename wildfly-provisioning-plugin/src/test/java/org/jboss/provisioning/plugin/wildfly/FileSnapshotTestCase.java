@@ -0,0 +1,70 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.provisioning.plugin.wildfly;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import org.jboss.provisioning.util.IoUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class FileSnapshotTestCase {
+
+    private Path root;
+
+    @Before
+    public void before() throws Exception {
+        root = Files.createTempDirectory("pm-snapshot");
+    }
+
+    @After
+    public void after() throws Exception {
+        IoUtils.recursiveDelete(root);
+    }
+
+    @Test
+    public void testChanges() throws Exception {
+        write(root.resolve("configuration").resolve("unchanged.xml"), "unchanged");
+        write(root.resolve("configuration").resolve("changed.xml"), "original");
+        write(root.resolve("log").resolve("server.log"), "original");
+
+        final FileSnapshot snapshot = FileSnapshot.take(root, "configuration", "data");
+        Assert.assertEquals(Collections.emptyList(), snapshot.getChanges());
+
+        write(root.resolve("configuration").resolve("changed.xml"), "changed");
+        write(root.resolve("data").resolve("kernel").resolve("process-uuid"), "uuid");
+        write(root.resolve("log").resolve("server.log"), "changed");
+
+        Assert.assertEquals(new HashSet<>(Arrays.asList(
+                Paths.get("configuration", "changed.xml").toString(),
+                Paths.get("data", "kernel", "process-uuid").toString())),
+                new HashSet<>(snapshot.getChanges()));
+    }
+
+    private static void write(Path file, String content) throws Exception {
+        Files.createDirectories(file.getParent());
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    }
+}
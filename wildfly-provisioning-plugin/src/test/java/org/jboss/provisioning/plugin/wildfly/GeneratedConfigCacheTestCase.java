@@ -0,0 +1,87 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.provisioning.plugin.wildfly;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.jboss.provisioning.DefaultMessageWriter;
+import org.jboss.provisioning.util.IoUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class GeneratedConfigCacheTestCase {
+
+    private static final String KEY = "0123456789abcdef";
+
+    private Path cacheDir;
+    private Path serverDir;
+    private Path restoredDir;
+
+    @Before
+    public void before() throws Exception {
+        cacheDir = Files.createTempDirectory("pm-config-cache");
+        serverDir = Files.createTempDirectory("pm-server");
+        restoredDir = Files.createTempDirectory("pm-restored");
+    }
+
+    @After
+    public void after() throws Exception {
+        IoUtils.recursiveDelete(cacheDir);
+        IoUtils.recursiveDelete(serverDir);
+        IoUtils.recursiveDelete(restoredDir);
+    }
+
+    @Test
+    public void testAllGeneratedFilesAreRestored() throws Exception {
+        write(serverDir.resolve("configuration").resolve("application-users.properties"), "users");
+        final FileSnapshot snapshot = FileSnapshot.take(serverDir, "configuration", "data");
+        write(serverDir.resolve("configuration").resolve("standalone.xml"), "<server/>");
+        write(serverDir.resolve("configuration").resolve("logging.properties"), "logging");
+        write(serverDir.resolve("data").resolve("kernel").resolve("process-uuid"), "uuid");
+        write(serverDir.resolve("data").resolve("content").resolve("ab").resolve("content"), "deployment");
+        write(serverDir.resolve("configuration").resolve("standalone_xml_history").resolve("current").resolve("standalone.v1.xml"), "<server/>");
+
+        final GeneratedConfigCache cache = new GeneratedConfigCache(cacheDir);
+        final DefaultMessageWriter messageWriter = new DefaultMessageWriter();
+        Assert.assertFalse(cache.restore(KEY, restoredDir, messageWriter));
+        cache.store(KEY, serverDir, snapshot.getChanges(), messageWriter);
+        Assert.assertTrue(cache.restore(KEY, restoredDir, messageWriter));
+
+        assertContent(restoredDir.resolve("configuration").resolve("standalone.xml"), "<server/>");
+        assertContent(restoredDir.resolve("configuration").resolve("logging.properties"), "logging");
+        assertContent(restoredDir.resolve("data").resolve("content").resolve("ab").resolve("content"), "deployment");
+        // the identity of the server instance and the configuration history are not cached
+        Assert.assertFalse(Files.exists(restoredDir.resolve(GeneratedConfigCache.PROCESS_UUID)));
+        Assert.assertFalse(Files.exists(restoredDir.resolve("configuration").resolve("standalone_xml_history")));
+        // the files the script did not touch are not cached
+        Assert.assertFalse(Files.exists(restoredDir.resolve("configuration").resolve("application-users.properties")));
+    }
+
+    private static void write(Path file, String content) throws Exception {
+        Files.createDirectories(file.getParent());
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void assertContent(Path file, String content) throws Exception {
+        Assert.assertTrue(Files.exists(file));
+        Assert.assertEquals(content, new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+    }
+}
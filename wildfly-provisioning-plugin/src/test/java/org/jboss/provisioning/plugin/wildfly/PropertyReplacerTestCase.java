@@ -0,0 +1,133 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.provisioning.plugin.wildfly;
+
+import java.io.File;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PropertyReplacerTestCase {
+
+    private static final int BLOCK_SIZE = 8192;
+
+    @Test
+    public void testNoExpressions() throws Exception {
+        Assert.assertEquals("", replace(""));
+        Assert.assertEquals("plain text", replace("plain text"));
+    }
+
+    @Test
+    public void testProperty() throws Exception {
+        Assert.assertEquals("<a>1</a><b>2</b>", replace("<a>${a}</a><b>${b}</b>"));
+    }
+
+    @Test
+    public void testEscapedDollar() throws Exception {
+        Assert.assertEquals("$a $", replace("$$a $$"));
+        Assert.assertEquals("${a}", replace("$${a}"));
+    }
+
+    @Test
+    public void testFileSeparator() throws Exception {
+        Assert.assertEquals("a" + File.separatorChar + "b", replace("a${/}b"));
+    }
+
+    @Test
+    public void testDefaultValue() throws Exception {
+        Assert.assertEquals("1", replace("${a,b}"));
+        Assert.assertEquals("2", replace("${missing,b}"));
+        Assert.assertEquals("default", replace("${missing,default}"));
+        Assert.assertEquals("1", replace("${a,missing}"));
+    }
+
+    @Test
+    public void testDollarNotFollowedByBrace() throws Exception {
+        Assert.assertEquals("$a", replace("$a"));
+        Assert.assertEquals("cost: $5", replace("cost: $5"));
+    }
+
+    @Test
+    public void testTrailingDollar() throws Exception {
+        Assert.assertEquals("text$", replace("text$"));
+    }
+
+    @Test
+    public void testUnclosedDefault() throws Exception {
+        Assert.assertEquals("default", replace("${missing,default"));
+    }
+
+    @Test
+    public void testUnresolvedProperty() throws Exception {
+        try {
+            replace("before ${missing} after");
+            Assert.fail("unresolved property");
+        } catch(IllegalStateException e) {
+            Assert.assertEquals("Failed to resolve property: missing", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testIncompleteExpression() throws Exception {
+        try {
+            replace("before ${a");
+            Assert.fail("incomplete expression");
+        } catch(IllegalStateException e) {
+            Assert.assertEquals("Incomplete expression: a", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testExpressionsAcrossBlockBoundary() throws Exception {
+        final String[][] cases = new String[][] {
+            {"${a}", "1"},
+            {"$${a}", "${a}"},
+            {"${missing,b}", "2"},
+            {"${a,missing}", "1"},
+            {"${/}", String.valueOf(File.separatorChar)}
+        };
+        for(String[] c : cases) {
+            for(int offset = 1; offset <= c[0].length(); ++offset) {
+                final String prefix = fill(BLOCK_SIZE - offset);
+                Assert.assertEquals(c[0] + " at " + offset, prefix + c[1] + "end", replace(prefix + c[0] + "end"));
+            }
+        }
+        final String prefix = fill(BLOCK_SIZE - 1);
+        Assert.assertEquals(prefix + "$", replace(prefix + "$"));
+    }
+
+    private static String fill(int length) {
+        final StringBuilder buf = new StringBuilder(length);
+        for(int i = 0; i < length; ++i) {
+            buf.append((char)('a' + i % 26));
+        }
+        return buf.toString();
+    }
+
+    private static String replace(String content) throws Exception {
+        final Map<String, String> props = new HashMap<>();
+        props.put("a", "1");
+        props.put("b", "2");
+        final StringWriter writer = new StringWriter();
+        PropertyReplacer.copy(new StringReader(content), writer, new MapPropertyResolver(props));
+        return writer.toString();
+    }
+}
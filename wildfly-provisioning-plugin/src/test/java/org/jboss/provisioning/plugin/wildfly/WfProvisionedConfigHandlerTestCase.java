@@ -0,0 +1,149 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.provisioning.plugin.wildfly;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.jboss.provisioning.ArtifactCoords;
+import org.jboss.provisioning.DefaultMessageWriter;
+import org.jboss.provisioning.config.ProvisioningConfig;
+import org.jboss.provisioning.runtime.ProvisioningRuntime;
+import org.jboss.provisioning.runtime.ProvisioningRuntimeBuilder;
+import org.jboss.provisioning.runtime.ResolvedFeatureSpec;
+import org.jboss.provisioning.runtime.ResolvedSpecId;
+import org.jboss.provisioning.spec.FeatureAnnotation;
+import org.jboss.provisioning.spec.FeatureParameterSpec;
+import org.jboss.provisioning.spec.FeatureSpec;
+import org.jboss.provisioning.state.ProvisionedFeature;
+import org.jboss.provisioning.type.builtin.BuiltInParameterTypeProvider;
+import org.jboss.provisioning.util.IoUtils;
+import org.jboss.provisioning.xml.ProvisionedConfigBuilder;
+import org.jboss.provisioning.xml.ProvisionedFeatureBuilder;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class WfProvisionedConfigHandlerTestCase {
+
+    private static final ResolvedSpecId SPEC_ID = new ResolvedSpecId(ArtifactCoords.newGav("org.pm.test", "fp1", "1.0.0.Final"), "specA");
+
+    private Path installDir;
+    private ProvisioningRuntime runtime;
+    private WfProvisionedConfigHandler handler;
+
+    @Before
+    public void before() throws Exception {
+        installDir = Files.createTempDirectory("pm-install");
+        runtime = ProvisioningRuntimeBuilder.newInstance(new DefaultMessageWriter())
+                .setConfig(ProvisioningConfig.builder().build())
+                .setInstallDir(installDir)
+                .build();
+        handler = new WfProvisionedConfigHandler(runtime);
+        handler.prepare(ProvisionedConfigBuilder.builder()
+                .setModel(WfConstants.STANDALONE)
+                .setName("main")
+                .setProperty("config-name", "standalone.xml")
+                .build());
+    }
+
+    @After
+    public void after() throws Exception {
+        if(runtime != null) {
+            runtime.close();
+        }
+        IoUtils.recursiveDelete(installDir);
+    }
+
+    @Test
+    public void testAnnotationsFollowingSkippedAnnotationAreApplied() throws Exception {
+        // profile is filtered out for the standalone model
+        handler.nextSpec(spec(
+                new FeatureAnnotation("add")
+                .setAttr(WfConstants.ADDR_PARAMS, "profile,name")
+                .setAttr(WfConstants.SKIP_IF_FILTERED, "profile"),
+                new FeatureAnnotation("add")
+                .setAttr(WfConstants.ADDR_PREF, "/subsystem=test")
+                .setAttr(WfConstants.ADDR_PARAMS, "name")
+                .setAttr(WfConstants.OP_PARAMS, "a"),
+                new FeatureAnnotation(WfConstants.WRITE_ATTRIBUTE)
+                .setAttr(WfConstants.ADDR_PREF, "/subsystem=test")
+                .setAttr(WfConstants.ADDR_PARAMS, "name")
+                .setAttr(WfConstants.OP_PARAMS, "b")));
+        handler.nextFeature(feature("n1", "1", "2", "3"));
+        Assert.assertEquals(Arrays.asList(
+                "/subsystem=test/name=n1:add(a=1)",
+                "/subsystem=test/name=n1:write-attribute(name=b,value=2)"), handler.getOps());
+    }
+
+    @Test
+    public void testNullParameterKeepsMappedNamesAligned() throws Exception {
+        handler.nextSpec(spec(
+                new FeatureAnnotation("add")
+                .setAttr(WfConstants.ADDR_PREF, "/subsystem=test")
+                .setAttr(WfConstants.ADDR_PARAMS, "name")
+                .setAttr(WfConstants.OP_PARAMS, "a,b,c")
+                .setAttr(WfConstants.OP_PARAMS_MAPPING, "x,y,z")));
+        handler.nextFeature(feature("n1", "1", null, "3"));
+        Assert.assertEquals(Arrays.asList("/subsystem=test/name=n1:add(x=1,z=3)"), handler.getOps());
+    }
+
+    @Test
+    public void testOpSkippedIfOpParamIsFiltered() throws Exception {
+        handler.nextSpec(spec(
+                new FeatureAnnotation("add")
+                .setAttr(WfConstants.ADDR_PREF, "/subsystem=test")
+                .setAttr(WfConstants.ADDR_PARAMS, "name")
+                .setAttr(WfConstants.OP_PARAMS, "a,profile")
+                .setAttr(WfConstants.SKIP_IF_FILTERED, "profile"),
+                new FeatureAnnotation("add")
+                .setAttr(WfConstants.ADDR_PREF, "/subsystem=other")
+                .setAttr(WfConstants.ADDR_PARAMS, "name")
+                .setAttr(WfConstants.OP_PARAMS, "a,profile")));
+        handler.nextFeature(feature("n1", "1", null, null));
+        Assert.assertEquals(Arrays.asList("/subsystem=other/name=n1:add(a=1)"), handler.getOps());
+    }
+
+    private static ResolvedFeatureSpec spec(FeatureAnnotation... annotations) throws Exception {
+        final FeatureSpec.Builder builder = FeatureSpec.builder(SPEC_ID.getName())
+                .addParam(FeatureParameterSpec.createId("name"))
+                .addParam(FeatureParameterSpec.create("a", true))
+                .addParam(FeatureParameterSpec.create("b", true))
+                .addParam(FeatureParameterSpec.create("c", true))
+                .addParam(FeatureParameterSpec.create("profile", true));
+        for(FeatureAnnotation annotation : annotations) {
+            builder.addAnnotation(annotation);
+        }
+        return new ResolvedFeatureSpec(SPEC_ID, BuiltInParameterTypeProvider.getInstance(), builder.build());
+    }
+
+    private static ProvisionedFeature feature(String name, String a, String b, String c) throws Exception {
+        final ProvisionedFeatureBuilder builder = ProvisionedFeatureBuilder.builder(SPEC_ID).setIdParam("name", name);
+        if(a != null) {
+            builder.setConfigParam("a", a);
+        }
+        if(b != null) {
+            builder.setConfigParam("b", b);
+        }
+        if(c != null) {
+            builder.setConfigParam("c", c);
+        }
+        return builder.setConfigParam("profile", "default").build();
+    }
+}